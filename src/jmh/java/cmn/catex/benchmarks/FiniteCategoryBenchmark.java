@@ -0,0 +1,77 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.cat.IndexedEdge;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FiniteCategoryBenchmark {
+
+    // the constructor that validates each morphism through addMorphism
+    @Benchmark
+    public FiniteCategory<IntervalList, Interval> validatingConstructor(final IntervalCategoryState state) {
+        return new FiniteCategory<>(
+                state.intervalList,
+                state.elements,
+                new FiniteMorphisms<>(state.category.getMorphismMap()));
+    }
+
+    // bulk load: validated in one pass, and the morphisms are adopted rather than copied
+    @Benchmark
+    public FiniteCategory<IntervalList, Interval> bulkLoad(
+            final IntervalCategoryState state,
+            final FiniteMorphismsBenchmark.CopySourceState morphismsState) {
+        return FiniteCategory.of(state.intervalList, state.elements, morphismsState.morphisms);
+    }
+
+    // a fresh copy of the category for each invocation, so that its derived structures aren't cached yet
+    @State(Scope.Thread)
+    public static class UncachedCategoryState {
+        public FiniteCategory<IntervalList, Interval> category;
+
+        @Setup(Level.Invocation)
+        public void setup(final IntervalCategoryState state) {
+            category = state.category.toMutable();
+        }
+    }
+
+    @Benchmark
+    public Graph<Interval, IndexedEdge> asGraph(final UncachedCategoryState state) {
+        return state.category.asGraph();
+    }
+
+    // copying into a jgrapht multigraph, as asGraph did before it returned a view
+    @Benchmark
+    public Graph<Interval, DefaultEdge> copyToMultigraph(final IntervalCategoryState state) {
+        final DirectedMultigraph<Interval, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
+        state.category.getElements().forEach(graph::addVertex);
+        state.category.getMorphismMap().forEach((from, tos) -> tos.forEach(to -> graph.addEdge(from, to)));
+        return graph;
+    }
+
+    // repeated calls on an unchanged category return the cached graph
+    @Benchmark
+    public Graph<Interval, IndexedEdge> asGraphCached(final IntervalCategoryState state) {
+        return state.category.asGraph();
+    }
+
+    @Benchmark
+    public int hashCodeCached(final IntervalCategoryState state) {
+        return state.category.hashCode();
+    }
+}
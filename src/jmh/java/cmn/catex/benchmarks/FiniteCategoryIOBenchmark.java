@@ -0,0 +1,60 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.FiniteCategoryIO;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.genomics.intervals.IntervalCodec;
+import cmn.catex.genomics.intervals.IntervalRelation;
+import htsjdk.io.HtsPath;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FiniteCategoryIOBenchmark {
+    private Path binaryPath;
+    private IOPath ioPath;
+
+    @Setup(Level.Trial)
+    public void setup(final IntervalCategoryState state) throws IOException {
+        binaryPath = Files.createTempFile("finiteCategoryIOBenchmark", ".catx");
+        ioPath = new HtsPath(binaryPath.toUri().toString());
+        FiniteCategoryIO.write(state.category, IntervalCodec.INSTANCE, ioPath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binaryPath);
+    }
+
+    @Benchmark
+    public FiniteCategory<IntervalList, Interval> readBinary(final IntervalCategoryState state) {
+        return FiniteCategoryIO.read(ioPath, IntervalCodec.INSTANCE, state.intervalList);
+    }
+
+    // recomputing the category from its intervals, which is what reading the binary file replaces
+    @Benchmark
+    public FiniteCategory<IntervalList, Interval> rebuild(final IntervalCategoryState state) {
+        return IntervalCategories.toOverlapsCategory(state.intervalList);
+    }
+
+    // the same, with the elements stored off-heap
+    @Benchmark
+    public FiniteCategory<IntervalList, Interval> rebuildOffHeap(final IntervalCategoryState state) {
+        return IntervalCategories.toOffHeapCategory(state.intervalList, IntervalRelation.OVERLAPS, null);
+    }
+}
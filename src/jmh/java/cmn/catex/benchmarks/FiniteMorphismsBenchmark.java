@@ -0,0 +1,54 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import htsjdk.samtools.util.Interval;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FiniteMorphismsBenchmark {
+
+    @Benchmark
+    public FiniteMorphisms<Interval> addMapBacked(final IntervalCategoryState state) {
+        return addAll(new FiniteMorphisms<>(), state);
+    }
+
+    @Benchmark
+    public FiniteMorphisms<Interval> addIndexed(final IntervalCategoryState state) {
+        return addAll(new IndexedFiniteMorphisms<>(), state);
+    }
+
+    @Benchmark
+    public FiniteMorphisms<Interval> copyConstructor(final CopySourceState state) {
+        return new FiniteMorphisms<>(state.morphisms);
+    }
+
+    private static FiniteMorphisms<Interval> addAll(
+            final FiniteMorphisms<Interval> morphisms,
+            final IntervalCategoryState state) {
+        for (int i = 0; i < state.morphismSources.length; i++) {
+            morphisms.add(state.morphismSources[i], state.morphismTargets[i]);
+        }
+        return morphisms;
+    }
+
+    // a map-backed morphisms object to copy
+    @State(Scope.Benchmark)
+    public static class CopySourceState {
+        public FiniteMorphisms<Interval> morphisms;
+
+        @Setup(Level.Trial)
+        public void setup(final IntervalCategoryState state) {
+            morphisms = addAll(new FiniteMorphisms<>(), state);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import cmn.catex.cat.IndexedEdge;
+import cmn.catex.utils.GraphUtils;
+import htsjdk.io.HtsPath;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.util.Interval;
+import org.jgrapht.Graph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphExportBenchmark {
+    private Graph<Interval, IndexedEdge> graph;
+    private Path dotPath;
+
+    @Setup(Level.Trial)
+    public void setup(final IntervalCategoryState state) throws IOException {
+        graph = state.category.asGraph();
+        dotPath = Files.createTempFile("graphExportBenchmark", ".dot");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dotPath);
+    }
+
+    @Benchmark
+    public long writeGraphToDOT() {
+        final IOPath ioPath = new HtsPath(dotPath.toUri().toString());
+        GraphUtils.writeGraphToDOT(graph, ioPath);
+        try {
+            return Files.size(dotPath);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // streaming DOT export directly from the category adjacency
+    @Benchmark
+    public long writeAsGraph(final IntervalCategoryState state) {
+        state.category.writeAsGraph(new HtsPath(dotPath.toUri().toString()));
+        try {
+            return Files.size(dotPath);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
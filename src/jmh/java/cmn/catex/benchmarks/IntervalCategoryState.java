@@ -0,0 +1,48 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared benchmark state: an overlaps category over a synthetic interval set. The largest sizes need a
+ * correspondingly large heap (i.e., -PjmhArgs="-jvmArgsAppend -Xmx32g").
+ */
+@State(Scope.Benchmark)
+public class IntervalCategoryState {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"1", "4"})
+    public int overlapDensity;
+
+    public IntervalList intervalList;
+    public FiniteCategory<IntervalList, Interval> category;
+    public List<Interval> elements;
+    // morphisms flattened into parallel arrays, so that adding them isn't measured along with iterating a map
+    public Interval[] morphismSources;
+    public Interval[] morphismTargets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        intervalList = SyntheticIntervals.intervalList(size, overlapDensity, 42L);
+        category = IntervalCategories.toOverlapsCategory(intervalList);
+        elements = new ArrayList<>(category.getElements());
+        final List<Interval> sources = new ArrayList<>();
+        final List<Interval> targets = new ArrayList<>();
+        category.getMorphismMap().forEach((from, tos) -> tos.forEach(to -> {
+            sources.add(from);
+            targets.add(to);
+        }));
+        morphismSources = sources.toArray(new Interval[0]);
+        morphismTargets = targets.toArray(new Interval[0]);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.benchmarks;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+
+import java.util.Random;
+
+/**
+ * Generates synthetic interval sets for benchmarks.
+ */
+public class SyntheticIntervals {
+    public static final int CONTIG_COUNT = 4;
+    // distance between the starts of consecutive intervals on a contig
+    private static final int SPACING = 100;
+
+    /**
+     * @param size number of intervals, spread evenly over {@link #CONTIG_COUNT} contigs
+     * @param overlapDensity approximate number of following intervals that each interval overlaps (0 for disjoint
+     *                       intervals)
+     * @param seed random seed used to jitter interval starts and lengths
+     */
+    public static IntervalList intervalList(final int size, final int overlapDensity, final long seed) {
+        final int perContig = (size + CONTIG_COUNT - 1) / CONTIG_COUNT;
+        final SAMSequenceDictionary sequenceDictionary = new SAMSequenceDictionary();
+        for (int c = 1; c <= CONTIG_COUNT; c++) {
+            sequenceDictionary.addSequence(new SAMSequenceRecord(Integer.toString(c), (perContig + overlapDensity + 2) * SPACING));
+        }
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(sequenceDictionary);
+
+        final Random random = new Random(seed);
+        final IntervalList intervalList = new IntervalList(header);
+        for (int i = 0; i < size; i++) {
+            final int start = 1 + (i / CONTIG_COUNT) * SPACING + random.nextInt(SPACING / 2);
+            final int length = overlapDensity * SPACING + random.nextInt(SPACING / 2);
+            intervalList.add(new Interval(
+                    Integer.toString(1 + i % CONTIG_COUNT),
+                    start,
+                    start + length,
+                    false,
+                    "interval-" + i));
+        }
+        return intervalList;
+    }
+}
@@ -3,10 +3,41 @@
  */
 package cmn.catex.cat;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * @param <S> type of originating source object
  * @param <E> type of elements in this category
  */
 public interface Category<S, E> {
     S getSource();
+
+    /**
+     * Morphisms are identified by their endpoints, so every composite from one element to another is the same
+     * morphism, and is equal to any generating morphism between them.
+     *
+     * @return the morphisms from one element to another: the identity if from and to are the same element, followed
+     * by the generating morphisms (one per parallel morphism); or, for distinct elements without a generating
+     * morphism between them, the composite from one to the other, if to can be reached from from
+     * @throws IllegalArgumentException if from or to is not an element of this category
+     */
+    List<Morphism<E>> hom(E from, E to);
+
+    /**
+     * @return the composite of f followed by g
+     * @throws IllegalArgumentException if the target of f is not the source of g, or if f or g is not a morphism of
+     * this category (an identity, or a morphism whose target can be reached from its source)
+     */
+    Morphism<E> compose(Morphism<E> f, Morphism<E> g);
+
+    /**
+     * @return every element that can be reached from an element by composing morphisms, including the element itself
+     */
+    Set<E> reachable(E from);
+
+    /**
+     * @return the sources of the generating morphisms that have the given element as their target
+     */
+    Set<E> predecessors(E to);
 }
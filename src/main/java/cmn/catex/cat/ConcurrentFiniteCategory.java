@@ -0,0 +1,194 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import htsjdk.utils.ValidationUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finite category that many threads can build concurrently, e.g. one producer per input shard, without a global
+ * lock. Elements and morphism sources are kept in concurrent maps, and the targets of each source are kept in an
+ * append-only list, so the morphisms from a source that is only written by one thread are in a deterministic order.
+ * Queries are weakly consistent while producers are running; {@link #toFiniteCategory()} is the hand-off to the
+ * single-threaded (and snapshot) API once they are done.
+ *
+ * @param <S> type of originating source object
+ * @param <E> type of elements in this category
+ */
+public class ConcurrentFiniteCategory<S, E> implements Category<S, E> {
+    private final S source;
+    // element -> order of addition, used to order the elements of the FiniteCategory
+    private final ConcurrentHashMap<E, Long> elementOrder = new ConcurrentHashMap<>();
+    private final AtomicLong nextElementOrder = new AtomicLong();
+    private final ConcurrentFiniteMorphisms<E> morphisms = new ConcurrentFiniteMorphisms<>();
+
+    public ConcurrentFiniteCategory() {
+        this(null);
+    }
+
+    public ConcurrentFiniteCategory(final S source) {
+        this.source = source;
+    }
+
+    public void addElement(final E element) {
+        elementOrder.computeIfAbsent(element, e -> nextElementOrder.getAndIncrement());
+    }
+
+    @SafeVarargs
+    public final void addElements(final E... newElements) {
+        for (final E element : newElements) {
+            addElement(element);
+        }
+    }
+
+    public void addMorphism(final E from, final E to) {
+        ValidationUtils.validateArg(elementOrder.containsKey(from) && elementOrder.containsKey(to),
+                "Both 'from' and 'to' elements must be added to the category before adding a morphism between them.");
+        morphisms.add(from, to);
+    }
+
+    /**
+     * @return a live, weakly consistent view of the morphism map
+     */
+    public Map<E, List<E>> getMorphismMap() {
+        return morphisms.getMorphismMap();
+    }
+
+    /**
+     * @return a live, unmodifiable view of the elements, in no particular order
+     */
+    public Set<E> getElements() {
+        return Collections.unmodifiableSet(elementOrder.keySet());
+    }
+
+    @Override
+    public S getSource() { return source; }
+
+    @Override
+    public List<Morphism<E>> hom(final E from, final E to) {
+        ValidationUtils.validateArg(elementOrder.containsKey(from),
+                () -> String.format("%s is not an element of this category", from));
+        ValidationUtils.validateArg(elementOrder.containsKey(to),
+                () -> String.format("%s is not an element of this category", to));
+        final List<Morphism<E>> hom = new ArrayList<>();
+        if (from.equals(to)) {
+            hom.add(Morphism.identity(from));
+        }
+        for (final E target : morphisms.targetsOf(from)) {
+            if (target.equals(to)) {
+                hom.add(new Morphism<>(from, to));
+            }
+        }
+        if (hom.isEmpty() && reaches(from, to)) {
+            hom.add(new Morphism<>(from, to));
+        }
+        return hom;
+    }
+
+    @Override
+    public Morphism<E> compose(final Morphism<E> f, final Morphism<E> g) {
+        ValidationUtils.validateArg(f.to().equals(g.from()),
+                () -> String.format("Morphisms %s and %s are not composable", f, g));
+        ValidationUtils.validateArg(elementOrder.containsKey(f.from())
+                        && elementOrder.containsKey(f.to())
+                        && elementOrder.containsKey(g.to()),
+                () -> String.format("Morphisms %s and %s must be between elements of this category", f, g));
+        ValidationUtils.validateArg(isMorphism(f) && isMorphism(g),
+                () -> String.format("Morphisms %s and %s must be morphisms of this category", f, g));
+        if (f.isIdentity()) {
+            return g;
+        } else if (g.isIdentity()) {
+            return f;
+        }
+        return new Morphism<>(f.from(), g.to());
+    }
+
+    // true for an identity, whose element compose checks, or a generating or composite morphism
+    private boolean isMorphism(final Morphism<E> morphism) {
+        return morphism.isIdentity() || reaches(morphism.from(), morphism.to());
+    }
+
+    // true if to can be reached from from by following at least one of the live morphisms
+    private boolean reaches(final E from, final E to) {
+        final Set<E> visited = new HashSet<>();
+        final ArrayDeque<E> queue = new ArrayDeque<>();
+        visited.add(from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            for (final E target : morphisms.targetsOf(queue.poll())) {
+                if (target.equals(to)) {
+                    return true;
+                }
+                if (visited.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Traverses the live morphisms; for repeated queries, use {@link #toFiniteCategory()} instead, which indexes
+     * them.
+     */
+    @Override
+    public Set<E> reachable(final E from) {
+        ValidationUtils.validateArg(elementOrder.containsKey(from),
+                () -> String.format("%s is not an element of this category", from));
+        final Set<E> reached = new LinkedHashSet<>();
+        final ArrayDeque<E> queue = new ArrayDeque<>();
+        reached.add(from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            for (final E target : morphisms.targetsOf(queue.poll())) {
+                if (reached.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * @return the sources of the live morphisms to an element, in the order the first morphism from each was added
+     */
+    @Override
+    public Set<E> predecessors(final E to) {
+        ValidationUtils.validateArg(elementOrder.containsKey(to),
+                () -> String.format("%s is not an element of this category", to));
+        return new LinkedHashSet<>(morphisms.sourcesOf(to));
+    }
+
+    /**
+     * @return a new FiniteCategory with the elements and morphisms added so far, with the elements in the order
+     * they were added and the morphisms from each source in the order they were added. If producers are still
+     * running, the result is a consistent category containing a subset of their additions.
+     */
+    public FiniteCategory<S, E> toFiniteCategory() {
+        final List<Map.Entry<E, Long>> entries = new ArrayList<>(elementOrder.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        final Set<E> elements = new LinkedHashSet<>(entries.size() * 2);
+        final ElementIndex<E> elementIndex = new HashElementIndex<>(entries.size());
+        for (final Map.Entry<E, Long> entry : entries) {
+            elements.add(entry.getKey());
+            elementIndex.add(entry.getKey());
+        }
+
+        final IndexedFiniteMorphisms<E> finiteMorphisms = new IndexedFiniteMorphisms<>(elementIndex);
+        final int elementCount = elementIndex.size();
+        for (int from = 0; from < elementCount; from++) {
+            for (final E target : morphisms.targetsOf(elementIndex.get(from))) {
+                final int to = elementIndex.indexOf(target);
+                // skip morphisms to elements that were added after the elements were captured
+                if (to >= 0) {
+                    finiteMorphisms.addById(from, to);
+                }
+            }
+        }
+        return FiniteCategory.ofTrusted(source, elements, finiteMorphisms);
+    }
+}
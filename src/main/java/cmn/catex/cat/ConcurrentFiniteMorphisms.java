@@ -0,0 +1,148 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe mapping of finite morphisms between elements. Each source has its own append-only target list, so
+ * threads adding morphisms from different sources never contend, and the targets of each source stay in the order
+ * in which they were added. Reads do not lock, and see a prefix of each target list. Parallel morphisms are kept,
+ * as for {@link MorphismPolicy#MULTIGRAPH}. The sources of the morphisms to each element are kept in the same way,
+ * so they can be found without scanning every source.
+ *
+ * @param <E> type of element
+ */
+public class ConcurrentFiniteMorphisms<E> extends FiniteMorphisms<E> {
+    private final ConcurrentHashMap<E, List<E>> morphisms = new ConcurrentHashMap<>();
+    // reverse of morphisms: the sources of the morphisms to each element
+    private final ConcurrentHashMap<E, List<E>> sources = new ConcurrentHashMap<>();
+    private final Map<E, List<E>> morphismMapView = Collections.unmodifiableMap(morphisms);
+
+    public ConcurrentFiniteMorphisms() {
+        super(MorphismPolicy.MULTIGRAPH, false);
+    }
+
+    public ConcurrentFiniteMorphisms(final FiniteMorphisms<E> other) {
+        this();
+        other.getMorphismMap().forEach((from, targets) -> targets.forEach(to -> add(from, to)));
+    }
+
+    @Override
+    public boolean add(final E from, final E to) {
+        sources.computeIfAbsent(to, k -> new AppendOnlyList<>()).add(from);
+        return morphisms.computeIfAbsent(from, k -> new AppendOnlyList<>()).add(to);
+    }
+
+    /**
+     * @return a live, weakly consistent view of the morphisms; sources cannot be added or removed through the map,
+     * but targets can be appended to the (thread-safe) lists
+     */
+    @Override
+    public Map<E, List<E>> getMorphismMap() { return morphismMapView; }
+
+    /**
+     * @return the targets of the morphisms from an element as of this call, in the order they were added; the list
+     * is a fixed-size view of the live list, not a copy
+     */
+    public List<E> targetsOf(final E from) {
+        final List<E> targets = morphisms.get(from);
+        return targets == null ? Collections.emptyList() : ((AppendOnlyList<E>) targets).prefix();
+    }
+
+    /**
+     * @return the sources of the morphisms to an element as of this call (once per morphism), in the order they were
+     * added; the list is a fixed-size view of the live list, not a copy
+     */
+    public List<E> sourcesOf(final E to) {
+        final List<E> from = sources.get(to);
+        return from == null ? Collections.emptyList() : ((AppendOnlyList<E>) from).prefix();
+    }
+
+    @Override
+    protected FiniteMorphisms<E> copy() {
+        return new ConcurrentFiniteMorphisms<>(this);
+    }
+
+    /**
+     * List that only supports appending. Appends are serialized per list; reads are lock-free, since elements are
+     * stored in fixed chunks (of doubling size) that are never reallocated, and are published by the volatile size.
+     */
+    private static final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+        private static final int FIRST_CHUNK_BITS = 3;
+        private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_BITS;
+
+        private volatile Object[][] chunks = new Object[1][];
+        private volatile int size;
+
+        @Override
+        public synchronized boolean add(final E element) {
+            final int index = size;
+            final int chunk = chunkOf(index);
+            Object[][] currentChunks = chunks;
+            if (chunk == currentChunks.length) {
+                currentChunks = Arrays.copyOf(currentChunks, chunk + 1);
+            }
+            if (currentChunks[chunk] == null) {
+                currentChunks[chunk] = new Object[FIRST_CHUNK_SIZE << chunk];
+            }
+            currentChunks[chunk][offsetOf(index, chunk)] = element;
+            chunks = currentChunks;
+            size = index + 1;
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(final int index) {
+            Objects.checkIndex(index, size);
+            final int chunk = chunkOf(index);
+            return (E) chunks[chunk][offsetOf(index, chunk)];
+        }
+
+        @Override
+        public int size() { return size; }
+
+        /**
+         * @return a read-only view of the elements appended so far, which later appends don't change
+         */
+        List<E> prefix() {
+            // size is published after chunks, so chunks read after size holds at least n elements
+            final int n = size;
+            final Object[][] currentChunks = chunks;
+            return new Prefix<>(currentChunks, n);
+        }
+
+        // chunk k holds indexes [FIRST_CHUNK_SIZE * (2^k - 1), FIRST_CHUNK_SIZE * (2^(k+1) - 1))
+        private static int chunkOf(final int index) {
+            return 31 - Integer.numberOfLeadingZeros((index >>> FIRST_CHUNK_BITS) + 1);
+        }
+
+        private static int offsetOf(final int index, final int chunk) {
+            return index - FIRST_CHUNK_SIZE * ((1 << chunk) - 1);
+        }
+
+        private static final class Prefix<E> extends AbstractList<E> implements RandomAccess {
+            private final Object[][] chunks;
+            private final int size;
+
+            private Prefix(final Object[][] chunks, final int size) {
+                this.chunks = chunks;
+                this.size = size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E get(final int index) {
+                Objects.checkIndex(index, size);
+                final int chunk = chunkOf(index);
+                return (E) chunks[chunk][offsetOf(index, chunk)];
+            }
+
+            @Override
+            public int size() { return size; }
+        }
+    }
+}
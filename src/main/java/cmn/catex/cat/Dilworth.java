@@ -0,0 +1,204 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.Arrays;
+
+/**
+ * Height, width and minimum chain decomposition of the poset generated by an acyclic {@link IndexedDigraph}.
+ *
+ * By Dilworth's theorem, the width (the size of a largest antichain) is the size of a smallest set of chains that
+ * covers the poset, which is the number of elements less the size of a maximum matching from each element to an
+ * element above it. The matching is found with Hopcroft-Karp over the morphisms of the transitive closure, in
+ * O(E sqrt(V)) time, with explicit stacks rather than recursion.
+ */
+final class Dilworth {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private Dilworth() {}
+
+    /**
+     * @return the number of elements of a longest chain, by a longest path pass over a topological order
+     */
+    static int height(final IndexedDigraph<?> graph, final int[] topological) {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        // longest[v]: number of elements of a longest chain ending at v
+        final int[] longest = new int[graph.size()];
+        int height = 0;
+        for (final int u : topological) {
+            final int length = longest[u] + 1;
+            height = Math.max(height, length);
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                final int w = targets[e];
+                if (w != u && longest[w] < length) {
+                    longest[w] = length;
+                }
+            }
+        }
+        return height;
+    }
+
+    /**
+     * @return true if every element that is reachable from a vertex is also one of its direct targets, in
+     * O(sum of the out-degrees of the targets of each vertex) time
+     */
+    static boolean isTransitivelyClosed(final IndexedDigraph<?> graph) {
+        final int n = graph.size();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final int[] markedBy = new int[n];
+        Arrays.fill(markedBy, -1);
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                markedBy[targets[e]] = u;
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                final int v = targets[e];
+                if (v != u) {
+                    for (int f = offsets[v]; f < offsets[v + 1]; f++) {
+                        final int w = targets[f];
+                        if (w != v && w != u && markedBy[w] != u) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param closed a transitively closed, acyclic graph
+     * @return a minimum chain decomposition, as chains of vertex ids: chain c is
+     * {@code chains[starts[c] .. starts[c + 1])}, from its least element to its greatest, in the form
+     * {@code {starts, chains}}
+     */
+    static int[][] chainDecomposition(final IndexedDigraph<?> closed) {
+        final int n = closed.size();
+        final int[] next = maximumMatching(n, closed.offsets(), closed.targets());
+
+        // a chain starts at each element that isn't matched from below, and follows the matching upwards
+        final boolean[] hasPrevious = new boolean[n];
+        int chainCount = n;
+        for (int u = 0; u < n; u++) {
+            if (next[u] >= 0) {
+                hasPrevious[next[u]] = true;
+                chainCount--;
+            }
+        }
+        final int[] starts = new int[chainCount + 1];
+        final int[] chains = new int[n];
+        int c = 0;
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            if (!hasPrevious[u]) {
+                for (int v = u; v >= 0; v = next[v]) {
+                    chains[size++] = v;
+                }
+                starts[++c] = size;
+            }
+        }
+        return new int[][] { starts, chains };
+    }
+
+    /**
+     * Hopcroft-Karp maximum matching of the bipartite graph with each vertex on both sides, and an edge from u on
+     * the left to v on the right for each morphism u -> v (other than self-loops).
+     *
+     * @return the vertex matched to each vertex on the left, or -1
+     */
+    static int[] maximumMatching(final int n, final int[] offsets, final int[] targets) {
+        final int[] matchLeft = new int[n];
+        final int[] matchRight = new int[n];
+        Arrays.fill(matchLeft, -1);
+        Arrays.fill(matchRight, -1);
+
+        // greedy initial matching, which leaves few augmenting paths to find
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                final int v = targets[e];
+                if (v != u && matchRight[v] < 0) {
+                    matchLeft[u] = v;
+                    matchRight[v] = u;
+                    break;
+                }
+            }
+        }
+
+        final int[] layer = new int[n];
+        final int[] queue = new int[n];
+        final int[] nextEdge = new int[n];
+        final int[] stack = new int[n];
+        while (true) {
+            // BFS from the free left vertices, layering the left vertices by alternating path length
+            int tail = 0;
+            for (int u = 0; u < n; u++) {
+                if (matchLeft[u] < 0) {
+                    layer[u] = 0;
+                    queue[tail++] = u;
+                } else {
+                    layer[u] = UNREACHED;
+                }
+            }
+            boolean augmentable = false;
+            for (int head = 0; head < tail; head++) {
+                final int u = queue[head];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    final int v = targets[e];
+                    if (v == u) {
+                        continue;
+                    }
+                    final int w = matchRight[v];
+                    if (w < 0) {
+                        augmentable = true;
+                    } else if (layer[w] == UNREACHED) {
+                        layer[w] = layer[u] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            if (!augmentable) {
+                return matchLeft;
+            }
+
+            // DFS from each free left vertex for vertex-disjoint shortest augmenting paths along the layers
+            for (int u = 0; u < n; u++) {
+                nextEdge[u] = offsets[u];
+            }
+            for (int root = 0; root < n; root++) {
+                if (matchLeft[root] >= 0) {
+                    continue;
+                }
+                int top = 0;
+                stack[top++] = root;
+                while (top > 0) {
+                    final int u = stack[top - 1];
+                    if (nextEdge[u] == offsets[u + 1]) {
+                        // no augmenting path through u in this phase
+                        layer[u] = UNREACHED;
+                        top--;
+                        continue;
+                    }
+                    final int v = targets[nextEdge[u]];
+                    final int w = v == u ? u : matchRight[v];
+                    if (w < 0) {
+                        // flip the path: each vertex on the stack is matched to the target of its current edge
+                        for (int i = top - 1; i >= 0; i--) {
+                            final int x = stack[i];
+                            final int y = targets[nextEdge[x]];
+                            matchLeft[x] = y;
+                            matchRight[y] = x;
+                        }
+                        top = 0;
+                    } else if (w != u && layer[w] == layer[u] + 1) {
+                        stack[top++] = w;
+                    } else {
+                        nextEdge[u]++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of the elements of a category, used by {@link FiniteCategoryIO}. Primitive values are big-endian,
+ * as written by {@link DataOutput} and read by a default {@link ByteBuffer}.
+ *
+ * @param <E> type of element
+ */
+public interface ElementCodec<E> {
+
+    /**
+     * Codec for String elements.
+     */
+    ElementCodec<String> STRING = new ElementCodec<>() {
+        @Override
+        public String getId() { return "string"; }
+
+        @Override
+        public void encode(final String element, final DataOutput out) throws IOException {
+            writeString(element, out);
+        }
+
+        @Override
+        public String decode(final ByteBuffer in) { return readString(in); }
+    };
+
+    /**
+     * @return identifier of this encoding, which is stored in the file and checked when it is read back
+     */
+    String getId();
+
+    void encode(E element, DataOutput out) throws IOException;
+
+    /**
+     * @param in buffer positioned at, and limited to, the encoding of one element
+     */
+    E decode(ByteBuffer in);
+
+    /**
+     * Write a (possibly null) string as its UTF-8 length followed by its UTF-8 bytes; null is written as length -1.
+     */
+    static void writeString(final String value, final DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a string written by {@link #writeString}.
+     */
+    static String readString(final ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
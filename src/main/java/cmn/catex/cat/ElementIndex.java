@@ -0,0 +1,38 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * Assigns dense int ids (0..size-1, in insertion order) to the elements of a category, so that adjacency can be
+ * stored in primitive arrays rather than in per-element collections.
+ *
+ * @param <E> type of element
+ */
+public interface ElementIndex<E> {
+
+    /**
+     * @return the number of elements in the index
+     */
+    int size();
+
+    /**
+     * @param id dense id of an element
+     * @return the element with the given id
+     */
+    E get(int id);
+
+    /**
+     * @param element element to look up
+     * @return the id of the element, or -1 if the element is not in the index
+     */
+    int indexOf(Object element);
+
+    /**
+     * Add an element to the index if it is not already present.
+     *
+     * @param element element to add
+     * @return the (new or existing) id of the element
+     */
+    int add(E element);
+}
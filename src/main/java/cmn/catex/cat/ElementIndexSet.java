@@ -0,0 +1,56 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link java.util.Set} view of the elements of an {@link ElementIndex}, in id order. Adding an element adds it to
+ * the index, if the index can be modified; elements can't be removed.
+ *
+ * @param <E> type of element
+ */
+final class ElementIndexSet<E> extends AbstractSet<E> {
+    private final ElementIndex<E> elementIndex;
+
+    ElementIndexSet(final ElementIndex<E> elementIndex) {
+        this.elementIndex = elementIndex;
+    }
+
+    ElementIndex<E> getElementIndex() { return elementIndex; }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() { return next < elementIndex.size(); }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elementIndex.get(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size() { return elementIndex.size(); }
+
+    @Override
+    public boolean add(final E element) {
+        final int size = elementIndex.size();
+        return elementIndex.add(element) == size;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return elementIndex.indexOf(element) >= 0;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * {@link ElementIndex} that extends a shared, read-only index (e.g. that of a snapshot) without copying it: the
+ * shared elements keep their ids, and elements added later are numbered after them.
+ *
+ * @param <E> type of element
+ */
+final class ExtendedElementIndex<E> implements ElementIndex<E> {
+    private final ElementIndex<E> shared;
+    private final HashElementIndex<E> added = new HashElementIndex<>();
+
+    /**
+     * @param shared index to extend, which must not be modified afterwards
+     */
+    ExtendedElementIndex(final ElementIndex<E> shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    public int size() { return shared.size() + added.size(); }
+
+    @Override
+    public E get(final int id) {
+        return id < shared.size() ? shared.get(id) : added.get(id - shared.size());
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        final int id = shared.indexOf(element);
+        if (id >= 0) {
+            return id;
+        }
+        final int addedId = added.indexOf(element);
+        return addedId < 0 ? -1 : shared.size() + addedId;
+    }
+
+    @Override
+    public int add(final E element) {
+        final int id = shared.indexOf(element);
+        return id >= 0 ? id : shared.size() + added.add(element);
+    }
+}
@@ -3,59 +3,244 @@
  */
 package cmn.catex.cat;
 
+import cmn.catex.metrics.CategoryStats;
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
 import cmn.catex.utils.GraphUtils;
 import htsjdk.io.IOPath;
 import htsjdk.utils.ValidationUtils;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DirectedMultigraph;
 
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * Finite, mutable category. Identity morphisms are implicit, and are not modeled explicitly.
  *
+ * {@link #snapshot()} returns an immutable snapshot backed by compact arrays, which can be shared across threads
+ * and queried without locking or defensive copying. {@link #toMutable()} copies a snapshot in constant time: the
+ * copy shares the snapshot's arrays, and copies the morphisms from an element only when one is first added to it.
+ *
  * @param <S> type of originating source object
  * @param <E> type of elements in this category
  */
 public class FiniteCategory<S, E> implements Category<S, E> {
     private final S source;
-    private Set<E> elements = new LinkedHashSet<>();
-    private FiniteMorphisms<E> morphisms;
+    private final Set<E> elements;
+    private final FiniteMorphisms<E> morphisms;
+    private final boolean frozen;
+    // built on the first query; for mutable categories, then maintained incrementally by addElement/addMorphism
+    private volatile MorphismIndex<E> morphismIndex;
+    // bumped by every change made through addElement/addMorphism, which invalidates the derived structures
+    private int modCount;
+    private volatile Derived<E> derived;
 
     public FiniteCategory() {
         this(null);
     }
 
     public FiniteCategory(final S source) {
-        this.source = source;
-        this.morphisms = new FiniteMorphisms<>();
+        this(source, MorphismPolicy.MULTIGRAPH);
+    }
+
+    /**
+     * @param policy how morphisms that are added more than once between the same elements are stored
+     */
+    public FiniteCategory(final S source, final MorphismPolicy policy) {
+        this(source, new LinkedHashSet<>(), new FiniteMorphisms<>(policy), false);
     }
 
     public FiniteCategory(final S source, final List<E> elements, final FiniteMorphisms<E> morphisms) {
+        this(source, new LinkedHashSet<>(elements), morphisms, true);
+    }
+
+    /**
+     * @param validateAndCopy if true, validate the morphisms against the elements and copy them (using the same
+     *                        storage backend); otherwise adopt them as is
+     */
+    private FiniteCategory(
+            final S source,
+            final Set<E> elements,
+            final FiniteMorphisms<E> morphisms,
+            final boolean validateAndCopy) {
+        this.source = source;
+        this.elements = elements;
+        this.morphisms = validateAndCopy ? validateMorphisms(elements, morphisms).copy() : morphisms;
+        this.frozen = false;
+    }
+
+    // immutable snapshot
+    private FiniteCategory(final S source, final IndexedDigraph<E> graph, final FrozenFiniteMorphisms<E> morphisms) {
         this.source = source;
-        elements.forEach(e -> {
-            this.elements.add(e);
-        });
-        this.morphisms = new FiniteMorphisms<>();
-        // validate that all morphisms are between known elements
-        morphisms.getMorphismMap().forEach((from, tos) -> tos.forEach(to -> this.addMorphism(from, to)));
+        this.elements = new ElementIndexSet<>(graph.getElementIndex());
+        this.morphisms = morphisms;
+        this.frozen = true;
+    }
+
+    /**
+     * Create a category from elements and morphisms produced by a trusted source, without validating that the
+     * morphisms are between known elements. The morphisms object (and the elements, if they are a LinkedHashSet)
+     * are adopted rather than copied, so the caller must not retain and modify them. Elements in any other
+     * collection are copied into a LinkedHashSet, so the category is always mutable and keeps insertion order.
+     */
+    public static <S, E> FiniteCategory<S, E> ofTrusted(
+            final S source,
+            final Collection<E> elements,
+            final FiniteMorphisms<E> morphisms) {
+        return new FiniteCategory<>(
+                source,
+                elements instanceof LinkedHashSet<E> elementSet ? elementSet : new LinkedHashSet<>(elements),
+                morphisms,
+                false);
+    }
+
+    /**
+     * Create a category from elements and morphisms in bulk. Morphisms are validated against the elements in a
+     * single pass, and the morphisms object (and the elements, if they are a LinkedHashSet) are adopted rather than
+     * copied, so the caller must not retain and modify them; elements in any other collection are copied.
+     *
+     * @throws IllegalArgumentException if any morphism is not between known elements
+     */
+    public static <S, E> FiniteCategory<S, E> of(
+            final S source,
+            final Collection<E> elements,
+            final FiniteMorphisms<E> morphisms) {
+        final FiniteCategory<S, E> category = ofTrusted(source, elements, morphisms);
+        validateMorphisms(category.elements, morphisms);
+        return category;
+    }
+
+    /**
+     * @return an immutable snapshot category whose elements and morphisms are those of graph
+     */
+    public static <S, E> FiniteCategory<S, E> of(final S source, final IndexedDigraph<E> graph) {
+        return new FiniteCategory<>(source, graph, new FrozenFiniteMorphisms<>(graph));
+    }
+
+    /**
+     * @return an immutable snapshot category whose elements and morphisms are those of graph, with the given morphism
+     * policy (which can't be COUNTED, since graph has no multiplicities)
+     * @throws IllegalArgumentException if policy is SET and graph has parallel edges
+     */
+    public static <S, E> FiniteCategory<S, E> of(
+            final S source,
+            final IndexedDigraph<E> graph,
+            final MorphismPolicy policy) {
+        return new FiniteCategory<>(source, graph, FrozenFiniteMorphisms.of(graph, policy));
+    }
+
+    /**
+     * @return an immutable snapshot category with the COUNTED policy, whose elements and morphisms are those of graph
+     * and whose (adopted) edge multiplicities are parallel to the CSR targets of graph
+     */
+    static <S, E> FiniteCategory<S, E> ofCounted(
+            final S source,
+            final IndexedDigraph<E> graph,
+            final int[] edgeMultiplicities) {
+        return new FiniteCategory<>(source, graph, FrozenFiniteMorphisms.ofCounted(graph, edgeMultiplicities));
+    }
+
+    // validate that all morphisms are between known elements
+    private static <E> FiniteMorphisms<E> validateMorphisms(final Set<E> elements, final FiniteMorphisms<E> morphisms) {
+        Metrics.run(Phase.VALIDATE, "FiniteCategory.validateMorphisms", () -> ValidationUtils.validateArg(
+                morphisms.referencesOnly(elements),
+                "Both 'from' and 'to' elements must be added to the category before adding a morphism between them."));
+        return morphisms;
+    }
+
+    /**
+     * @return an immutable snapshot of this category, whose elements and morphisms are stored in compact arrays;
+     * if this category is already a snapshot, it is returned as is
+     */
+    public FiniteCategory<S, E> snapshot() {
+        if (frozen) {
+            return this;
+        }
+        final Derived<E> current = derived();
+        @SuppressWarnings("unchecked") FiniteCategory<S, E> snapshot = (FiniteCategory<S, E>) current.snapshot;
+        if (snapshot == null) {
+            final IndexedDigraph<E> graph = toIndexedDigraph();
+            snapshot = new FiniteCategory<>(source, graph, FrozenFiniteMorphisms.of(graph, morphisms));
+            current.snapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return a new, mutable copy of this category; the copy of a snapshot is made in constant time, and shares the
+     * snapshot's arrays until it is modified
+     */
+    public FiniteCategory<S, E> toMutable() {
+        if (morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms) {
+            final IndexedFiniteMorphisms<E> copy = frozenMorphisms.copy();
+            final FiniteCategory<S, E> mutable =
+                    new FiniteCategory<>(source, new ElementIndexSet<>(copy.getElementIndex()), copy, false);
+            mutable.morphismIndex = getMorphismIndex().extend(copy.getElementIndex());
+            return mutable;
+        }
+        return new FiniteCategory<>(source, new LinkedHashSet<>(elements), morphisms.copy(), false);
+    }
+
+    public boolean isFrozen() { return frozen; }
+
+    // for a COUNTED snapshot, the multiplicity of each edge, parallel to the CSR targets of toIndexedDigraph();
+    // otherwise null
+    int[] getEdgeMultiplicities() {
+        return morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms
+                ? frozenMorphisms.getEdgeMultiplicities()
+                : null;
     }
 
     public void addElement(final E element) {
-        elements.add(element);
+        checkMutable();
+        final MorphismIndex<E> index = morphismIndex;
+        if (elements.add(element)) {
+            modCount++;
+            if (index != null) {
+                index.addElement(element);
+            }
+        }
     }
 
     public void addElements(final E... newElements) {
-        Arrays.stream(newElements).forEach(e -> elements.add(e));
+        Arrays.stream(newElements).forEach(e -> addElement(e));
     }
 
+    /**
+     * Add a morphism, subject to the {@link MorphismPolicy} of this category: for SET, adding a morphism that
+     * already exists has no effect, and for COUNTED it only increments the morphism's multiplicity.
+     */
     public void addMorphism(final E from, final E to) {
+        checkMutable();
         ValidationUtils.validateArg(elements.contains(from) && elements.contains(to),
                 "Both 'from' and 'to' elements must be added to the category before adding a morphism between them.");
-        morphisms.add(from, to);
+        if (morphisms.add(from, to)) {
+            modCount++;
+            final MorphismIndex<E> index = morphismIndex;
+            if (index != null) {
+                index.addMorphism(from, to);
+            }
+        }
     }
 
+    public MorphismPolicy getMorphismPolicy() { return morphisms.getPolicy(); }
+
+    /**
+     * @return the number of (non-identity) morphisms from one element to another; see
+     * {@link FiniteMorphisms#multiplicity}
+     */
+    public int multiplicity(final E from, final E to) {
+        return morphisms.getPolicy() == MorphismPolicy.COUNTED
+                ? morphisms.multiplicity(from, to)
+                : getMorphismIndex().morphismCount(from, to);
+    }
+
+    /**
+     * @return the morphism map; modifying it directly bypasses the validation, the query indexes and the cached
+     * derived structures of this category
+     */
     public Map<E, List<E>> getMorphismMap() {
         return morphisms.getMorphismMap();
     }
@@ -67,19 +252,447 @@ public class FiniteCategory<S, E> implements Category<S, E> {
     @Override
     public S getSource() { return source; }
 
-    public Graph<E, DefaultEdge> asGraph() {
-        final DirectedMultigraph<E, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
-        for (final E element : getElements()) {
-            graph.addVertex(element);
+    @Override
+    public List<Morphism<E>> hom(final E from, final E to) {
+        ValidationUtils.validateArg(elements.contains(from),
+                () -> String.format("%s is not an element of this category", from));
+        ValidationUtils.validateArg(elements.contains(to),
+                () -> String.format("%s is not an element of this category", to));
+        final int count = multiplicity(from, to);
+        final List<Morphism<E>> hom = new ArrayList<>(count + 1);
+        if (from.equals(to)) {
+            hom.add(Morphism.identity(from));
+        } else if (count == 0 && getMorphismIndex().reaches(from, to)) {
+            hom.add(new Morphism<>(from, to));
+        }
+        for (int i = 0; i < count; i++) {
+            hom.add(new Morphism<>(from, to));
+        }
+        return hom;
+    }
+
+    @Override
+    public Morphism<E> compose(final Morphism<E> f, final Morphism<E> g) {
+        ValidationUtils.validateArg(f.to().equals(g.from()),
+                () -> String.format("Morphisms %s and %s are not composable", f, g));
+        ValidationUtils.validateArg(
+                elements.contains(f.from()) && elements.contains(f.to()) && elements.contains(g.to()),
+                () -> String.format("Morphisms %s and %s must be between elements of this category", f, g));
+        ValidationUtils.validateArg(isMorphism(f) && isMorphism(g),
+                () -> String.format("Morphisms %s and %s must be morphisms of this category", f, g));
+        if (f.isIdentity()) {
+            return g;
+        } else if (g.isIdentity()) {
+            return f;
+        }
+        return new Morphism<>(f.from(), g.to());
+    }
+
+    // true for an identity, whose element compose checks, or a generating or composite morphism
+    private boolean isMorphism(final Morphism<E> morphism) {
+        return morphism.isIdentity() || getMorphismIndex().reaches(morphism.from(), morphism.to());
+    }
+
+    @Override
+    public Set<E> reachable(final E from) {
+        return getMorphismIndex().reachable(from);
+    }
+
+    @Override
+    public Set<E> predecessors(final E to) {
+        return getMorphismIndex().predecessors(to);
+    }
+
+    private MorphismIndex<E> getMorphismIndex() {
+        MorphismIndex<E> index = morphismIndex;
+        if (index == null) {
+            index = morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms
+                    ? MorphismIndex.of(frozenMorphisms.getGraph())
+                    : MorphismIndex.incremental(elements, getMorphismMap());
+            morphismIndex = index;
+        }
+        return index;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("This category is an immutable snapshot");
+        }
+    }
+
+    /**
+     * @return a snapshot of this category as a graph over dense int ids, with elements numbered in iteration order
+     */
+    public IndexedDigraph<E> toIndexedDigraph() {
+        if (morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms) {
+            return frozenMorphisms.getGraph();
+        }
+        final Derived<E> current = derived();
+        IndexedDigraph<E> graph = current.indexedDigraph;
+        if (graph == null) {
+            graph = IndexedDigraph.of(getElements(), getMorphismMap());
+            current.indexedDigraph = graph;
         }
-        getMorphismMap().entrySet().forEach(entry ->
-                entry.getValue().forEach(value -> graph.addEdge(entry.getKey(), value)));
         return graph;
     }
 
+    /**
+     * @return an immutable snapshot category with the same source and elements, whose morphisms are all the
+     * composites of this category's morphisms (without duplicates; identities remain implicit), cached until this
+     * category is next changed; use {@link #toMutable()} for a copy that can be changed
+     */
+    public FiniteCategory<S, E> transitiveClosure() {
+        final Derived<E> current = derived();
+        @SuppressWarnings("unchecked") FiniteCategory<S, E> closure = (FiniteCategory<S, E>) current.closure;
+        if (closure == null) {
+            final IndexedFiniteMorphisms<E> closed =
+                    Transitivity.closure(toIndexedDigraph(), Transitivity.DEFAULT_CLOSURE_BUDGET_BYTES);
+            closure = ofTrusted(source, new LinkedHashSet<>(elements), closed).snapshot();
+            current.closure = closure;
+        }
+        return closure;
+    }
+
+    /**
+     * @return a new category with the same source and elements, whose morphisms are only those of this category's
+     * morphisms that are not composites of others (the Hasse diagram, for a poset)
+     * @throws IllegalArgumentException if this category has a cycle of non-identity morphisms
+     */
+    public FiniteCategory<S, E> transitiveReduction() {
+        return ofTrusted(
+                source,
+                new LinkedHashSet<>(elements),
+                Transitivity.reduction(toIndexedDigraph(), Transitivity.DEFAULT_REDUCTION_BUDGET_BYTES));
+    }
+
+    /**
+     * @return the quotient of this category by its strongly connected components, which collapses each set of
+     * mutually reachable elements into one; for a preorder (e.g. an overlaps category), the quotient is a poset
+     */
+    public Quotient<S, E> quotient() {
+        return Quotient.of(source, toIndexedDigraph());
+    }
+
+    /**
+     * @return true if no two distinct elements are reachable from each other, i.e. if the preorder generated by
+     * the morphisms of this category is a partial order
+     */
+    public boolean isPoset() {
+        return new StronglyConnectedComponents(toIndexedDigraph()).isAcyclicIgnoringSelfLoops();
+    }
+
+    /**
+     * @return an index for meets and joins in the poset generated by the morphisms of this category, built on first
+     * use and cached until the category is next changed
+     * @throws IllegalArgumentException if this category isn't a poset, or if the Hasse diagram of the poset isn't
+     * a forest and the index would be too large
+     */
+    public LatticeIndex<E> latticeIndex() {
+        final Derived<E> current = derived();
+        LatticeIndex<E> latticeIndex = current.latticeIndex;
+        if (latticeIndex == null) {
+            latticeIndex = LatticeIndex.of(toIndexedDigraph(), LatticeIndex.DEFAULT_BUDGET_BYTES);
+            current.latticeIndex = latticeIndex;
+        }
+        return latticeIndex;
+    }
+
+    /**
+     * @return the greatest lower bound of a and b (the greatest element from which both can be reached), or null if
+     * there is none; see {@link #latticeIndex()}
+     */
+    public E meet(final E a, final E b) {
+        return latticeIndex().meet(a, b);
+    }
+
+    /**
+     * @return the least upper bound of a and b (the least element that can be reached from both), or null if there
+     * is none; see {@link #latticeIndex()}
+     */
+    public E join(final E a, final E b) {
+        return latticeIndex().join(a, b);
+    }
+
+    /**
+     * @return true if this category is a poset in which every pair of elements has a meet and a join; see
+     * {@link #latticeIndex()}
+     */
+    public boolean isLattice() {
+        return isPoset() && latticeIndex().isLattice();
+    }
+
+    /**
+     * @return the number of elements of a longest chain of this poset (e.g. the maximum nesting depth of a
+     * containment category), in O(V + E) time
+     * @throws IllegalArgumentException if this category isn't a poset
+     */
+    public int height() {
+        final IndexedDigraph<E> graph = toIndexedDigraph();
+        return Dilworth.height(graph, new StronglyConnectedComponents(graph).topologicalOrder());
+    }
+
+    /**
+     * @return the size of a largest antichain of this poset (a set of pairwise unrelated elements, e.g. intervals
+     * none of which contains another), which is the number of chains in {@link #chainDecomposition()}
+     * @throws IllegalArgumentException if this category isn't a poset
+     */
+    public int width() {
+        return chainDecomposition().size();
+    }
+
+    /**
+     * Decompose this poset into as few chains as possible (e.g. to pack the intervals of a containment category into
+     * tracks of nested intervals). This needs the transitive closure of the morphisms, which is only computed if
+     * they aren't closed already (as they are in the containment categories built by IntervalCategories).
+     *
+     * @return disjoint chains that cover the elements, each from its least element to its greatest, cached until
+     * the category is next changed
+     * @throws IllegalArgumentException if this category isn't a poset
+     */
+    public List<List<E>> chainDecomposition() {
+        final Derived<E> current = derived();
+        List<List<E>> chains = current.chains;
+        if (chains == null) {
+            IndexedDigraph<E> graph = toIndexedDigraph();
+            if (!new StronglyConnectedComponents(graph).isAcyclicIgnoringSelfLoops()) {
+                throw new IllegalArgumentException("A chain decomposition is only defined for a poset");
+            }
+            if (!Dilworth.isTransitivelyClosed(graph)) {
+                graph = transitiveClosure().toIndexedDigraph();
+            }
+            final int[][] decomposition = Dilworth.chainDecomposition(graph);
+            final int[] starts = decomposition[0];
+            final int[] members = decomposition[1];
+            final ElementIndex<E> elementIndex = graph.getElementIndex();
+            final List<List<E>> decomposed = new ArrayList<>(starts.length - 1);
+            for (int c = 0; c + 1 < starts.length; c++) {
+                final List<E> chain = new ArrayList<>(starts[c + 1] - starts[c]);
+                for (int m = starts[c]; m < starts[c + 1]; m++) {
+                    chain.add(elementIndex.get(members[m]));
+                }
+                decomposed.add(Collections.unmodifiableList(chain));
+            }
+            chains = Collections.unmodifiableList(decomposed);
+            current.chains = chains;
+        }
+        return chains;
+    }
+
+    /**
+     * @return a lazy iterator over the elements of this category, each after every element with a morphism to it,
+     * over {@link #toIndexedDigraph()} rather than a copy
+     * @throws IllegalArgumentException from the iterator, once it has returned every element that can be ordered,
+     * if this category has a cycle of non-identity morphisms
+     */
+    public Iterator<E> topologicalIterator() {
+        return TopologicalOrder.iterator(toIndexedDigraph());
+    }
+
+    /**
+     * @return a lazy spliterator over the elements of this category in the order of {@link #topologicalIterator()}.
+     * It reports no size, and splits only by buffering a prefix of the order, so for parallel processing use
+     * {@link #topologicalLayers()} instead, whose layers can each be processed in parallel
+     */
+    public Spliterator<E> topologicalSpliterator() {
+        return TopologicalOrder.spliterator(toIndexedDigraph());
+    }
+
+    /**
+     * @return a lazy iterator over the elements of this category in layers: the elements without predecessors, and
+     * then the elements whose predecessors are all in earlier layers, each layer an antichain whose elements can be
+     * processed in parallel; large layers are released on the common pool
+     * @throws IllegalArgumentException from the iterator, once it has returned every layer that can be ordered, if
+     * this category has a cycle of non-identity morphisms
+     */
+    public Iterator<List<E>> topologicalLayers() {
+        return topologicalLayers(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool on which to release the next layer from a large layer, or null to use the calling thread
+     */
+    public Iterator<List<E>> topologicalLayers(final ForkJoinPool pool) {
+        return TopologicalOrder.layers(toIndexedDigraph(), pool);
+    }
+
+    /**
+     * @return the product of this category and other, whose elements are all the pairs of their elements, and in
+     * which one pair is reachable from another if both of its elements are; it's built lazily, so it can be
+     * streamed rather than held (see {@link Pullback})
+     */
+    public <T, F> Pullback<E, F> product(final FiniteCategory<T, F> other) {
+        return pullback(other, element -> Boolean.TRUE, element -> Boolean.TRUE);
+    }
+
+    /**
+     * @param key key of each element of this category (e.g. its gene), which must not be null
+     * @param otherKey key of each element of other
+     * @return the pullback of this category and other over their keys, whose elements are the pairs of elements
+     * with equal keys; it's built lazily, so it can be streamed rather than held (see {@link Pullback})
+     */
+    public <T, F> Pullback<E, F> pullback(
+            final FiniteCategory<T, F> other,
+            final Function<? super E, ?> key,
+            final Function<? super F, ?> otherKey) {
+        ValidationUtils.validateArg(other != null, "other cannot be null");
+        ValidationUtils.validateArg(key != null && otherKey != null, "keys cannot be null");
+        return Pullback.of(toIndexedDigraph(), key, other.toIndexedDigraph(), otherKey);
+    }
+
+    /**
+     * @return the coproduct (disjoint union) of this category and other, an immutable category whose elements are
+     * those of this category tagged 0, followed by those of other tagged 1, with the morphisms of each. The
+     * coproduct has the SET policy if both categories do, the COUNTED policy (keeping the multiplicities of each) if
+     * both categories do, and otherwise the MULTIGRAPH policy
+     * @throws IllegalArgumentException if exactly one of the categories has the COUNTED policy
+     */
+    public <T> FiniteCategory<Pair<S, T>, Tagged<E>> coproduct(final FiniteCategory<T, ? extends E> other) {
+        ValidationUtils.validateArg(other != null, "other cannot be null");
+        final boolean counted = getMorphismPolicy() == MorphismPolicy.COUNTED;
+        ValidationUtils.validateArg(counted == (other.getMorphismPolicy() == MorphismPolicy.COUNTED),
+                "Can't form the coproduct of a COUNTED category with one that isn't COUNTED");
+        // snapshots keep the multiplicities of COUNTED categories, parallel to the targets of their graphs
+        final FiniteCategory<S, E> firstSnapshot = snapshot();
+        final FiniteCategory<T, ? extends E> secondSnapshot = other.snapshot();
+        final IndexedDigraph<E> first = firstSnapshot.toIndexedDigraph();
+        final IndexedDigraph<? extends E> second = secondSnapshot.toIndexedDigraph();
+        final int firstSize = first.size();
+        final int secondSize = second.size();
+        final HashElementIndex<Tagged<E>> elementIndex = new HashElementIndex<>(firstSize + secondSize);
+        for (int v = 0; v < firstSize; v++) {
+            elementIndex.add(new Tagged<>(0, first.getElementIndex().get(v)));
+        }
+        for (int v = 0; v < secondSize; v++) {
+            elementIndex.add(new Tagged<>(1, second.getElementIndex().get(v)));
+        }
+        final int[] offsets = new int[firstSize + secondSize + 1];
+        final int[] targets = new int[first.edgeCount() + second.edgeCount()];
+        System.arraycopy(first.offsets(), 0, offsets, 0, firstSize + 1);
+        System.arraycopy(first.targets(), 0, targets, 0, first.edgeCount());
+        for (int v = 1; v <= secondSize; v++) {
+            offsets[firstSize + v] = first.edgeCount() + second.offsets()[v];
+        }
+        for (int e = 0; e < second.edgeCount(); e++) {
+            targets[first.edgeCount() + e] = firstSize + second.targets()[e];
+        }
+        final IndexedDigraph<Tagged<E>> graph = new IndexedDigraph<>(elementIndex, offsets, targets);
+        if (counted) {
+            final int[] edgeMultiplicities = new int[targets.length];
+            System.arraycopy(firstSnapshot.getEdgeMultiplicities(), 0, edgeMultiplicities, 0, first.edgeCount());
+            System.arraycopy(secondSnapshot.getEdgeMultiplicities(), 0,
+                    edgeMultiplicities, first.edgeCount(), second.edgeCount());
+            return ofCounted(new Pair<>(source, other.getSource()), graph, edgeMultiplicities);
+        }
+        return FiniteCategory.of(
+                new Pair<>(source, other.getSource()),
+                graph,
+                getMorphismPolicy() == other.getMorphismPolicy() && getMorphismPolicy() == MorphismPolicy.SET
+                        ? MorphismPolicy.SET
+                        : MorphismPolicy.MULTIGRAPH);
+    }
+
+    /**
+     * @return a read-only graph view of the elements and morphisms of this category, over the arrays of
+     * {@link #toIndexedDigraph()}. A snapshot's view is over its own arrays, so no copy of the morphisms is made
+     * (though a snapshot read by {@link FiniteCategoryIO} first copies its arrays out of the file mapping). A mutable
+     * category's view is over a copy of its morphisms into an IndexedDigraph, which is made on the first call after
+     * a change (taking time and memory proportional to the size of the category), reflects the category as of that
+     * call, and is cached until the category is next changed
+     */
+    public Graph<E, IndexedEdge> asGraph() {
+        final Derived<E> current = derived();
+        Graph<E, IndexedEdge> graph = current.graph;
+        if (graph == null) {
+            graph = Metrics.time(
+                    Phase.AS_GRAPH, "FiniteCategory.asGraph", () -> new IndexedGraphView<>(toIndexedDigraph()));
+            current.graph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * @return the element count, morphism count and out-degree distribution of this category
+     */
+    public CategoryStats getStats() {
+        if (frozen) {
+            return CategoryStats.of(toIndexedDigraph());
+        }
+        // the out-degrees are those of the sources in the morphism map, so the indexed digraph isn't needed
+        return CategoryStats.ofOutDegrees(elements.size(), getMorphismMap().values().stream().mapToInt(List::size));
+    }
+
     // write this category to a path as a DOT file
     public void writeAsGraph(final IOPath dotPath) {
-        GraphUtils.writeGraphToDOT(asGraph(), dotPath);
+        writeAsGraph(dotPath.getOutputStream());
+    }
+
+    // write this category to a stream as DOT (e.g., to render it with GraphvizRenderer), closing the stream when done
+    public void writeAsGraph(final OutputStream out) {
+        final ElementIndex<E> elementIds = elementIds();
+        GraphUtils.writeDOT(elementIds.size(), elementIds::get, morphismEdges(elementIds), out);
+    }
+
+    /**
+     * Write a collapsed summary of this category to a path as a DOT file, for categories too large to render in
+     * full; see {@link GraphUtils#writeDOTSummary}.
+     *
+     * @param clusters cluster name for each element (or null, if it isn't in a cluster), or null for no clusters
+     */
+    public void writeAsGraphSummary(
+            final IOPath dotPath,
+            final Function<? super E, String> clusters,
+            final GraphUtils.LevelOfDetail detail) {
+        final IndexedDigraph<E> graph = toIndexedDigraph();
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+        GraphUtils.writeDOTSummary(
+                graph,
+                elementIndex::get,
+                clusters == null ? null : v -> clusters.apply(elementIndex.get(v)),
+                detail,
+                dotPath.getOutputStream());
+    }
+
+    // write this category to a path as a GraphML file
+    public void writeAsGraphML(final IOPath graphMLPath) {
+        final ElementIndex<E> elementIds = elementIds();
+        GraphUtils.writeGraphML(elementIds.size(), elementIds::get, morphismEdges(elementIds), graphMLPath);
+    }
+
+    // ids of the elements in element order, for export; only a mutable category whose elements aren't already
+    // indexed in that order needs an index to be built
+    private ElementIndex<E> elementIds() {
+        if (morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms) {
+            return frozenMorphisms.getGraph().getElementIndex();
+        }
+        if (elements instanceof ElementIndexSet<E> indexSet) {
+            return indexSet.getElementIndex();
+        }
+        final ElementIndex<E> elementIds = new HashElementIndex<>(elements.size());
+        elements.forEach(elementIds::add);
+        return elementIds;
+    }
+
+    // the morphisms in the order of the morphism map, as jgrapht exporters wrote them from asGraph, streamed from the
+    // existing storage rather than copied into an IndexedDigraph
+    private GraphUtils.EdgeSource morphismEdges(final ElementIndex<E> elementIds) {
+        if (morphisms instanceof FrozenFiniteMorphisms<E> frozenMorphisms) {
+            final IndexedDigraph<E> graph = frozenMorphisms.getGraph();
+            return consumer -> {
+                for (int v = 0; v < graph.size(); v++) {
+                    for (int i = 0; i < graph.outDegree(v); i++) {
+                        consumer.accept(v, graph.target(v, i));
+                    }
+                }
+            };
+        }
+        return consumer -> {
+            for (final Map.Entry<E, List<E>> entry : getMorphismMap().entrySet()) {
+                final int from = elementIds.indexOf(entry.getKey());
+                for (final E target : entry.getValue()) {
+                    consumer.accept(from, elementIds.indexOf(target));
+                }
+            }
+        };
     }
 
     @Override
@@ -90,8 +703,47 @@ public class FiniteCategory<S, E> implements Category<S, E> {
         return Objects.equals(source, that.source) && Objects.equals(elements, that.elements) && Objects.equals(morphisms, that.morphisms);
     }
 
+    // only a snapshot's hash code is cached, since a mutable category can be changed directly through
+    // getMorphismMap or getElements, and equals would see those changes
     @Override
     public int hashCode() {
-        return Objects.hash(source, elements, morphisms);
+        if (!frozen) {
+            return Objects.hash(source, elements, morphisms);
+        }
+        final Derived<E> current = derived();
+        Integer hashCode = current.hashCode;
+        if (hashCode == null) {
+            hashCode = Objects.hash(source, elements, morphisms);
+            current.hashCode = hashCode;
+        }
+        return hashCode;
+    }
+
+    private Derived<E> derived() {
+        Derived<E> current = derived;
+        if (current == null || current.modCount != modCount) {
+            current = new Derived<>(modCount);
+            derived = current;
+        }
+        return current;
+    }
+
+    /**
+     * Structures derived from the elements and morphisms, each built on first use. They are only valid for the
+     * modCount they were built at; changes made directly through getMorphismMap or getElements aren't tracked.
+     */
+    private static final class Derived<E> {
+        final int modCount;
+        volatile Integer hashCode;
+        volatile IndexedDigraph<E> indexedDigraph;
+        volatile Graph<E, IndexedEdge> graph;
+        volatile FiniteCategory<?, E> closure;
+        volatile LatticeIndex<E> latticeIndex;
+        volatile List<List<E>> chains;
+        volatile FiniteCategory<?, E> snapshot;
+
+        Derived(final int modCount) {
+            this.modCount = modCount;
+        }
     }
 }
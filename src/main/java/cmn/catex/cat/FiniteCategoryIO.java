@@ -0,0 +1,274 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
+import cmn.catex.metrics.PhaseTimer;
+import htsjdk.io.IOPath;
+import htsjdk.utils.ValidationUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Versioned binary format for finite categories, which can be read back much faster than the category can be
+ * rebuilt from its source data. The layout (big-endian) is:
+ *
+ * <pre>
+ *   int    magic ("CATX")
+ *   int    format version
+ *   string element codec id
+ *   string morphism policy name
+ *   int    element count n
+ *   int    morphism count m
+ *   int[]  CSR offsets (n + 1)
+ *   int[]  CSR targets (m)
+ *   int[]  multiplicity of each CSR target (m), for the COUNTED policy only
+ *   byte[] encoded elements, back to back
+ *   long[] start of each encoded element relative to the first, and the end of the last (n + 1)
+ * </pre>
+ *
+ * Files are read through a memory mapping: the category reads its CSR arrays through buffers over the mapping, and
+ * decodes each element from the mapping the first time it is needed. The category source is not stored.
+ */
+public final class FiniteCategoryIO {
+    static final int MAGIC = 0x43415458; // "CATX"
+    static final int VERSION = 3;
+    private static final int MAX_MAPPING_SIZE = 1 << 30;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private FiniteCategoryIO() {
+    }
+
+    /**
+     * @param category category to write
+     * @param codec encoding of the category's elements
+     * @param path output path
+     */
+    public static <E> void write(final FiniteCategory<?, E> category, final ElementCodec<E> codec, final IOPath path) {
+        // the snapshot keeps the multiplicities of a COUNTED category, parallel to its graph's targets
+        final FiniteCategory<?, E> snapshot = category.snapshot();
+        final IndexedDigraph<E> graph = snapshot.toIndexedDigraph();
+        final MorphismPolicy policy = snapshot.getMorphismPolicy();
+        try (final PhaseTimer timer = Metrics.start(Phase.EXPORT, "FiniteCategoryIO.write");
+             final DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(timer.countBytes(path.getOutputStream()), WRITE_BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            ElementCodec.writeString(codec.getId(), out);
+            ElementCodec.writeString(policy.name(), out);
+            out.writeInt(graph.size());
+            out.writeInt(graph.edgeCount());
+            final ByteBuffer chunk = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            writeInts(graph.offsets(), chunk, out);
+            writeInts(graph.targets(), chunk, out);
+            if (policy == MorphismPolicy.COUNTED) {
+                writeInts(snapshot.getEdgeMultiplicities(), chunk, out);
+            }
+            // elements are encoded into a reused buffer first, to find their positions
+            final long[] positions = new long[graph.size() + 1];
+            final ByteArrayOutputStream elementBytes = new ByteArrayOutputStream();
+            final DataOutputStream elementOut = new DataOutputStream(elementBytes);
+            final ElementIndex<E> elementIndex = graph.getElementIndex();
+            for (int v = 0; v < graph.size(); v++) {
+                elementBytes.reset();
+                codec.encode(elementIndex.get(v), elementOut);
+                elementOut.flush();
+                elementBytes.writeTo(out);
+                positions[v + 1] = positions[v] + elementBytes.size();
+            }
+            writeLongs(positions, chunk, out);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeInts(final int[] values, final ByteBuffer chunk, final OutputStream out)
+            throws IOException {
+        final int chunkLength = chunk.capacity() / Integer.BYTES;
+        for (int written = 0; written < values.length; written += chunkLength) {
+            final int count = Math.min(chunkLength, values.length - written);
+            chunk.clear().asIntBuffer().put(values, written, count);
+            out.write(chunk.array(), 0, count * Integer.BYTES);
+        }
+    }
+
+    private static void writeLongs(final long[] values, final ByteBuffer chunk, final OutputStream out)
+            throws IOException {
+        final int chunkLength = chunk.capacity() / Long.BYTES;
+        for (int written = 0; written < values.length; written += chunkLength) {
+            final int count = Math.min(chunkLength, values.length - written);
+            chunk.clear().asLongBuffer().put(values, written, count);
+            out.write(chunk.array(), 0, count * Long.BYTES);
+        }
+    }
+
+    /**
+     * Reading takes time proportional to the size of the CSR arrays, which are validated, but elements are only
+     * decoded when they are first needed, so a file with duplicate elements is only detected (by an
+     * {@link IllegalStateException}) when an element is first looked up.
+     *
+     * @param path path of a file written by {@link #write}
+     * @param codec encoding of the category's elements, which must be the one the file was written with
+     * @param source source object for the category
+     * @return an immutable snapshot of the category, with the morphism policy (and, for COUNTED, the
+     * multiplicities) of the category that was written, which reads from the file's mapping for as long as it is used
+     * @throws IllegalArgumentException if the file is not in this format, or was written with a different codec
+     */
+    public static <S, E> FiniteCategory<S, E> read(final IOPath path, final ElementCodec<E> codec, final S source) {
+        return Metrics.time(Phase.READ_INPUT, "FiniteCategoryIO.read", () -> {
+            try (final FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.READ)) {
+                return read(channel, path, codec, source);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static <S, E> FiniteCategory<S, E> read(
+            final FileChannel channel,
+            final IOPath path,
+            final ElementCodec<E> codec,
+            final S source) throws IOException {
+        final MappedInput in = new MappedInput(channel);
+        ValidationUtils.validateArg(in.map(Integer.BYTES).getInt() == MAGIC,
+                () -> String.format("%s is not a binary category file", path.getRawInputString()));
+        final int version = in.map(Integer.BYTES).getInt();
+        ValidationUtils.validateArg(version == VERSION,
+                () -> String.format("Unsupported binary category version %d in %s",
+                        version, path.getRawInputString()));
+        final String codecId = ElementCodec.readString(in.map(Integer.BYTES + Math.max(in.peekInt(), 0)));
+        ValidationUtils.validateArg(codec.getId().equals(codecId),
+                () -> String.format("%s was written with element codec %s, not %s",
+                        path.getRawInputString(), codecId, codec.getId()));
+        final String policyName = ElementCodec.readString(in.map(Integer.BYTES + Math.max(in.peekInt(), 0)));
+        final MorphismPolicy policy = Arrays.stream(MorphismPolicy.values())
+                .filter(p -> p.name().equals(policyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "Corrupt binary category file: unknown morphism policy %s", policyName)));
+
+        final ByteBuffer sizes = in.map(2 * Integer.BYTES);
+        final int n = sizes.getInt();
+        final int m = sizes.getInt();
+        ValidationUtils.validateArg(n >= 0 && m >= 0, "Corrupt binary category file: negative size");
+        final IntBuffer offsets = in.mapInts(n + 1);
+        final IntBuffer targets = in.mapInts(m);
+        ValidationUtils.validateArg(offsets.get(0) == 0 && offsets.get(n) == m,
+                "Corrupt binary category file: inconsistent offsets");
+        for (int v = 0; v < n; v++) {
+            ValidationUtils.validateArg(offsets.get(v) <= offsets.get(v + 1),
+                    "Corrupt binary category file: decreasing offsets");
+        }
+        for (int e = 0; e < m; e++) {
+            final int target = targets.get(e);
+            ValidationUtils.validateArg(target >= 0 && target < n,
+                    "Corrupt binary category file: target out of range");
+        }
+        final int[] edgeMultiplicities = policy == MorphismPolicy.COUNTED ? new int[m] : null;
+        if (edgeMultiplicities != null) {
+            in.mapInts(m).get(edgeMultiplicities);
+        }
+
+        // the element data runs up to the positions table at the end of the file
+        final long dataStart = in.position();
+        final long dataLength = in.size() - dataStart - (long) (n + 1) * Long.BYTES;
+        ValidationUtils.validateArg(dataLength >= 0, "Corrupt binary category file: unexpected end of file");
+        final ByteBuffer[] segments = in.mapSegments(dataLength);
+        final LongBuffer positions = in.mapLongs(n + 1);
+        ValidationUtils.validateArg(positions.get(0) == 0 && positions.get(n) == dataLength,
+                "Corrupt binary category file: inconsistent element positions");
+        for (int v = 0; v < n; v++) {
+            ValidationUtils.validateArg(positions.get(v + 1) - positions.get(v) >= 0
+                            && positions.get(v + 1) - positions.get(v) <= Integer.MAX_VALUE,
+                    "Corrupt binary category file: invalid element length");
+        }
+
+        final MappedElementIndex<E> elementIndex =
+                new MappedElementIndex<>(codec, segments, MAX_MAPPING_SIZE, positions);
+        final IndexedDigraph<E> graph = IndexedDigraph.of(elementIndex, offsets, targets);
+        return edgeMultiplicities == null
+                ? FiniteCategory.of(source, graph, policy)
+                : FiniteCategory.ofCounted(source, graph, edgeMultiplicities);
+    }
+
+    /**
+     * Sequential reader over a file, which maps each section of the file as it is read. Mappings outlive the
+     * channel, and sections too large for a single mapping are split into segments or copied.
+     */
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+
+        MappedInput(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        long size() { return size; }
+
+        long position() { return position; }
+
+        int peekInt() throws IOException {
+            final int value = map(Integer.BYTES).getInt();
+            position -= Integer.BYTES;
+            return value;
+        }
+
+        /**
+         * @return a mapping of the next count bytes
+         */
+        ByteBuffer map(final long count) throws IOException {
+            if (count < 0 || count > size - position) {
+                throw new IllegalArgumentException("Corrupt binary category file: unexpected end of file");
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+            position += count;
+            return buffer;
+        }
+
+        /**
+         * @return the next count bytes, mapped in consecutive segments of MAX_MAPPING_SIZE bytes (except the last)
+         */
+        ByteBuffer[] mapSegments(final long count) throws IOException {
+            final int segmentCount = (int) Math.max(1, (count + MAX_MAPPING_SIZE - 1) / MAX_MAPPING_SIZE);
+            final ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = map(Math.min(MAX_MAPPING_SIZE, count - (long) i * MAX_MAPPING_SIZE));
+            }
+            return segments;
+        }
+
+        IntBuffer mapInts(final int count) throws IOException {
+            final long length = (long) count * Integer.BYTES;
+            if (length <= MAX_MAPPING_SIZE) {
+                return map(length).asIntBuffer();
+            }
+            final IntBuffer values = IntBuffer.allocate(count);
+            for (long read = 0; read < length; read += MAX_MAPPING_SIZE) {
+                values.put(map(Math.min(MAX_MAPPING_SIZE, length - read)).asIntBuffer());
+            }
+            return values.flip();
+        }
+
+        LongBuffer mapLongs(final int count) throws IOException {
+            final long length = (long) count * Long.BYTES;
+            if (length <= MAX_MAPPING_SIZE) {
+                return map(length).asLongBuffer();
+            }
+            final LongBuffer values = LongBuffer.allocate(count);
+            for (long read = 0; read < length; read += MAX_MAPPING_SIZE) {
+                values.put(map(Math.min(MAX_MAPPING_SIZE, length - read)).asLongBuffer());
+            }
+            return values.flip();
+        }
+    }
+}
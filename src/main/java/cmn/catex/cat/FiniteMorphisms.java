@@ -3,54 +3,205 @@
  */
 package cmn.catex.cat;
 
+import htsjdk.utils.ValidationUtils;
+
 import java.util.*;
 
 /**
- * Mutable (for now) mapping of finite morphisms between elements.
+ * Mutable (for now) mapping of finite morphisms between elements. How repeated morphisms between the same pair of
+ * elements are stored is determined by a {@link MorphismPolicy}, which defaults to
+ * {@link MorphismPolicy#MULTIGRAPH}.
  *
  * @param <E> typeof element
  */
 public class FiniteMorphisms<E> {
-    private final Map<E, List<E>> morphisms = new LinkedHashMap<>();
+    // sources with at most this many targets are checked for repeats by scanning their target list; shared by the
+    // subclasses in this package that index larger sources
+    static final int LINEAR_SCAN_DEGREE = 16;
+
+    private final MorphismPolicy policy;
+    // null for subclasses that store the morphisms themselves
+    private final Map<E, List<E>> morphisms;
+    // for SET and COUNTED, the targets of each source with more than LINEAR_SCAN_DEGREE targets
+    private final Map<E, Set<E>> largeSourceTargets;
+    // for COUNTED, the multiplicity of each morphism that was added more than once
+    private final Map<E, Map<E, Integer>> repeatCounts;
 
     public FiniteMorphisms() {
-        // Default constructor
+        this(MorphismPolicy.MULTIGRAPH);
+    }
+
+    public FiniteMorphisms(final MorphismPolicy policy) {
+        this(policy, true);
+    }
+
+    /**
+     * @param storeMorphisms false for a subclass that stores the morphisms itself, so none of the storage of this
+     *                       class is allocated; the subclass must then override {@link #add}, {@link #getMorphismMap}
+     *                       and, for the COUNTED policy, {@link #multiplicity}
+     */
+    protected FiniteMorphisms(final MorphismPolicy policy, final boolean storeMorphisms) {
+        ValidationUtils.validateArg(policy != null, "policy cannot be null");
+        this.policy = policy;
+        this.morphisms = storeMorphisms ? new LinkedHashMap<>() : null;
+        this.largeSourceTargets = storeMorphisms && policy != MorphismPolicy.MULTIGRAPH ? new HashMap<>() : null;
+        this.repeatCounts = storeMorphisms && policy == MorphismPolicy.COUNTED ? new HashMap<>() : null;
     }
 
     public FiniteMorphisms(final Map<E, List<E>> other) {
-        other.entrySet().forEach(
-                (entry -> { entry.getValue().forEach(value -> this.add(entry.getKey(), value)); }));
+        this();
+        copyFrom(other);
     }
 
+    // the copy has the same policy as other
     public FiniteMorphisms(final FiniteMorphisms<E> other) {
-        // make a copy; it would be more efficient to copy the entire list at once, but this is simpler
-        other.getMorphismMap().forEach(
-                (key, values) -> {values.forEach(value -> this.add(key, value));}
-        );
+        this(other.getPolicy());
+        copyFrom(other.getMorphismMap());
+        if (largeSourceTargets != null) {
+            morphisms.forEach((key, values) -> {
+                if (values.size() > LINEAR_SCAN_DEGREE) {
+                    largeSourceTargets.put(key, new HashSet<>(values));
+                }
+                for (int i = 0; repeatCounts != null && i < values.size(); i++) {
+                    final int count = other.multiplicity(key, values.get(i));
+                    if (count > 1) {
+                        repeatCounts.computeIfAbsent(key, k -> new HashMap<>()).put(values.get(i), count);
+                    }
+                }
+            });
+        }
+    }
+
+    // copy each list at once, rather than re-adding every morphism
+    private void copyFrom(final Map<E, List<E>> other) {
+        other.forEach((key, values) -> {
+            if (!values.isEmpty()) {
+                morphisms.put(key, new ArrayList<>(values));
+            }
+        });
+    }
+
+    /**
+     * Add a morphism, subject to the policy of these morphisms.
+     *
+     * @return true if the morphism map changed; false if the morphism already existed (so that, for the COUNTED
+     * policy, only its multiplicity was incremented)
+     */
+    public boolean add(final E key, final E value) {
+        final List<E> targets = morphisms.computeIfAbsent(key, k -> new ArrayList<>());
+        if (largeSourceTargets == null) {
+            targets.add(value);
+            return true;
+        }
+        if (containsTarget(key, targets, value)) {
+            if (repeatCounts != null) {
+                repeatCounts.computeIfAbsent(key, k -> new HashMap<>()).merge(value, 2, (count, ignored) -> count + 1);
+            }
+            return false;
+        }
+        targets.add(value);
+        if (targets.size() == LINEAR_SCAN_DEGREE + 1) {
+            largeSourceTargets.put(key, new HashSet<>(targets));
+        } else if (targets.size() > LINEAR_SCAN_DEGREE + 1) {
+            largeSourceTargets.get(key).add(value);
+        }
+        return true;
     }
 
-    public void add(final E key, final E value) {
-        morphisms.merge(
-                key,
-                new ArrayList<>(Collections.singletonList(value)), // copy temporary immutable list
-                (oldList, newList) -> {
-                    oldList.addAll(newList);
-                    return oldList;
-                });
+    // for a large source, this also makes the source's set match its list, which may have been changed directly
+    // through getMorphismMap, so add can keep the set up to date
+    private boolean containsTarget(final E key, final List<E> targets, final Object value) {
+        if (targets.size() <= LINEAR_SCAN_DEGREE) {
+            return targets.contains(value);
+        }
+        Set<E> targetSet = largeSourceTargets.get(key);
+        if (targetSet == null || targetSet.size() != targets.size()) {
+            targetSet = new HashSet<>(targets);
+            largeSourceTargets.put(key, targetSet);
+        }
+        return targetSet.contains(value);
+    }
+
+    public MorphismPolicy getPolicy() { return policy; }
+
+    /**
+     * @return the number of morphisms from one element to another: the number of times the pair occurs in the
+     * morphism map for the MULTIGRAPH policy, at most 1 for SET, and the number of times it was added for COUNTED
+     */
+    public int multiplicity(final E from, final E to) {
+        if (largeSourceTargets != null) {
+            final List<E> targets = morphisms.get(from);
+            if (targets == null || !containsTarget(from, targets, to)) {
+                return 0;
+            }
+            final Map<E, Integer> counts = repeatCounts == null ? null : repeatCounts.get(from);
+            return counts == null ? 1 : counts.getOrDefault(to, 1);
+        }
+        final List<E> targets = getMorphismMap().get(from);
+        if (targets == null) {
+            return 0;
+        }
+        int count = 0;
+        for (final E target : targets) {
+            if (target.equals(to)) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public Map<E, List<E>> getMorphismMap() { return this.morphisms; }
 
+    /**
+     * @return an independent copy of these morphisms that uses the same storage backend
+     */
+    protected FiniteMorphisms<E> copy() {
+        return new FiniteMorphisms<>(this);
+    }
+
+    /**
+     * @param elements set of elements
+     * @return true if the source and target of every morphism is in elements
+     */
+    protected boolean referencesOnly(final Set<?> elements) {
+        for (final Map.Entry<E, List<E>> entry : getMorphismMap().entrySet()) {
+            if (!elements.contains(entry.getKey())) {
+                return false;
+            }
+            for (final E target : entry.getValue()) {
+                if (!elements.contains(target)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // equality is defined by the morphism map, so that morphisms with different storage backends compare equal;
+    // counted multiplicities aren't in the map, so they are compared separately
     @Override
+    @SuppressWarnings("unchecked")
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        FiniteMorphisms<?> that = (FiniteMorphisms<?>) o;
-        return Objects.equals(morphisms, that.morphisms);
+        if (!(o instanceof FiniteMorphisms<?> that)) return false;
+        if (!Objects.equals(getMorphismMap(), that.getMorphismMap())) return false;
+        return (policy != MorphismPolicy.COUNTED && that.policy != MorphismPolicy.COUNTED)
+                || sameMultiplicities((FiniteMorphisms<E>) that);
+    }
+
+    private boolean sameMultiplicities(final FiniteMorphisms<E> that) {
+        for (final Map.Entry<E, List<E>> entry : getMorphismMap().entrySet()) {
+            for (final E target : entry.getValue()) {
+                if (multiplicity(entry.getKey(), target) != that.multiplicity(entry.getKey(), target)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(morphisms);
+        return Objects.hashCode(getMorphismMap());
     }
 }
@@ -0,0 +1,233 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import htsjdk.utils.ValidationUtils;
+
+import java.util.*;
+
+/**
+ * Immutable {@link FiniteMorphisms} backed by the CSR arrays of an {@link IndexedDigraph}. The morphism map is an
+ * unmodifiable view, with sources in element id order. The policy (and, for COUNTED, the multiplicities) of the
+ * morphisms a snapshot was taken from is kept.
+ *
+ * @param <E> type of element
+ */
+final class FrozenFiniteMorphisms<E> extends FiniteMorphisms<E> {
+    private final IndexedDigraph<E> graph;
+    // for COUNTED, the multiplicity of each edge, parallel to the CSR targets of graph; otherwise null
+    private final int[] edgeMultiplicities;
+    private final MorphismMapView morphismMapView;
+
+    FrozenFiniteMorphisms(final IndexedDigraph<E> graph) {
+        this(graph, MorphismPolicy.MULTIGRAPH, null);
+    }
+
+    private FrozenFiniteMorphisms(
+            final IndexedDigraph<E> graph,
+            final MorphismPolicy policy,
+            final int[] edgeMultiplicities) {
+        super(policy, false);
+        this.graph = graph;
+        this.edgeMultiplicities = edgeMultiplicities;
+        this.morphismMapView = new MorphismMapView();
+    }
+
+    /**
+     * @param graph graph of morphisms
+     * @param morphisms morphisms that graph was built from, whose policy and multiplicities are kept
+     */
+    static <E> FrozenFiniteMorphisms<E> of(final IndexedDigraph<E> graph, final FiniteMorphisms<E> morphisms) {
+        if (morphisms.getPolicy() != MorphismPolicy.COUNTED) {
+            return new FrozenFiniteMorphisms<>(graph, morphisms.getPolicy(), null);
+        }
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+        final int[] edgeMultiplicities = new int[graph.targets().length];
+        for (int v = 0; v < graph.size(); v++) {
+            final E from = elementIndex.get(v);
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                edgeMultiplicities[graph.offsets()[v] + i] =
+                        morphisms.multiplicity(from, elementIndex.get(graph.target(v, i)));
+            }
+        }
+        return new FrozenFiniteMorphisms<>(graph, MorphismPolicy.COUNTED, edgeMultiplicities);
+    }
+
+    /**
+     * @throws IllegalArgumentException if policy is COUNTED (graph has no multiplicities), or is SET and graph has
+     * parallel edges
+     */
+    static <E> FrozenFiniteMorphisms<E> of(final IndexedDigraph<E> graph, final MorphismPolicy policy) {
+        ValidationUtils.validateArg(policy != MorphismPolicy.COUNTED,
+                "A graph without multiplicities can't have the COUNTED policy");
+        if (policy == MorphismPolicy.SET) {
+            validateNoParallelEdges(graph);
+        }
+        return new FrozenFiniteMorphisms<>(graph, policy, null);
+    }
+
+    /**
+     * @param edgeMultiplicities the (positive) multiplicity of each edge, parallel to the CSR targets of graph; the
+     *                           array is adopted, not copied
+     * @throws IllegalArgumentException if graph has parallel edges, or a multiplicity is missing or not positive
+     */
+    static <E> FrozenFiniteMorphisms<E> ofCounted(final IndexedDigraph<E> graph, final int[] edgeMultiplicities) {
+        ValidationUtils.validateArg(edgeMultiplicities.length == graph.edgeCount(),
+                "There must be one multiplicity per edge of the graph");
+        for (final int multiplicity : edgeMultiplicities) {
+            ValidationUtils.validateArg(multiplicity > 0, "Multiplicities must be positive");
+        }
+        validateNoParallelEdges(graph);
+        return new FrozenFiniteMorphisms<>(graph, MorphismPolicy.COUNTED, edgeMultiplicities);
+    }
+
+    private static void validateNoParallelEdges(final IndexedDigraph<?> graph) {
+        // lastSource[t] is the last vertex seen with an edge to t
+        final int[] lastSource = new int[graph.size()];
+        Arrays.fill(lastSource, -1);
+        for (int v = 0; v < graph.size(); v++) {
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                final int t = graph.target(v, i);
+                if (lastSource[t] == v) {
+                    throw new IllegalArgumentException(String.format("Graph has parallel edges from %s to %s",
+                            graph.getElementIndex().get(v), graph.getElementIndex().get(t)));
+                }
+                lastSource[t] = v;
+            }
+        }
+    }
+
+    IndexedDigraph<E> getGraph() { return graph; }
+
+    // for COUNTED, the multiplicity of each edge, parallel to the CSR targets of the graph; otherwise null
+    int[] getEdgeMultiplicities() { return edgeMultiplicities; }
+
+    @Override
+    public boolean add(final E key, final E value) {
+        throw new UnsupportedOperationException("Morphisms cannot be added to an immutable snapshot");
+    }
+
+    @Override
+    public int multiplicity(final E from, final E to) {
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+        final int fromId = elementIndex.indexOf(from);
+        final int toId = elementIndex.indexOf(to);
+        int count = 0;
+        for (int i = 0; fromId >= 0 && toId >= 0 && i < graph.outDegree(fromId); i++) {
+            if (graph.target(fromId, i) == toId) {
+                count += edgeMultiplicities == null ? 1 : edgeMultiplicities[graph.offsets()[fromId] + i];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<E, List<E>> getMorphismMap() { return morphismMapView; }
+
+    // copies are mutable, so they use the indexed backend, which shares this snapshot's arrays and element index
+    // (so copying takes constant time) and copies the targets of a source when a morphism is first added from it
+    @Override
+    protected IndexedFiniteMorphisms<E> copy() {
+        return new IndexedFiniteMorphisms<>(
+                new ExtendedElementIndex<>(graph.getElementIndex()),
+                getPolicy(),
+                graph,
+                edgeMultiplicities,
+                morphismMapView.sourceCount);
+    }
+
+    @Override
+    protected boolean referencesOnly(final Set<?> elements) {
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+        final boolean[] referenced = new boolean[graph.size()];
+        for (int v = 0; v < graph.size(); v++) {
+            referenced[v] |= graph.outDegree(v) > 0;
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                referenced[graph.target(v, i)] = true;
+            }
+        }
+        for (int id = 0; id < referenced.length; id++) {
+            if (referenced[id] && !elements.contains(elementIndex.get(id))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class MorphismMapView extends AbstractMap<E, List<E>> {
+        private final int sourceCount;
+        private final Set<Entry<E, List<E>>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<E, List<E>>> iterator() {
+                return new Iterator<>() {
+                    private int next = nextSource(0);
+
+                    @Override
+                    public boolean hasNext() { return next < graph.size(); }
+
+                    @Override
+                    public Entry<E, List<E>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int from = next;
+                        next = nextSource(from + 1);
+                        return new SimpleImmutableEntry<>(graph.getElementIndex().get(from), new TargetListView(from));
+                    }
+                };
+            }
+
+            @Override
+            public int size() { return sourceCount; }
+        };
+
+        private MorphismMapView() {
+            int count = 0;
+            for (int v = 0; v < graph.size(); v++) {
+                count += graph.outDegree(v) > 0 ? 1 : 0;
+            }
+            sourceCount = count;
+        }
+
+        private int nextSource(final int from) {
+            int v = from;
+            while (v < graph.size() && graph.outDegree(v) == 0) {
+                v++;
+            }
+            return v;
+        }
+
+        @Override
+        public Set<Entry<E, List<E>>> entrySet() { return entrySet; }
+
+        @Override
+        public int size() { return sourceCount; }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            final int from = graph.getElementIndex().indexOf(key);
+            return from >= 0 && graph.outDegree(from) > 0;
+        }
+
+        @Override
+        public List<E> get(final Object key) {
+            final int from = graph.getElementIndex().indexOf(key);
+            return from >= 0 && graph.outDegree(from) > 0 ? new TargetListView(from) : null;
+        }
+    }
+
+    private final class TargetListView extends AbstractList<E> implements RandomAccess {
+        private final int from;
+
+        private TargetListView(final int from) {
+            this.from = from;
+        }
+
+        @Override
+        public E get(final int i) { return graph.getElementIndex().get(graph.target(from, i)); }
+
+        @Override
+        public int size() { return graph.outDegree(from); }
+    }
+}
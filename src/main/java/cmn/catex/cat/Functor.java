@@ -0,0 +1,289 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntList;
+import cmn.catex.utils.LongIntHashMap;
+import htsjdk.utils.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A map of elements (e.g. intervals to the genes that contain them) that is applied to categories as a functor:
+ * each morphism from a to b maps to a morphism from the image of a to the image of b, or to an identity if they
+ * have the same image. Since the categories here are generated by their morphisms, mapping the generating
+ * morphisms determines the image of every composite.
+ *
+ * @param <E> type of elements of the source categories
+ * @param <F> type of elements of the target categories
+ */
+public final class Functor<E, F> {
+    // morphisms are gathered by one task per this many elements, up to the parallelism of the pool
+    private static final int MIN_CHUNK_SIZE = 1 << 14;
+
+    private final Function<? super E, ? extends F> elementMap;
+
+    /**
+     * @param elementMap map of elements, which must not return null; it may be applied concurrently
+     */
+    public Functor(final Function<? super E, ? extends F> elementMap) {
+        ValidationUtils.validateArg(elementMap != null, "elementMap cannot be null");
+        this.elementMap = elementMap;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the element map returns null for element
+     */
+    public F apply(final E element) {
+        final F image = elementMap.apply(element);
+        if (image == null) {
+            throw new IllegalArgumentException(String.format("%s maps to null", element));
+        }
+        return image;
+    }
+
+    /**
+     * @return the functor that applies this functor and then next
+     */
+    public <G> Functor<E, G> andThen(final Functor<F, G> next) {
+        ValidationUtils.validateArg(next != null, "next cannot be null");
+        return new Functor<>(element -> next.apply(apply(element)));
+    }
+
+    /**
+     * Equivalent to image(category, ForkJoinPool.commonPool()).
+     */
+    public <S> FiniteCategory<S, F> image(final FiniteCategory<S, E> category) {
+        return image(category, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool on which to map the elements and gather the morphisms, or null to use the calling thread
+     * @return an immutable category with the same source, whose elements are the images of the elements of
+     * category, in order of first appearance, and whose morphisms are the images of its morphisms, without
+     * repeats or identities (so it has the SET {@link MorphismPolicy})
+     * @throws IllegalArgumentException if the element map returns null for any element
+     */
+    public <S> FiniteCategory<S, F> image(final FiniteCategory<S, E> category, final ForkJoinPool pool) {
+        ValidationUtils.validateArg(category != null, "category cannot be null");
+        final IndexedDigraph<E> graph = category.toIndexedDigraph();
+        final int n = graph.size();
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+
+        // map each element exactly once, and then number the images in element order so the result doesn't
+        // depend on scheduling
+        final Object[] mapped = pool == null
+                ? IntStream.range(0, n).mapToObj(v -> apply(elementIndex.get(v))).toArray()
+                : pool.submit(() -> IntStream.range(0, n).parallel()
+                        .mapToObj(v -> apply(elementIndex.get(v))).toArray()).join();
+        final HashElementIndex<F> images = new HashElementIndex<>();
+        final int[] imageOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            @SuppressWarnings("unchecked") final F image = (F) mapped[v];
+            imageOf[v] = images.add(image);
+        }
+        final int imageCount = images.size();
+
+        // group the elements by image, in element order within each image
+        final int[] memberStarts = new int[imageCount + 1];
+        for (final int image : imageOf) {
+            memberStarts[image + 1]++;
+        }
+        for (int c = 0; c < imageCount; c++) {
+            memberStarts[c + 1] += memberStarts[c];
+        }
+        final int[] members = new int[n];
+        final int[] nextMember = Arrays.copyOf(memberStarts, imageCount);
+        for (int v = 0; v < n; v++) {
+            members[nextMember[imageOf[v]]++] = v;
+        }
+
+        // gather the image rows in contiguous chunks of images, each with its own stamps (so there is at most one
+        // chunk per thread), and concatenate them
+        final int chunkCount = pool == null ? 1 : Math.max(1, Math.min(pool.getParallelism(), n / MIN_CHUNK_SIZE));
+        final int[] offsets = new int[imageCount + 1];
+        final IntList[] chunkTargets = new IntList[chunkCount];
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final int index = chunk;
+            final int from = (int) ((long) imageCount * chunk / chunkCount);
+            final int to = (int) ((long) imageCount * (chunk + 1) / chunkCount);
+            final Runnable gather = () -> chunkTargets[index] =
+                    gatherRows(graph, imageOf, memberStarts, members, from, to, offsets);
+            if (pool == null) {
+                gather.run();
+            } else {
+                tasks.add(pool.submit(gather));
+            }
+        }
+        tasks.forEach(ForkJoinTask::join);
+
+        // rows were counted into offsets[c + 1] by each chunk; accumulate them and copy the chunks into place
+        for (int c = 0; c < imageCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        final int[] targets = new int[offsets[imageCount]];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final int from = (int) ((long) imageCount * chunk / chunkCount);
+            final int[] chunkArray = chunkTargets[chunk].toArray();
+            System.arraycopy(chunkArray, 0, targets, offsets[from], chunkArray.length);
+        }
+        return FiniteCategory.of(
+                category.getSource(),
+                new IndexedDigraph<>(images, offsets, targets),
+                MorphismPolicy.SET);
+    }
+
+    /**
+     * @return the morphisms of source whose images aren't morphisms of target (generating morphisms, composites or
+     * identities), ordered by their source elements as in {@link FiniteCategory#toIndexedDigraph()}, so this is a
+     * functor from source to target if there are none
+     * @throws IllegalArgumentException if the image of an element of source isn't an element of target
+     */
+    public List<Morphism<E>> violations(final FiniteCategory<?, E> source, final FiniteCategory<?, F> target) {
+        ValidationUtils.validateArg(source != null, "source cannot be null");
+        ValidationUtils.validateArg(target != null, "target cannot be null");
+        final IndexedDigraph<E> sourceGraph = source.toIndexedDigraph();
+        final IndexedDigraph<F> targetGraph = target.toIndexedDigraph();
+        final ElementIndex<E> sourceIndex = sourceGraph.getElementIndex();
+        final int n = sourceGraph.size();
+        final int[] imageOf = new int[n];
+        for (int v = 0; v < n; v++) {
+            final E element = sourceIndex.get(v);
+            final F image = apply(element);
+            imageOf[v] = targetGraph.getElementIndex().indexOf(image);
+            if (imageOf[v] < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "%s maps to %s, which is not an element of the target category", element, image));
+            }
+        }
+
+        // most images are generating morphisms of target, which are found in a hashed edge set; only the others
+        // need a search for a composite
+        final int[] targetOffsets = targetGraph.offsets();
+        final int[] targetTargets = targetGraph.targets();
+        final LongIntHashMap targetEdges = new LongIntHashMap(targetTargets.length);
+        for (int u = 0; u < targetGraph.size(); u++) {
+            for (int e = targetOffsets[u]; e < targetOffsets[u + 1]; e++) {
+                targetEdges.putIfAbsent(edgeKey(u, targetTargets[e]), 1);
+            }
+        }
+        // sources grouped by image, in CSR form (as in image), so each image source is searched from at most once
+        final int imageCount = targetGraph.size();
+        final int[] memberStarts = new int[imageCount + 1];
+        for (final int image : imageOf) {
+            memberStarts[image + 1]++;
+        }
+        for (int c = 0; c < imageCount; c++) {
+            memberStarts[c + 1] += memberStarts[c];
+        }
+        final int[] members = new int[n];
+        final int[] nextMember = Arrays.copyOf(memberStarts, imageCount);
+        for (int v = 0; v < n; v++) {
+            members[nextMember[imageOf[v]]++] = v;
+        }
+
+        // reached[w] == stamp marks w as reachable from the current image source; a new stamp starts each search
+        final int[] reached = new int[imageCount];
+        int stamp = 0;
+        final IntList queue = new IntList();
+        final int[] sourceOffsets = sourceGraph.offsets();
+        final int[] sourceTargets = sourceGraph.targets();
+        // CSR indexes of the violating morphisms, sorted afterwards to report them in source order
+        final IntList violatingEdges = new IntList();
+        for (int fa = 0; fa < imageCount; fa++) {
+            boolean searched = false;
+            for (int m = memberStarts[fa]; m < memberStarts[fa + 1]; m++) {
+                final int a = members[m];
+                for (int e = sourceOffsets[a]; e < sourceOffsets[a + 1]; e++) {
+                    final int fb = imageOf[sourceTargets[e]];
+                    if (fa == fb || targetEdges.get(edgeKey(fa, fb)) != 0) {
+                        continue;
+                    }
+                    if (!searched) {
+                        // mark everything reachable from fa
+                        searched = true;
+                        stamp++;
+                        queue.clear();
+                        queue.add(fa);
+                        reached[fa] = stamp;
+                        for (int i = 0; i < queue.size(); i++) {
+                            final int u = queue.get(i);
+                            for (int f = targetOffsets[u]; f < targetOffsets[u + 1]; f++) {
+                                final int w = targetTargets[f];
+                                if (reached[w] != stamp) {
+                                    reached[w] = stamp;
+                                    queue.add(w);
+                                }
+                            }
+                        }
+                    }
+                    if (reached[fb] != stamp) {
+                        violatingEdges.add(e);
+                    }
+                }
+            }
+        }
+
+        final int[] edges = violatingEdges.toArray();
+        Arrays.sort(edges);
+        final List<Morphism<E>> violations = new ArrayList<>(edges.length);
+        int a = 0;
+        for (final int e : edges) {
+            while (sourceOffsets[a + 1] <= e) {
+                a++;
+            }
+            violations.add(new Morphism<>(sourceIndex.get(a), sourceIndex.get(sourceTargets[e])));
+        }
+        return violations;
+    }
+
+    /**
+     * @return true if this maps every morphism of source to a morphism of target
+     */
+    public boolean isFunctor(final FiniteCategory<?, E> source, final FiniteCategory<?, F> target) {
+        return violations(source, target).isEmpty();
+    }
+
+    // targets of the rows of images from .. to - 1, dropping identities and repeats; row lengths go in offsets[c + 1]
+    private static IntList gatherRows(
+            final IndexedDigraph<?> graph,
+            final int[] imageOf,
+            final int[] memberStarts,
+            final int[] members,
+            final int from,
+            final int to,
+            final int[] offsets) {
+        final int[] graphOffsets = graph.offsets();
+        final int[] graphTargets = graph.targets();
+        final IntList targets = new IntList();
+        final int[] lastSource = new int[offsets.length - 1];
+        Arrays.fill(lastSource, -1);
+        for (int c = from; c < to; c++) {
+            final int rowStart = targets.size();
+            for (int m = memberStarts[c]; m < memberStarts[c + 1]; m++) {
+                final int v = members[m];
+                for (int e = graphOffsets[v]; e < graphOffsets[v + 1]; e++) {
+                    final int d = imageOf[graphTargets[e]];
+                    if (d != c && lastSource[d] != c) {
+                        lastSource[d] = c;
+                        targets.add(d);
+                    }
+                }
+            }
+            offsets[c + 1] = targets.size() - rowStart;
+        }
+        return targets;
+    }
+
+    private static long edgeKey(final int from, final int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+}
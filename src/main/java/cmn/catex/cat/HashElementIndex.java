@@ -0,0 +1,121 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.Arrays;
+
+/**
+ * {@link ElementIndex} backed by an element array and an open-addressing table of int ids, so there is no
+ * per-element entry object or boxed id.
+ *
+ * @param <E> type of element
+ */
+public class HashElementIndex<E> implements ElementIndex<E> {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements;
+    private int[] table;
+    private int size;
+
+    public HashElementIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HashElementIndex(final int expectedSize) {
+        elements = new Object[Math.max(expectedSize, 1)];
+        table = newTable(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param other index to copy; elements keep the same ids
+     */
+    public HashElementIndex(final ElementIndex<E> other) {
+        this(other.size());
+        for (int id = 0; id < other.size(); id++) {
+            add(other.get(id));
+        }
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(String.format("Element id %d out of range [0, %d)", id, size));
+        }
+        return (E) elements[id];
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        if (element == null) {
+            return EMPTY;
+        }
+        final int mask = table.length - 1;
+        for (int slot = mix(element.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            final int id = table[slot];
+            if (id == EMPTY) {
+                return EMPTY;
+            } else if (elements[id].equals(element)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public int add(final E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null elements cannot be indexed");
+        }
+        final int mask = table.length - 1;
+        int slot = mix(element.hashCode()) & mask;
+        for (int id = table[slot]; id != EMPTY; slot = (slot + 1) & mask, id = table[slot]) {
+            if (elements[id].equals(element)) {
+                return id;
+            }
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        final int newId = size++;
+        elements[newId] = element;
+        table[slot] = newId;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return newId;
+    }
+
+    private void rehash(final int newTableSize) {
+        table = newTable(newTableSize);
+        final int mask = newTableSize - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(elements[id].hashCode()) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int[] newTable(final int tableSize) {
+        final int[] newTable = new int[tableSize];
+        Arrays.fill(newTable, EMPTY);
+        return newTable;
+    }
+
+    // smallest power of two that keeps the load factor at or below 1/2
+    private static int tableSizeFor(final int expectedSize) {
+        return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1);
+    }
+
+    // spread the high bits of poor hash codes (i.e., small Integers) into the low bits used for the slot
+    private static int mix(final int hashCode) {
+        final int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
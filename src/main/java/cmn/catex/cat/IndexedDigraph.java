@@ -0,0 +1,203 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntAdjacencyView;
+
+import java.nio.IntBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the elements and morphisms of a category as a directed graph over dense int ids, with the
+ * adjacency stored in compressed sparse row (CSR) form: the targets of vertex v are
+ * {@code targets[offsets[v] .. offsets[v + 1])}, in morphism insertion order. Algorithms run over this form
+ * rather than over the morphism map, so they don't hash elements or allocate per edge.
+ *
+ * The CSR arrays may also be read through buffers (e.g. over a memory-mapped file, see {@link FiniteCategoryIO}), in
+ * which case they are only copied into arrays when an algorithm needs direct access to them.
+ *
+ * @param <E> type of element
+ */
+public final class IndexedDigraph<E> implements IntAdjacencyView {
+    private final ElementIndex<E> elementIndex;
+    // either the CSR arrays, or buffers that they are read through, are null
+    private final int[] offsets;
+    private final int[] targets;
+    private final IntBuffer offsetBuffer;
+    private final IntBuffer targetBuffer;
+    // the CSR arrays copied from the buffers, on first use
+    private volatile int[][] copiedArrays;
+
+    /**
+     * @param elementIndex element index; vertex ids are element ids, and the index must not be modified afterwards
+     * @param offsets CSR offsets, of length elementIndex.size() + 1
+     * @param targets CSR targets
+     */
+    public IndexedDigraph(final ElementIndex<E> elementIndex, final int[] offsets, final int[] targets) {
+        this(elementIndex, offsets, targets, null, null);
+    }
+
+    private IndexedDigraph(
+            final ElementIndex<E> elementIndex,
+            final int[] offsets,
+            final int[] targets,
+            final IntBuffer offsetBuffer,
+            final IntBuffer targetBuffer) {
+        final int offsetCount = offsets == null ? offsetBuffer.limit() : offsets.length;
+        final int targetCount = targets == null ? targetBuffer.limit() : targets.length;
+        if (offsetCount != elementIndex.size() + 1
+                || (offsets == null ? offsetBuffer.get(0) : offsets[0]) != 0
+                || (offsets == null ? offsetBuffer.get(offsetCount - 1) : offsets[offsetCount - 1]) != targetCount) {
+            throw new IllegalArgumentException("CSR offsets are inconsistent with the element index and targets");
+        }
+        this.elementIndex = new ReadOnlyElementIndex<>(elementIndex);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.offsetBuffer = offsetBuffer;
+        this.targetBuffer = targetBuffer;
+    }
+
+    /**
+     * @param elementIndex element index; vertex ids are element ids, and the index must not be modified afterwards
+     * @param offsets CSR offsets, of length elementIndex.size() + 1, from index 0 to the buffer's limit
+     * @param targets CSR targets, from index 0 to the buffer's limit
+     * @return a graph that reads its CSR arrays through buffers, which must not be modified afterwards
+     */
+    static <E> IndexedDigraph<E> of(
+            final ElementIndex<E> elementIndex,
+            final IntBuffer offsets,
+            final IntBuffer targets) {
+        return new IndexedDigraph<>(elementIndex, null, null, offsets, targets);
+    }
+
+    /**
+     * @param elements elements, which are assigned ids in iteration order
+     * @param morphisms morphisms between elements
+     * @throws IllegalStateException if a morphism refers to something that isn't in elements
+     */
+    public static <E> IndexedDigraph<E> of(final Collection<E> elements, final Map<E, List<E>> morphisms) {
+        final HashElementIndex<E> elementIndex = new HashElementIndex<>(elements.size());
+        elements.forEach(elementIndex::add);
+        final int n = elementIndex.size();
+        final int[] offsets = new int[n + 1];
+        morphisms.forEach((from, tos) -> offsets[idOf(elementIndex, from) + 1] += tos.size());
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        final int[] targets = new int[offsets[n]];
+        final int[] next = new int[n];
+        System.arraycopy(offsets, 0, next, 0, n);
+        morphisms.forEach((from, tos) -> {
+            final int v = elementIndex.indexOf(from);
+            for (final E to : tos) {
+                targets[next[v]++] = idOf(elementIndex, to);
+            }
+        });
+        return new IndexedDigraph<>(elementIndex, offsets, targets);
+    }
+
+    private static int idOf(final ElementIndex<?> elementIndex, final Object element) {
+        final int id = elementIndex.indexOf(element);
+        if (id < 0) {
+            throw new IllegalStateException(String.format("Morphism refers to %s, which is not an element", element));
+        }
+        return id;
+    }
+
+    /**
+     * @return the (read-only) element index
+     */
+    public ElementIndex<E> getElementIndex() { return elementIndex; }
+
+    // number of vertices
+    public int size() { return elementIndex.size(); }
+
+    public int edgeCount() { return targets == null ? targetBuffer.limit() : targets.length; }
+
+    public int outDegree(final int v) {
+        return offsets == null ? offsetBuffer.get(v + 1) - offsetBuffer.get(v) : offsets[v + 1] - offsets[v];
+    }
+
+    @Override
+    public int nodeCount() { return size(); }
+
+    @Override
+    public int degree(final int v) { return outDegree(v); }
+
+    @Override
+    public int target(final int v, final int i) {
+        if (i < 0 || i >= outDegree(v)) {
+            throw new IndexOutOfBoundsException(String.format("Edge %d out of range for vertex %d", i, v));
+        }
+        return targets == null ? targetBuffer.get(offsetBuffer.get(v) + i) : targets[offsets[v] + i];
+    }
+
+    /**
+     * @return the graph with every morphism reversed, sharing this graph's element index; the sources of each
+     * vertex are in increasing id order
+     */
+    public IndexedDigraph<E> reversed() {
+        final int[] offsets = offsets();
+        final int[] targets = targets();
+        final int n = size();
+        final int[] reversedOffsets = new int[n + 1];
+        for (final int t : targets) {
+            reversedOffsets[t + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            reversedOffsets[v + 1] += reversedOffsets[v];
+        }
+        final int[] reversedTargets = new int[targets.length];
+        final int[] next = new int[n];
+        System.arraycopy(reversedOffsets, 0, next, 0, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                reversedTargets[next[targets[e]]++] = v;
+            }
+        }
+        return new IndexedDigraph<>(elementIndex, reversedOffsets, reversedTargets);
+    }
+
+    // direct access to the CSR arrays, for algorithms in this package; callers must not modify them
+    int[] offsets() { return offsets == null ? copiedArrays()[0] : offsets; }
+
+    int[] targets() { return targets == null ? copiedArrays()[1] : targets; }
+
+    private int[][] copiedArrays() {
+        int[][] copied = copiedArrays;
+        if (copied == null) {
+            final int[] offsetArray = new int[offsetBuffer.limit()];
+            final int[] targetArray = new int[targetBuffer.limit()];
+            offsetBuffer.get(0, offsetArray);
+            targetBuffer.get(0, targetArray);
+            copied = new int[][] {offsetArray, targetArray};
+            copiedArrays = copied;
+        }
+        return copied;
+    }
+
+    private record ReadOnlyElementIndex<E>(ElementIndex<E> elementIndex) implements ElementIndex<E> {
+        ReadOnlyElementIndex {
+            while (elementIndex instanceof ReadOnlyElementIndex<E> readOnly) {
+                elementIndex = readOnly.elementIndex();
+            }
+        }
+
+        @Override
+        public int size() { return elementIndex.size(); }
+
+        @Override
+        public E get(final int id) { return elementIndex.get(id); }
+
+        @Override
+        public int indexOf(final Object element) { return elementIndex.indexOf(element); }
+
+        @Override
+        public int add(final E element) {
+            throw new UnsupportedOperationException("The element index of an IndexedDigraph cannot be modified");
+        }
+    }
+}
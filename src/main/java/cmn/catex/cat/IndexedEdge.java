@@ -0,0 +1,14 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * Edge of an {@link IndexedGraphView}: the index'th morphism from the element with id source. Edges carry no
+ * reference to their graph, so they are only meaningful together with the graph they came from.
+ *
+ * @param source id of the source element
+ * @param index position of the morphism among the morphisms from the source element, in insertion order
+ */
+public record IndexedEdge(int source, int index) {
+}
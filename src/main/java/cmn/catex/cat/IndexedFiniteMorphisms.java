@@ -0,0 +1,376 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntAdjacency;
+import cmn.catex.utils.IntList;
+import cmn.catex.utils.LongIntHashMap;
+
+import java.util.*;
+
+/**
+ * {@link FiniteMorphisms} backend that assigns dense int ids to elements and stores morphisms as primitive int
+ * adjacency lists, rather than as one boxed {@code ArrayList} per source element. Each element is hashed once,
+ * when it is first seen, and edges can be added directly by id.
+ *
+ * {@link #getMorphismMap()} returns a lazy, write-through view: lists are materialized on access, appending to
+ * a list adds a morphism, and other structural modifications are not supported.
+ *
+ * For the SET and COUNTED policies, a repeated morphism is detected by scanning its source's target array while
+ * the source's out-degree is small (which is cache-friendly and needs no extra memory), and by a primitive hash set
+ * of (source id, target id) pairs once it is larger. COUNTED only stores the multiplicities of repeated morphisms.
+ *
+ * The mutable copy of a snapshot shares the snapshot's CSR arrays and element index, and copies the targets of a
+ * source only when a morphism is first added from it (see {@link FrozenFiniteMorphisms#copy()}).
+ *
+ * @param <E> type of element
+ */
+public class IndexedFiniteMorphisms<E> extends FiniteMorphisms<E> {
+    private final ElementIndex<E> elementIndex;
+    private final IntAdjacency adjacency;
+    // the snapshot whose rows the adjacency shares, and their multiplicities (for COUNTED), or null
+    private final IndexedDigraph<E> shared;
+    private final int[] sharedMultiplicities;
+    private final int sharedSourceCount;
+    // source ids in the order they first acquired an outgoing morphism (to match LinkedHashMap key order), after the
+    // sources of shared rows, which come first in id order
+    private final IntList sourceOrder = new IntList();
+    // edge keys (see edgeKey) of sources with out-degree above LINEAR_SCAN_DEGREE; null for MULTIGRAPH
+    private final LongIntHashMap largeSourceEdges;
+    // multiplicity of each edge key that was added more than once; only for COUNTED
+    private final LongIntHashMap repeatCounts;
+    private final MorphismMapView morphismMapView = new MorphismMapView();
+
+    public IndexedFiniteMorphisms() {
+        this(new HashElementIndex<>());
+    }
+
+    public IndexedFiniteMorphisms(final MorphismPolicy policy) {
+        this(new HashElementIndex<>(), policy);
+    }
+
+    /**
+     * @param elementIndex index used to assign ids to elements; may be pre-populated so that callers can add
+     *                     morphisms by id with {@link #addById(int, int)}
+     */
+    public IndexedFiniteMorphisms(final ElementIndex<E> elementIndex) {
+        this(elementIndex, MorphismPolicy.MULTIGRAPH);
+    }
+
+    public IndexedFiniteMorphisms(final ElementIndex<E> elementIndex, final MorphismPolicy policy) {
+        this(elementIndex, policy, new IntAdjacency(Math.max(elementIndex.size(), 16)), null, null, 0);
+    }
+
+    /**
+     * Morphisms that are initially those of a snapshot, sharing its arrays.
+     *
+     * @param elementIndex extension of the snapshot's element index
+     * @param shared graph of the snapshot's morphisms
+     * @param sharedMultiplicities for COUNTED, the multiplicity of each edge of shared; otherwise null
+     * @param sharedSourceCount number of elements of shared with outgoing edges
+     */
+    IndexedFiniteMorphisms(
+            final ExtendedElementIndex<E> elementIndex,
+            final MorphismPolicy policy,
+            final IndexedDigraph<E> shared,
+            final int[] sharedMultiplicities,
+            final int sharedSourceCount) {
+        this(elementIndex,
+                policy,
+                IntAdjacency.sharing(shared.offsets(), shared.targets()),
+                shared,
+                sharedMultiplicities,
+                sharedSourceCount);
+    }
+
+    private IndexedFiniteMorphisms(
+            final ElementIndex<E> elementIndex,
+            final MorphismPolicy policy,
+            final IntAdjacency adjacency,
+            final IndexedDigraph<E> shared,
+            final int[] sharedMultiplicities,
+            final int sharedSourceCount) {
+        super(policy, false);
+        this.elementIndex = elementIndex;
+        this.adjacency = adjacency;
+        this.shared = shared;
+        this.sharedMultiplicities = sharedMultiplicities;
+        this.sharedSourceCount = sharedSourceCount;
+        this.largeSourceEdges = policy == MorphismPolicy.MULTIGRAPH ? null : new LongIntHashMap();
+        this.repeatCounts = policy == MorphismPolicy.COUNTED ? new LongIntHashMap() : null;
+    }
+
+    // the copy has the same policy as other
+    public IndexedFiniteMorphisms(final FiniteMorphisms<E> other) {
+        this(other.getPolicy());
+        other.getMorphismMap().forEach((key, values) -> values.forEach(value ->
+                addById(elementIndex.add(key), elementIndex.add(value), copiedMultiplicity(other, key, value))));
+    }
+
+    @Override
+    public boolean add(final E key, final E value) {
+        final int from = elementIndex.add(key);
+        return addById(from, elementIndex.add(value));
+    }
+
+    /**
+     * Add a morphism between two elements that are already in this object's element index, subject to the policy
+     * of these morphisms.
+     *
+     * @param from id of the source element
+     * @param to id of the target element
+     * @return true if the morphism map changed
+     */
+    public boolean addById(final int from, final int to) {
+        return addById(from, to, 1);
+    }
+
+    // add a morphism times times over: as parallel morphisms for MULTIGRAPH, and to the multiplicity for COUNTED
+    boolean addById(final int from, final int to, final int times) {
+        final int indexSize = elementIndex.size();
+        if (from < 0 || from >= indexSize || to < 0 || to >= indexSize) {
+            throw new IllegalArgumentException(
+                    String.format("Morphism %d -> %d refers to an element id outside of [0, %d)", from, to, indexSize));
+        }
+        if (getPolicy() == MorphismPolicy.MULTIGRAPH) {
+            appendEdges(from, to, times);
+            return true;
+        }
+        if (adjacency.isShared(from)) {
+            adoptSharedRow(from);
+        }
+        if (containsEdge(from, to)) {
+            if (repeatCounts != null) {
+                final long key = edgeKey(from, to);
+                repeatCounts.addTo(key, repeatCounts.get(key) == 0 ? times + 1 : times);
+            }
+            return false;
+        }
+        appendEdges(from, to, 1);
+        if (repeatCounts != null && times > 1) {
+            repeatCounts.addTo(edgeKey(from, to), times);
+        }
+        final int degree = adjacency.degree(from);
+        if (degree == LINEAR_SCAN_DEGREE + 1) {
+            for (int i = 0; i < degree; i++) {
+                largeSourceEdges.putIfAbsent(edgeKey(from, adjacency.target(from, i)), 1);
+            }
+        } else if (degree > LINEAR_SCAN_DEGREE + 1) {
+            largeSourceEdges.putIfAbsent(edgeKey(from, to), 1);
+        }
+        return true;
+    }
+
+    // copy a shared row, and index it as if its morphisms had been added here
+    private void adoptSharedRow(final int from) {
+        final int degree = adjacency.degree(from);
+        for (int i = 0; i < degree; i++) {
+            final int to = adjacency.target(from, i);
+            if (degree > LINEAR_SCAN_DEGREE) {
+                largeSourceEdges.putIfAbsent(edgeKey(from, to), 1);
+            }
+            final int count = sharedMultiplicities == null ? 1 : sharedMultiplicities[shared.offsets()[from] + i];
+            if (repeatCounts != null && count > 1) {
+                repeatCounts.addTo(edgeKey(from, to), count);
+            }
+        }
+        adjacency.unshare(from);
+    }
+
+    private void appendEdges(final int from, final int to, final int times) {
+        if (adjacency.degree(from) == 0) {
+            sourceOrder.add(from);
+        }
+        for (int i = 0; i < times; i++) {
+            adjacency.add(from, to);
+        }
+    }
+
+    // shared rows aren't in largeSourceEdges until they're adopted
+    private boolean containsEdge(final int from, final int to) {
+        return adjacency.degree(from) <= LINEAR_SCAN_DEGREE || adjacency.isShared(from)
+                ? adjacency.contains(from, to)
+                : largeSourceEdges.get(edgeKey(from, to)) != 0;
+    }
+
+    @Override
+    public int multiplicity(final E from, final E to) {
+        final int fromId = elementIndex.indexOf(from);
+        final int toId = elementIndex.indexOf(to);
+        return fromId < 0 || toId < 0 ? 0 : multiplicityById(fromId, toId);
+    }
+
+    int multiplicityById(final int from, final int to) {
+        if (getPolicy() != MorphismPolicy.MULTIGRAPH) {
+            if (!containsEdge(from, to)) {
+                return 0;
+            } else if (repeatCounts != null && sharedMultiplicities != null && adjacency.isShared(from)) {
+                return sharedMultiplicity(from, to);
+            }
+            return repeatCounts == null ? 1 : Math.max(1, repeatCounts.get(edgeKey(from, to)));
+        }
+        int count = 0;
+        for (int i = 0; i < adjacency.degree(from); i++) {
+            if (adjacency.target(from, i) == to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int sharedMultiplicity(final int from, final int to) {
+        for (int e = shared.offsets()[from]; e < shared.offsets()[from + 1]; e++) {
+            if (shared.targets()[e] == to) {
+                return sharedMultiplicities[e];
+            }
+        }
+        return 0;
+    }
+
+    public ElementIndex<E> getElementIndex() { return elementIndex; }
+
+    IntAdjacency getAdjacency() { return adjacency; }
+
+    @Override
+    public Map<E, List<E>> getMorphismMap() { return morphismMapView; }
+
+    // re-index each element once, then copy the edges by id
+    @Override
+    protected FiniteMorphisms<E> copy() {
+        final IndexedFiniteMorphisms<E> copy =
+                new IndexedFiniteMorphisms<>(new HashElementIndex<>(elementIndex), getPolicy());
+        for (final SourceCursor sources = new SourceCursor(); sources.hasNext(); ) {
+            final int from = sources.next();
+            for (int j = 0; j < adjacency.degree(from); j++) {
+                final int to = adjacency.target(from, j);
+                copy.addById(from, to, repeatCounts == null ? 1 : multiplicityById(from, to));
+            }
+        }
+        return copy;
+    }
+
+    // each target in a MULTIGRAPH copy's lists is copied separately, so only COUNTED needs the multiplicity
+    private static <E> int copiedMultiplicity(final FiniteMorphisms<E> from, final E key, final E value) {
+        return from.getPolicy() == MorphismPolicy.COUNTED ? from.multiplicity(key, value) : 1;
+    }
+
+    private static long edgeKey(final int from, final int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    // mark the referenced ids in one pass over the primitive adjacency, then look up each referenced element once
+    @Override
+    protected boolean referencesOnly(final Set<?> elements) {
+        final boolean[] referenced = new boolean[elementIndex.size()];
+        for (final SourceCursor sources = new SourceCursor(); sources.hasNext(); ) {
+            final int from = sources.next();
+            referenced[from] = true;
+            for (int j = 0; j < adjacency.degree(from); j++) {
+                referenced[adjacency.target(from, j)] = true;
+            }
+        }
+        for (int id = 0; id < referenced.length; id++) {
+            if (referenced[id] && !elements.contains(elementIndex.get(id))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int sourceCount() { return sharedSourceCount + sourceOrder.size(); }
+
+    // source ids in map order: the sources of shared rows in id order, then sourceOrder
+    private final class SourceCursor {
+        private final int sharedSize = shared == null ? 0 : shared.size();
+        private int sharedId = nextSharedSource(0);
+        private int ordered;
+
+        boolean hasNext() { return sharedId < sharedSize || ordered < sourceOrder.size(); }
+
+        int next() {
+            if (sharedId < sharedSize) {
+                final int from = sharedId;
+                sharedId = nextSharedSource(from + 1);
+                return from;
+            }
+            return sourceOrder.get(ordered++);
+        }
+
+        private int nextSharedSource(final int from) {
+            int v = from;
+            while (v < sharedSize && shared.outDegree(v) == 0) {
+                v++;
+            }
+            return v;
+        }
+    }
+
+    private final class MorphismMapView extends AbstractMap<E, List<E>> {
+        private final Set<Entry<E, List<E>>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<E, List<E>>> iterator() {
+                return new Iterator<>() {
+                    private final SourceCursor sources = new SourceCursor();
+
+                    @Override
+                    public boolean hasNext() { return sources.hasNext(); }
+
+                    @Override
+                    public Entry<E, List<E>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int from = sources.next();
+                        return new SimpleImmutableEntry<>(elementIndex.get(from), new TargetListView(from));
+                    }
+                };
+            }
+
+            @Override
+            public int size() { return sourceCount(); }
+        };
+
+        @Override
+        public Set<Entry<E, List<E>>> entrySet() { return entrySet; }
+
+        @Override
+        public int size() { return sourceCount(); }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            final int from = elementIndex.indexOf(key);
+            return from >= 0 && adjacency.degree(from) > 0;
+        }
+
+        @Override
+        public List<E> get(final Object key) {
+            final int from = elementIndex.indexOf(key);
+            return from >= 0 && adjacency.degree(from) > 0 ? new TargetListView(from) : null;
+        }
+    }
+
+    private final class TargetListView extends AbstractList<E> implements RandomAccess {
+        private final int from;
+
+        private TargetListView(final int from) {
+            this.from = from;
+        }
+
+        @Override
+        public E get(final int i) { return elementIndex.get(adjacency.target(from, i)); }
+
+        @Override
+        public int size() { return adjacency.degree(from); }
+
+        @Override
+        public void add(final int i, final E element) {
+            if (i != size()) {
+                throw new UnsupportedOperationException("Morphisms can only be appended");
+            }
+            if (addById(from, elementIndex.add(element))) {
+                modCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Read-only jgrapht {@link Graph} view of an {@link IndexedDigraph}, which lets jgrapht algorithms and exporters run
+ * directly on the CSR arrays rather than on a copy of the graph (although a mutable category's IndexedDigraph is
+ * itself a copy; see {@link FiniteCategory#asGraph()}). Edges are {@link IndexedEdge}s, created on demand, and edge
+ * and vertex sets are views; the incoming edges of each vertex are indexed on first use.
+ *
+ * @param <E> type of element
+ */
+public final class IndexedGraphView<E> extends AbstractGraph<E, IndexedEdge> {
+    private static final GraphType GRAPH_TYPE = new DefaultGraphType.Builder()
+            .directed()
+            .allowMultipleEdges(true)
+            .allowSelfLoops(true)
+            .allowCycles(true)
+            .weighted(false)
+            .modifiable(false)
+            .build();
+
+    private final IndexedDigraph<E> graph;
+    private final ElementIndex<E> elementIndex;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Set<E> vertexSet;
+    private volatile IncomingEdges incomingEdges;
+
+    public IndexedGraphView(final IndexedDigraph<E> graph) {
+        this.graph = graph;
+        this.elementIndex = graph.getElementIndex();
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.vertexSet = new ElementIndexSet<>(elementIndex);
+    }
+
+    public IndexedDigraph<E> getIndexedDigraph() { return graph; }
+
+    @Override
+    public Set<IndexedEdge> getAllEdges(final E sourceVertex, final E targetVertex) {
+        final int source = elementIndex.indexOf(sourceVertex);
+        final int target = elementIndex.indexOf(targetVertex);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        final Set<IndexedEdge> edges = new LinkedHashSet<>();
+        for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+            if (targets[e] == target) {
+                edges.add(new IndexedEdge(source, e - offsets[source]));
+            }
+        }
+        return edges;
+    }
+
+    @Override
+    public IndexedEdge getEdge(final E sourceVertex, final E targetVertex) {
+        final int source = elementIndex.indexOf(sourceVertex);
+        final int target = elementIndex.indexOf(targetVertex);
+        if (source >= 0 && target >= 0) {
+            for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+                if (targets[e] == target) {
+                    return new IndexedEdge(source, e - offsets[source]);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Supplier<E> getVertexSupplier() { return null; }
+
+    @Override
+    public Supplier<IndexedEdge> getEdgeSupplier() { return null; }
+
+    @Override
+    public IndexedEdge addEdge(final E sourceVertex, final E targetVertex) { throw readOnly(); }
+
+    @Override
+    public boolean addEdge(final E sourceVertex, final E targetVertex, final IndexedEdge edge) { throw readOnly(); }
+
+    @Override
+    public E addVertex() { throw readOnly(); }
+
+    @Override
+    public boolean addVertex(final E vertex) { throw readOnly(); }
+
+    @Override
+    public boolean containsEdge(final IndexedEdge edge) {
+        return edge != null
+                && edge.source() >= 0
+                && edge.source() < elementIndex.size()
+                && edge.index() >= 0
+                && edge.index() < graph.outDegree(edge.source());
+    }
+
+    @Override
+    public boolean containsVertex(final E vertex) {
+        return elementIndex.indexOf(vertex) >= 0;
+    }
+
+    @Override
+    public Set<IndexedEdge> edgeSet() {
+        return new EdgeSet(graph.edgeCount(), this::containsEdge) {
+            @Override
+            public Iterator<IndexedEdge> iterator() {
+                return new Iterator<>() {
+                    private int source = 0;
+                    private int e = 0;
+
+                    @Override
+                    public boolean hasNext() { return e < targets.length; }
+
+                    @Override
+                    public IndexedEdge next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        while (offsets[source + 1] <= e) {
+                            source++;
+                        }
+                        final IndexedEdge edge = new IndexedEdge(source, e - offsets[source]);
+                        e++;
+                        return edge;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public int degreeOf(final E vertex) {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    @Override
+    public Set<IndexedEdge> edgesOf(final E vertex) {
+        final int v = vertexId(vertex);
+        final Set<IndexedEdge> outgoing = outgoingEdgesOf(vertex);
+        final Set<IndexedEdge> incoming = incomingEdgesOf(vertex);
+        int selfLoops = 0;
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+            if (targets[e] == v) {
+                selfLoops++;
+            }
+        }
+        // self-loops are both outgoing and incoming, but are only included once
+        return new EdgeSet(outgoing.size() + incoming.size() - selfLoops, edge -> outgoing.contains(edge) || incoming.contains(edge)) {
+            @Override
+            public Iterator<IndexedEdge> iterator() {
+                final Iterator<IndexedEdge> outgoingIterator = outgoing.iterator();
+                final Iterator<IndexedEdge> incomingIterator = incoming.stream().filter(edge -> edge.source() != v).iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() { return outgoingIterator.hasNext() || incomingIterator.hasNext(); }
+
+                    @Override
+                    public IndexedEdge next() {
+                        return outgoingIterator.hasNext() ? outgoingIterator.next() : incomingIterator.next();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public int inDegreeOf(final E vertex) {
+        final int v = vertexId(vertex);
+        final IncomingEdges incoming = getIncomingEdges();
+        return incoming.offsets[v + 1] - incoming.offsets[v];
+    }
+
+    @Override
+    public Set<IndexedEdge> incomingEdgesOf(final E vertex) {
+        final int v = vertexId(vertex);
+        final IncomingEdges incoming = getIncomingEdges();
+        final int start = incoming.offsets[v];
+        final int end = incoming.offsets[v + 1];
+        return new EdgeSet(end - start, edge -> containsEdge(edge) && targetId(edge) == v) {
+            @Override
+            public Iterator<IndexedEdge> iterator() {
+                return rangeIterator(start, end, i -> new IndexedEdge(incoming.sources[i], incoming.indexes[i]));
+            }
+        };
+    }
+
+    @Override
+    public int outDegreeOf(final E vertex) {
+        return graph.outDegree(vertexId(vertex));
+    }
+
+    @Override
+    public Set<IndexedEdge> outgoingEdgesOf(final E vertex) {
+        final int v = vertexId(vertex);
+        final int degree = graph.outDegree(v);
+        return new EdgeSet(degree, edge -> edge != null && edge.source() == v && edge.index() >= 0 && edge.index() < degree) {
+            @Override
+            public Iterator<IndexedEdge> iterator() {
+                return rangeIterator(0, degree, i -> new IndexedEdge(v, i));
+            }
+        };
+    }
+
+    @Override
+    public IndexedEdge removeEdge(final E sourceVertex, final E targetVertex) { throw readOnly(); }
+
+    @Override
+    public boolean removeEdge(final IndexedEdge edge) { throw readOnly(); }
+
+    @Override
+    public boolean removeVertex(final E vertex) { throw readOnly(); }
+
+    @Override
+    public Set<E> vertexSet() { return vertexSet; }
+
+    @Override
+    public E getEdgeSource(final IndexedEdge edge) {
+        return elementIndex.get(checkEdge(edge).source());
+    }
+
+    @Override
+    public E getEdgeTarget(final IndexedEdge edge) {
+        return elementIndex.get(targetId(checkEdge(edge)));
+    }
+
+    @Override
+    public GraphType getType() { return GRAPH_TYPE; }
+
+    @Override
+    public double getEdgeWeight(final IndexedEdge edge) { return Graph.DEFAULT_EDGE_WEIGHT; }
+
+    @Override
+    public void setEdgeWeight(final IndexedEdge edge, final double weight) { throw readOnly(); }
+
+    private int targetId(final IndexedEdge edge) {
+        return targets[offsets[edge.source()] + edge.index()];
+    }
+
+    private int vertexId(final E vertex) {
+        final int v = elementIndex.indexOf(vertex);
+        if (v < 0) {
+            throw new IllegalArgumentException("no such vertex in graph: " + vertex);
+        }
+        return v;
+    }
+
+    private IndexedEdge checkEdge(final IndexedEdge edge) {
+        if (!containsEdge(edge)) {
+            throw new IllegalArgumentException("no such edge in graph: " + edge);
+        }
+        return edge;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("This graph is a read-only view");
+    }
+
+    private static Iterator<IndexedEdge> rangeIterator(final int start, final int end, final IntFunction<IndexedEdge> edgeAt) {
+        return new Iterator<>() {
+            private int i = start;
+
+            @Override
+            public boolean hasNext() { return i < end; }
+
+            @Override
+            public IndexedEdge next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return edgeAt.apply(i++);
+            }
+        };
+    }
+
+    private IncomingEdges getIncomingEdges() {
+        IncomingEdges incoming = incomingEdges;
+        if (incoming == null) {
+            incoming = new IncomingEdges(offsets, targets);
+            incomingEdges = incoming;
+        }
+        return incoming;
+    }
+
+    // reverse CSR index: for each target, the (source, index) of each of its incoming edges, in source order
+    private static final class IncomingEdges {
+        final int[] offsets;
+        final int[] sources;
+        final int[] indexes;
+
+        IncomingEdges(final int[] forwardOffsets, final int[] forwardTargets) {
+            final int n = forwardOffsets.length - 1;
+            offsets = new int[n + 1];
+            for (final int t : forwardTargets) {
+                offsets[t + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            sources = new int[forwardTargets.length];
+            indexes = new int[forwardTargets.length];
+            final int[] next = Arrays.copyOf(offsets, n);
+            for (int v = 0; v < n; v++) {
+                for (int e = forwardOffsets[v]; e < forwardOffsets[v + 1]; e++) {
+                    final int slot = next[forwardTargets[e]]++;
+                    sources[slot] = v;
+                    indexes[slot] = e - forwardOffsets[v];
+                }
+            }
+        }
+    }
+
+    // unmodifiable set view of edges with a known size and membership test
+    private abstract static class EdgeSet extends AbstractSet<IndexedEdge> {
+        private final int size;
+        private final Predicate<IndexedEdge> contains;
+
+        EdgeSet(final int size, final Predicate<IndexedEdge> contains) {
+            this.size = size;
+            this.contains = contains;
+        }
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public boolean contains(final Object o) {
+            return o instanceof IndexedEdge edge && contains.test(edge);
+        }
+    }
+}
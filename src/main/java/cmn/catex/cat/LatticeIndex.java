@@ -0,0 +1,410 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed index for meet (greatest lower bound) and join (least upper bound) queries over a poset, where
+ * a &le; b if b is reachable from a. In a containment category, where morphisms go from each interval to the
+ * intervals it contains, the meet of two intervals is the smallest interval that contains both.
+ *
+ * If the Hasse diagram of the poset is a forest (every element has at most one lower cover, as for containment
+ * among nested intervals), which is detected in O(V + E) time without computing a transitive reduction, meets are
+ * lowest common ancestors, answered in O(1) by a range-minimum sparse table over the depths of a depth-first
+ * order. Otherwise, the index holds the lower and upper set of every element as bitsets, within a memory budget,
+ * and answers each query in O(V / 64) time.
+ *
+ * @param <E> type of elements
+ */
+public final class LatticeIndex<E> {
+    // upper bound on the size of the bitsets held by the index of a poset that isn't a forest
+    static final long DEFAULT_BUDGET_BYTES = 256L << 20;
+
+    private final ElementIndex<E> elementIndex;
+    private final Queries queries;
+
+    private LatticeIndex(final ElementIndex<E> elementIndex, final Queries queries) {
+        this.elementIndex = elementIndex;
+        this.queries = queries;
+    }
+
+    /**
+     * @throws IllegalArgumentException if graph has a cycle of non-identity morphisms, or if it isn't a forest and
+     * its bitsets would need more than budgetBytes
+     */
+    static <E> LatticeIndex<E> of(final IndexedDigraph<E> graph, final long budgetBytes) {
+        final int[] topological = new StronglyConnectedComponents(graph).topologicalOrder();
+        final int n = graph.size();
+        final ForestQueries forest = ForestQueries.of(graph, topological);
+        if (forest != null) {
+            return new LatticeIndex<>(graph.getElementIndex(), forest);
+        }
+        final long bytes = 2L * n * ((n + 63) >>> 6) * Long.BYTES;
+        if (bytes > budgetBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "The Hasse diagram of this poset of %d elements isn't a forest, and its lattice index would "
+                            + "need %d bytes, more than the budget of %d",
+                    n, bytes, budgetBytes));
+        }
+        return new LatticeIndex<>(graph.getElementIndex(), BitsetQueries.of(graph, topological));
+    }
+
+    /**
+     * @return the greatest element that is &le; both a and b, or null if they have no greatest lower bound
+     * @throws IllegalArgumentException if a or b isn't an element of the poset
+     */
+    public E meet(final E a, final E b) {
+        final int m = queries.meet(idOf(a), idOf(b));
+        return m < 0 ? null : elementIndex.get(m);
+    }
+
+    /**
+     * @return the least element that is &ge; both a and b, or null if they have no least upper bound
+     * @throws IllegalArgumentException if a or b isn't an element of the poset
+     */
+    public E join(final E a, final E b) {
+        final int j = queries.join(idOf(a), idOf(b));
+        return j < 0 ? null : elementIndex.get(j);
+    }
+
+    /**
+     * @return true if every pair of elements has a meet and a join
+     */
+    public boolean isLattice() { return queries.isLattice(); }
+
+    /**
+     * @return true if the Hasse diagram of the poset is a forest, so queries take O(1) time
+     */
+    public boolean isForest() { return queries instanceof ForestQueries; }
+
+    private int idOf(final E element) {
+        final int id = elementIndex.indexOf(element);
+        if (id < 0) {
+            throw new IllegalArgumentException(String.format("%s is not an element of the category", element));
+        }
+        return id;
+    }
+
+    private interface Queries {
+        // each returns an element id, or -1 if there is none
+        int meet(int a, int b);
+
+        int join(int a, int b);
+
+        boolean isLattice();
+    }
+
+    private static final class ForestQueries implements Queries {
+        // sparse table entries each cover a block of positions, which queries scan directly
+        private static final int BLOCK_BITS = 4;
+        private static final int BLOCK = 1 << BLOCK_BITS;
+
+        private final int[] parent;
+        // position of each vertex in a depth-first (preorder) traversal of the forest, and its subtree size
+        private final int[] position;
+        private final int[] subtreeSize;
+        // vertex at each position, and its depth
+        private final int[] order;
+        private final int[] orderDepth;
+        // sparse[k][b]: position of minimum depth among blocks b .. b + 2^k - 1
+        private final int[][] sparse;
+        private final boolean chain;
+
+        private ForestQueries(
+                final int[] parent,
+                final int[] position,
+                final int[] subtreeSize,
+                final int[] order,
+                final int[] orderDepth,
+                final boolean chain) {
+            this.parent = parent;
+            this.position = position;
+            this.subtreeSize = subtreeSize;
+            this.order = order;
+            this.orderDepth = orderDepth;
+            this.chain = chain;
+            final int blocks = (order.length + BLOCK - 1) >>> BLOCK_BITS;
+            final int levels = blocks == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(blocks);
+            sparse = new int[levels][];
+            if (levels > 0) {
+                final int[] base = new int[blocks];
+                for (int b = 0; b < blocks; b++) {
+                    base[b] = scanMin(b << BLOCK_BITS, Math.min((b + 1) << BLOCK_BITS, order.length) - 1);
+                }
+                sparse[0] = base;
+            }
+            for (int k = 1; k < levels; k++) {
+                final int[] previous = sparse[k - 1];
+                final int[] level = new int[blocks - (1 << k) + 1];
+                for (int b = 0; b < level.length; b++) {
+                    level[b] = minDepth(previous[b], previous[b + (1 << (k - 1))]);
+                }
+                sparse[k] = level;
+            }
+        }
+
+        /**
+         * @return the forest queries for graph, or null if its Hasse diagram isn't a forest
+         */
+        static ForestQueries of(final IndexedDigraph<?> graph, final int[] topological) {
+            final int n = graph.size();
+            final int[] offsets = graph.offsets();
+            final int[] targets = graph.targets();
+
+            // the only candidate for the lower cover of each vertex is its deepest predecessor; every vertex's
+            // predecessors are final by the time it's visited in topological order
+            final int[] parent = new int[n];
+            Arrays.fill(parent, -1);
+            final int[] depth = new int[n];
+            int maxDepth = -1;
+            for (final int u : topological) {
+                depth[u] = parent[u] < 0 ? 0 : depth[parent[u]] + 1;
+                maxDepth = Math.max(maxDepth, depth[u]);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    final int w = targets[e];
+                    if (w != u && (parent[w] < 0 || depth[u] > depth[parent[w]])) {
+                        parent[w] = u;
+                    }
+                }
+            }
+
+            // lay out the candidate forest in preorder, placing each vertex after its parent and earlier siblings
+            final int[] subtreeSize = new int[n];
+            Arrays.fill(subtreeSize, 1);
+            for (int i = n - 1; i >= 0; i--) {
+                final int v = topological[i];
+                if (parent[v] >= 0) {
+                    subtreeSize[parent[v]] += subtreeSize[v];
+                }
+            }
+            final int[] position = new int[n];
+            final int[] nextChild = new int[n];
+            int nextRoot = 0;
+            for (final int v : topological) {
+                if (parent[v] < 0) {
+                    position[v] = nextRoot;
+                    nextRoot += subtreeSize[v];
+                } else {
+                    position[v] = nextChild[parent[v]];
+                    nextChild[parent[v]] += subtreeSize[v];
+                }
+                nextChild[v] = position[v] + 1;
+            }
+
+            // the candidate is the Hasse diagram if every morphism u -> w is implied by it, i.e. if u is the parent
+            // of w or one of the parent's ancestors; its own edges are all morphisms, so it then has the same order
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    final int w = targets[e];
+                    if (w != u && !isAncestorOrSelf(position, subtreeSize, u, parent[w])) {
+                        return null;
+                    }
+                }
+            }
+
+            final int[] order = new int[n];
+            final int[] orderDepth = new int[n];
+            for (int v = 0; v < n; v++) {
+                order[position[v]] = v;
+                orderDepth[position[v]] = depth[v];
+            }
+            return new ForestQueries(parent, position, subtreeSize, order, orderDepth, maxDepth == n - 1);
+        }
+
+        @Override
+        public int meet(final int a, final int b) {
+            if (isAncestorOrSelf(position, subtreeSize, a, b)) {
+                return a;
+            } else if (isAncestorOrSelf(position, subtreeSize, b, a)) {
+                return b;
+            }
+            // the shallowest vertex between them in preorder is a child of their lowest common ancestor, or a root
+            // if they're in different trees
+            final int shallowest = order[rangeMin(
+                    Math.min(position[a], position[b]) + 1,
+                    Math.max(position[a], position[b]))];
+            return parent[shallowest];
+        }
+
+        @Override
+        public int join(final int a, final int b) {
+            // the upper sets of incomparable elements of a forest are disjoint subtrees
+            if (isAncestorOrSelf(position, subtreeSize, a, b)) {
+                return b;
+            } else if (isAncestorOrSelf(position, subtreeSize, b, a)) {
+                return a;
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean isLattice() {
+            // incomparable elements have no join, so a forest is a lattice only if it's a chain
+            return chain;
+        }
+
+        private static boolean isAncestorOrSelf(
+                final int[] position,
+                final int[] subtreeSize,
+                final int ancestor,
+                final int v) {
+            return position[ancestor] <= position[v] && position[v] < position[ancestor] + subtreeSize[ancestor];
+        }
+
+        // position of minimum depth among positions from .. to (inclusive)
+        private int rangeMin(final int from, final int to) {
+            final int fromBlock = from >>> BLOCK_BITS;
+            final int toBlock = to >>> BLOCK_BITS;
+            if (toBlock - fromBlock <= 1) {
+                return scanMin(from, to);
+            }
+            int min = minDepth(
+                    scanMin(from, ((fromBlock + 1) << BLOCK_BITS) - 1),
+                    scanMin(toBlock << BLOCK_BITS, to));
+            final int firstBlock = fromBlock + 1;
+            final int blockCount = toBlock - firstBlock;
+            final int k = 31 - Integer.numberOfLeadingZeros(blockCount);
+            min = minDepth(min, sparse[k][firstBlock]);
+            return minDepth(min, sparse[k][toBlock - (1 << k)]);
+        }
+
+        private int scanMin(final int from, final int to) {
+            int min = from;
+            for (int i = from + 1; i <= to; i++) {
+                if (orderDepth[i] < orderDepth[min]) {
+                    min = i;
+                }
+            }
+            return min;
+        }
+
+        private int minDepth(final int i, final int j) {
+            return orderDepth[j] < orderDepth[i] ? j : i;
+        }
+    }
+
+    private static final class BitsetQueries implements Queries {
+        // down[v]: the elements &le; v; up[v]: the elements &ge; v
+        private final long[][] down;
+        private final long[][] up;
+        private final int[] downCount;
+        private final int[] upCount;
+        private volatile Boolean isLattice;
+
+        private BitsetQueries(final long[][] down, final long[][] up) {
+            this.down = down;
+            this.up = up;
+            downCount = counts(down);
+            upCount = counts(up);
+        }
+
+        static BitsetQueries of(final IndexedDigraph<?> graph, final int[] topological) {
+            final int n = graph.size();
+            final int[] offsets = graph.offsets();
+            final int[] targets = graph.targets();
+            final int words = (n + 63) >>> 6;
+            final long[][] down = new long[n][words];
+            final long[][] up = new long[n][words];
+            for (int v = 0; v < n; v++) {
+                down[v][v >>> 6] |= 1L << v;
+                up[v][v >>> 6] |= 1L << v;
+            }
+            // every predecessor of u has merged its lower set into u's before u is visited in topological order,
+            // and every successor's upper set is complete before u is visited in reverse
+            for (final int u : topological) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    or(down[targets[e]], down[u]);
+                }
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                final int u = topological[i];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    or(up[u], up[targets[e]]);
+                }
+            }
+            return new BitsetQueries(down, up);
+        }
+
+        @Override
+        public int meet(final int a, final int b) {
+            return greatest(down[a], down[b], downCount);
+        }
+
+        @Override
+        public int join(final int a, final int b) {
+            return greatest(up[a], up[b], upCount);
+        }
+
+        @Override
+        public boolean isLattice() {
+            Boolean result = isLattice;
+            if (result == null) {
+                result = computeIsLattice();
+                isLattice = result;
+            }
+            return result;
+        }
+
+        // a finite poset is a lattice if it has a greatest element and every pair of elements has a meet; pairs of
+        // comparable elements always do
+        private boolean computeIsLattice() {
+            final int n = down.length;
+            if (n == 0) {
+                return true;
+            }
+            boolean hasTop = false;
+            for (int v = 0; v < n && !hasTop; v++) {
+                hasTop = downCount[v] == n;
+            }
+            if (!hasTop) {
+                return false;
+            }
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    if ((down[b][a >>> 6] & (1L << a)) == 0 && (up[b][a >>> 6] & (1L << a)) == 0
+                            && meet(a, b) < 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // the common bound is the element of x & y whose own set holds all of x & y, i.e. the one with the largest
+        // set, if its set is as large as the intersection
+        private static int greatest(final long[] x, final long[] y, final int[] counts) {
+            int best = -1;
+            int common = 0;
+            for (int w = 0; w < x.length; w++) {
+                long bits = x[w] & y[w];
+                common += Long.bitCount(bits);
+                while (bits != 0) {
+                    final int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (best < 0 || counts[v] > counts[best]) {
+                        best = v;
+                    }
+                    bits &= bits - 1;
+                }
+            }
+            return best >= 0 && counts[best] == common ? best : -1;
+        }
+
+        private static int[] counts(final long[][] sets) {
+            final int[] counts = new int[sets.length];
+            for (int v = 0; v < sets.length; v++) {
+                for (final long word : sets[v]) {
+                    counts[v] += Long.bitCount(word);
+                }
+            }
+            return counts;
+        }
+
+        private static void or(final long[] into, final long[] from) {
+            for (int w = 0; w < into.length; w++) {
+                into[w] |= from[w];
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only {@link ElementIndex} over encoded elements (e.g. in a memory-mapped file, see {@link FiniteCategoryIO}),
+ * which decodes each element the first time it is needed. Looking up the id of an element decodes and hashes all of
+ * them, once. Safe to use from multiple threads.
+ *
+ * @param <E> type of element
+ */
+final class MappedElementIndex<E> implements ElementIndex<E> {
+    private final ElementCodec<E> codec;
+    // the encodings, back to back in segments of segmentSize bytes (except the last), which an encoding may span
+    private final ByteBuffer[] segments;
+    private final long segmentSize;
+    // the start of each encoding relative to the start of the first segment, and the end of the last
+    private final LongBuffer positions;
+    private final AtomicReferenceArray<E> decoded;
+    private volatile HashElementIndex<E> hashIndex;
+
+    MappedElementIndex(
+            final ElementCodec<E> codec,
+            final ByteBuffer[] segments,
+            final long segmentSize,
+            final LongBuffer positions) {
+        this.codec = codec;
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.positions = positions;
+        this.decoded = new AtomicReferenceArray<>(positions.limit() - 1);
+    }
+
+    @Override
+    public int size() { return decoded.length(); }
+
+    @Override
+    public E get(final int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Element id %d out of range [0, %d)", id, size()));
+        }
+        E element = decoded.get(id);
+        if (element == null) {
+            element = codec.decode(encoding(id));
+            if (element == null) {
+                throw new IllegalStateException(String.format("Element %d decodes to null", id));
+            }
+            decoded.set(id, element);
+        }
+        return element;
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        HashElementIndex<E> index = hashIndex;
+        if (index == null) {
+            index = buildHashIndex();
+        }
+        return index.indexOf(element);
+    }
+
+    private synchronized HashElementIndex<E> buildHashIndex() {
+        HashElementIndex<E> index = hashIndex;
+        if (index == null) {
+            index = new HashElementIndex<>(size());
+            for (int id = 0; id < size(); id++) {
+                if (index.add(get(id)) != id) {
+                    throw new IllegalStateException(String.format("Element %d is a duplicate of an earlier one", id));
+                }
+            }
+            hashIndex = index;
+        }
+        return index;
+    }
+
+    @Override
+    public int add(final E element) {
+        throw new UnsupportedOperationException("A mapped element index cannot be modified");
+    }
+
+    // a buffer positioned at, and limited to, the encoding of an element
+    private ByteBuffer encoding(final int id) {
+        final long start = positions.get(id);
+        final int length = (int) (positions.get(id + 1) - start);
+        final ByteBuffer segment = segments[(int) (start / segmentSize)];
+        final int offset = (int) (start % segmentSize);
+        if (offset + length <= segment.limit()) {
+            return segment.slice(offset, length);
+        }
+        // the encoding spans segments, so copy it
+        final byte[] bytes = new byte[length];
+        for (int copied = 0; copied < length; ) {
+            final ByteBuffer from = segments[(int) ((start + copied) / segmentSize)];
+            final int fromOffset = (int) ((start + copied) % segmentSize);
+            final int count = Math.min(length - copied, from.limit() - fromOffset);
+            from.get(fromOffset, bytes, copied, count);
+            copied += count;
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+}
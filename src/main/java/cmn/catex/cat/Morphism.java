@@ -0,0 +1,22 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * A morphism, identified by its endpoints. Parallel morphisms between the same elements are equal.
+ *
+ * @param from source element
+ * @param to target element
+ * @param <E> type of element
+ */
+public record Morphism<E>(E from, E to) {
+
+    public static <E> Morphism<E> identity(final E element) {
+        return new Morphism<>(element, element);
+    }
+
+    public boolean isIdentity() {
+        return from.equals(to);
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntAdjacency;
+import cmn.catex.utils.IntAdjacencyView;
+import cmn.catex.utils.IntList;
+
+import java.util.*;
+
+/**
+ * Forward and reverse adjacency indexes over the elements of a category, so hom-set, reachability and predecessor
+ * queries don't have to scan the morphism map. An incremental index is maintained as elements and morphisms are
+ * added; an index over an {@link IndexedDigraph} is immutable, and safe to query from multiple threads. The reverse
+ * index is only built (in time linear in the number of morphisms) when predecessors are first queried, so creating
+ * or extending an index over a graph takes constant time.
+ *
+ * @param <E> type of element
+ */
+final class MorphismIndex<E> {
+    private final ElementIndex<E> elementIndex;
+    private final IntAdjacencyView forward;
+    // null until first needed; once built, an incremental index keeps it up to date
+    private volatile IntAdjacencyView reverse;
+
+    private MorphismIndex(final ElementIndex<E> elementIndex, final IntAdjacencyView forward) {
+        this.elementIndex = elementIndex;
+        this.forward = forward;
+    }
+
+    static <E> MorphismIndex<E> incremental(final Collection<E> elements, final Map<E, List<E>> morphisms) {
+        final HashElementIndex<E> elementIndex = new HashElementIndex<>(elements.size());
+        elements.forEach(elementIndex::add);
+        final MorphismIndex<E> index = new MorphismIndex<>(elementIndex, new IntAdjacency(elementIndex.size()));
+        morphisms.forEach((from, tos) -> tos.forEach(to -> index.addMorphism(from, to)));
+        return index;
+    }
+
+    static <E> MorphismIndex<E> of(final IndexedDigraph<E> graph) {
+        return new MorphismIndex<>(graph.getElementIndex(), graph);
+    }
+
+    /**
+     * @param extendedIndex extension of the element index of this immutable index
+     * @return an incremental index whose morphisms are initially those of this index, sharing its arrays (including
+     * those of the reverse index, if it has been built)
+     */
+    MorphismIndex<E> extend(final ElementIndex<E> extendedIndex) {
+        if (!(forward instanceof IndexedDigraph<?> forwardGraph)) {
+            throw new UnsupportedOperationException("Only an immutable index can be extended");
+        }
+        final MorphismIndex<E> extended = new MorphismIndex<>(
+                extendedIndex,
+                IntAdjacency.sharing(forwardGraph.offsets(), forwardGraph.targets()));
+        if (reverse instanceof IndexedDigraph<?> reverseGraph) {
+            extended.reverse = IntAdjacency.sharing(reverseGraph.offsets(), reverseGraph.targets());
+        }
+        return extended;
+    }
+
+    void addElement(final E element) {
+        if (!(forward instanceof IntAdjacency)) {
+            throw new UnsupportedOperationException("Elements cannot be added to an immutable index");
+        }
+        elementIndex.add(element);
+    }
+
+    void addMorphism(final E from, final E to) {
+        if (!(forward instanceof IntAdjacency forwardAdjacency)) {
+            throw new UnsupportedOperationException("Morphisms cannot be added to an immutable index");
+        }
+        final int fromId = idOf(from);
+        final int toId = idOf(to);
+        forwardAdjacency.add(fromId, toId);
+        if (reverse instanceof IntAdjacency reverseAdjacency) {
+            reverseAdjacency.add(toId, fromId);
+        }
+    }
+
+    // number of generating morphisms from -> to
+    int morphismCount(final E from, final E to) {
+        final int fromId = idOf(from);
+        final int toId = idOf(to);
+        int count = 0;
+        // scan whichever side has the smaller degree, if the reverse index has been built
+        final IntAdjacencyView reverse = this.reverse;
+        if (reverse == null || forward.degree(fromId) <= reverse.degree(toId)) {
+            for (int i = 0; i < forward.degree(fromId); i++) {
+                count += forward.target(fromId, i) == toId ? 1 : 0;
+            }
+        } else {
+            for (int i = 0; i < reverse.degree(toId); i++) {
+                count += reverse.target(toId, i) == fromId ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    // breadth-first, so elements are returned in order of distance from the start element
+    Set<E> reachable(final E from) {
+        final int fromId = idOf(from);
+        final BitSet visited = new BitSet();
+        final IntList queue = new IntList();
+        final Set<E> reached = new LinkedHashSet<>();
+        visited.set(fromId);
+        queue.add(fromId);
+        for (int head = 0; head < queue.size(); head++) {
+            final int v = queue.get(head);
+            reached.add(elementIndex.get(v));
+            for (int i = 0; i < forward.degree(v); i++) {
+                final int w = forward.target(v, i);
+                if (!visited.get(w)) {
+                    visited.set(w);
+                    queue.add(w);
+                }
+            }
+        }
+        return reached;
+    }
+
+    // true if to can be reached from from by following at least one morphism; the search stops when to is reached
+    boolean reaches(final E from, final E to) {
+        final int fromId = idOf(from);
+        final int toId = idOf(to);
+        final BitSet visited = new BitSet();
+        final IntList queue = new IntList();
+        visited.set(fromId);
+        queue.add(fromId);
+        for (int head = 0; head < queue.size(); head++) {
+            final int v = queue.get(head);
+            for (int i = 0; i < forward.degree(v); i++) {
+                final int w = forward.target(v, i);
+                if (w == toId) {
+                    return true;
+                }
+                if (!visited.get(w)) {
+                    visited.set(w);
+                    queue.add(w);
+                }
+            }
+        }
+        return false;
+    }
+
+    Set<E> predecessors(final E to) {
+        final int toId = idOf(to);
+        final IntAdjacencyView reverse = reverse();
+        final Set<E> predecessors = new LinkedHashSet<>();
+        for (int i = 0; i < reverse.degree(toId); i++) {
+            predecessors.add(elementIndex.get(reverse.target(toId, i)));
+        }
+        return predecessors;
+    }
+
+    private IntAdjacencyView reverse() {
+        IntAdjacencyView built = reverse;
+        if (built == null) {
+            built = forward instanceof IndexedDigraph<?> graph ? graph.reversed() : reversed(forward);
+            reverse = built;
+        }
+        return built;
+    }
+
+    // reverse of an incremental index, in CSR arrays shared by an adjacency that later morphisms are added to
+    private static IntAdjacency reversed(final IntAdjacencyView forward) {
+        final int n = forward.nodeCount();
+        final int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < forward.degree(v); i++) {
+                offsets[forward.target(v, i) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        final int[] targets = new int[offsets[n]];
+        final int[] next = Arrays.copyOf(offsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < forward.degree(v); i++) {
+                targets[next[forward.target(v, i)]++] = v;
+            }
+        }
+        return IntAdjacency.sharing(offsets, targets);
+    }
+
+    boolean contains(final Object element) {
+        return elementIndex.indexOf(element) >= 0;
+    }
+
+    private int idOf(final Object element) {
+        final int id = elementIndex.indexOf(element);
+        if (id < 0) {
+            throw new IllegalArgumentException(String.format("%s is not an element of this category", element));
+        }
+        return id;
+    }
+}
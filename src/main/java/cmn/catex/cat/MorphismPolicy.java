@@ -0,0 +1,24 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * How {@link FiniteMorphisms} stores a morphism that is added more than once between the same pair of elements.
+ */
+public enum MorphismPolicy {
+    /**
+     * Every morphism that is added is stored, so parallel morphisms appear once each in the target lists.
+     */
+    MULTIGRAPH,
+    /**
+     * Adding a morphism that already exists has no effect, so there is at most one morphism between any pair of
+     * elements (e.g. for posets and preorders).
+     */
+    SET,
+    /**
+     * Each pair of elements appears at most once in the target lists, and the number of times it was added is
+     * kept as an int multiplicity, rather than as repeated entries.
+     */
+    COUNTED
+}
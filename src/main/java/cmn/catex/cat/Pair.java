@@ -0,0 +1,15 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * An element of a product or pullback category (or the source of one), made of one element of each factor.
+ *
+ * @param first element of the first factor
+ * @param second element of the second factor
+ * @param <A> type of the first element
+ * @param <B> type of the second element
+ */
+public record Pair<A, B>(A first, B second) {
+}
@@ -0,0 +1,370 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * The pullback of two categories over a common category of keys: its elements are the pairs of elements with equal
+ * keys, and its morphisms are the pairs of morphisms (either of which may be an identity) whose endpoints have
+ * equal keys. With the same key for every element, this is the product of the two categories, in which one pair
+ * is reachable from another if both of its elements are.
+ *
+ * The generating morphisms of the pullback are those with exactly one identity, when the other morphism stays
+ * within a key, and pairs of generating morphisms that both change key (those that both stay within a key are
+ * composites of the first kind); pairs of composites are only matched if the factors are transitively closed.
+ *
+ * Elements are grouped by key with a hash join, and the pairs are numbered arithmetically within each group, so
+ * no pair is ever hashed. The morphisms from each pair are found with a sort-merge join of the morphisms of its
+ * elements, sorted by the key of their targets. Nothing is enumerated up front: {@link #elements()} and
+ * {@link #morphisms()} stream pairs on demand, for pullbacks too large to hold, and {@link #toCategory} builds an
+ * immutable category.
+ *
+ * @param <E> type of elements of the first factor
+ * @param <F> type of elements of the second factor
+ */
+public final class Pullback<E, F> {
+    // at most this many elements or morphisms can be held in a category
+    private static final int MAX_CATEGORY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Side<E> left;
+    private final Side<F> right;
+    // base[g]: id of the first pair of key group g; base[groupCount] is the number of pairs
+    private final long[] base;
+
+    private Pullback(final Side<E> left, final Side<F> right, final long[] base) {
+        this.left = left;
+        this.right = right;
+        this.base = base;
+    }
+
+    static <E, F> Pullback<E, F> of(
+            final IndexedDigraph<E> leftGraph,
+            final Function<? super E, ?> leftKey,
+            final IndexedDigraph<F> rightGraph,
+            final Function<? super F, ?> rightKey) {
+        // number the keys of the left in order of first appearance, and keep those that the right has as well
+        final Map<Object, Integer> keyIds = new HashMap<>();
+        final int[] leftKeyIds = new int[leftGraph.size()];
+        for (int v = 0; v < leftKeyIds.length; v++) {
+            final Object key = keyOf(leftKey, leftGraph.getElementIndex().get(v));
+            final Integer id = keyIds.putIfAbsent(key, keyIds.size());
+            leftKeyIds[v] = id == null ? keyIds.size() - 1 : id;
+        }
+        final int[] rightKeyIds = new int[rightGraph.size()];
+        final boolean[] shared = new boolean[keyIds.size()];
+        for (int v = 0; v < rightKeyIds.length; v++) {
+            final Integer id = keyIds.get(keyOf(rightKey, rightGraph.getElementIndex().get(v)));
+            rightKeyIds[v] = id == null ? -1 : id;
+            if (id != null) {
+                shared[id] = true;
+            }
+        }
+        final int[] groupOfKey = new int[shared.length];
+        int groupCount = 0;
+        for (int k = 0; k < shared.length; k++) {
+            groupOfKey[k] = shared[k] ? groupCount++ : -1;
+        }
+        for (int v = 0; v < leftKeyIds.length; v++) {
+            leftKeyIds[v] = groupOfKey[leftKeyIds[v]];
+        }
+        for (int v = 0; v < rightKeyIds.length; v++) {
+            rightKeyIds[v] = rightKeyIds[v] < 0 ? -1 : groupOfKey[rightKeyIds[v]];
+        }
+
+        final Side<E> left = new Side<>(leftGraph, leftKeyIds, groupCount);
+        final Side<F> right = new Side<>(rightGraph, rightKeyIds, groupCount);
+        final long[] base = new long[groupCount + 1];
+        for (int g = 0; g < groupCount; g++) {
+            base[g + 1] = base[g] + (long) left.groupSize(g) * right.groupSize(g);
+        }
+        return new Pullback<>(left, right, base);
+    }
+
+    /**
+     * @return the number of elements of the pullback, without enumerating them
+     */
+    public long elementCount() { return base[base.length - 1]; }
+
+    /**
+     * @return a lazy stream of the elements, grouped by key and then in the order of the elements of the factors
+     */
+    public Stream<Pair<E, F>> elements() {
+        return LongStream.range(0, elementCount()).mapToObj(this::pairAt);
+    }
+
+    /**
+     * @return a lazy stream of the generating morphisms, from each element in the order of {@link #elements()};
+     * it can be made parallel
+     */
+    public Stream<Morphism<Pair<E, F>>> morphisms() {
+        return LongStream.range(0, elementCount()).boxed().flatMap(from -> {
+            final Pair<E, F> fromPair = pairAt(from);
+            return Arrays.stream(targetsOf(from)).mapToObj(to -> new Morphism<>(fromPair, pairAt(to)));
+        });
+    }
+
+    /**
+     * @return an immutable category holding the elements and generating morphisms of the pullback, with the SET
+     * {@link MorphismPolicy}
+     * @throws IllegalArgumentException if the pullback is too large to hold (in which case, stream it instead)
+     */
+    public <S> FiniteCategory<S, Pair<E, F>> toCategory(final S source) {
+        final long size = elementCount();
+        if (size > MAX_CATEGORY_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "The pullback has %d elements, too many to hold in a category; stream its morphisms instead",
+                    size));
+        }
+        final int n = (int) size;
+        final int[] offsets = new int[n + 1];
+        final IntList targets = new IntList();
+        for (int from = 0; from < n; from++) {
+            for (final long to : targetsOf(from)) {
+                if (targets.size() == MAX_CATEGORY_SIZE) {
+                    throw new IllegalArgumentException(
+                            "The pullback has too many morphisms to hold in a category; stream them instead");
+                }
+                targets.add((int) to);
+            }
+            offsets[from + 1] = targets.size();
+        }
+        return FiniteCategory.of(
+                source,
+                new IndexedDigraph<>(new PairIndex(), offsets, targets.toArray()),
+                MorphismPolicy.SET);
+    }
+
+    private Pair<E, F> pairAt(final long id) {
+        final int g = groupOf(id);
+        final long offset = id - base[g];
+        final int rightSize = right.groupSize(g);
+        return new Pair<>(
+                left.graph.getElementIndex().get(left.member(g, (int) (offset / rightSize))),
+                right.graph.getElementIndex().get(right.member(g, (int) (offset % rightSize))));
+    }
+
+    private long pairId(final int g, final int leftPosition, final int rightPosition) {
+        return base[g] + (long) leftPosition * right.groupSize(g) + rightPosition;
+    }
+
+    private int groupOf(final long id) {
+        final int i = Arrays.binarySearch(base, id);
+        // groups are never empty, so base is strictly increasing
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // ids of the targets of the generating morphisms from a pair, in increasing order and without repeats
+    private long[] targetsOf(final long id) {
+        final int g = groupOf(id);
+        final long offset = id - base[g];
+        final int rightSize = right.groupSize(g);
+        final int i = (int) (offset / rightSize);
+        final int j = (int) (offset % rightSize);
+        final int a = left.member(g, i);
+        final int b = right.member(g, j);
+
+        int count = 0;
+        long[] row = new long[left.sameKeyDegree(a) + right.sameKeyDegree(b)];
+        // a morphism of either element within the key, paired with the identity of the other
+        for (int e = left.sameKeyOffsets[a]; e < left.sameKeyOffsets[a + 1]; e++) {
+            row[count++] = pairId(g, left.position[left.sameKeyTargets[e]], j);
+        }
+        for (int e = right.sameKeyOffsets[b]; e < right.sameKeyOffsets[b + 1]; e++) {
+            row[count++] = pairId(g, i, right.position[right.sameKeyTargets[e]]);
+        }
+        // morphisms of both elements that change key, merged on the key of their targets
+        int x = left.crossKeyOffsets[a];
+        int y = right.crossKeyOffsets[b];
+        final int xEnd = left.crossKeyOffsets[a + 1];
+        final int yEnd = right.crossKeyOffsets[b + 1];
+        while (x < xEnd && y < yEnd) {
+            final int h = left.group[left.crossKeyTargets[x]];
+            final int k = right.group[right.crossKeyTargets[y]];
+            if (h < k) {
+                x++;
+            } else if (k < h) {
+                y++;
+            } else {
+                int xRunEnd = x;
+                while (xRunEnd < xEnd && left.group[left.crossKeyTargets[xRunEnd]] == h) {
+                    xRunEnd++;
+                }
+                int yRunEnd = y;
+                while (yRunEnd < yEnd && right.group[right.crossKeyTargets[yRunEnd]] == h) {
+                    yRunEnd++;
+                }
+                final int needed = count + (xRunEnd - x) * (yRunEnd - y);
+                if (needed > row.length) {
+                    row = Arrays.copyOf(row, Math.max(needed, row.length * 2));
+                }
+                for (int p = x; p < xRunEnd; p++) {
+                    for (int q = y; q < yRunEnd; q++) {
+                        row[count++] = pairId(
+                                h,
+                                left.position[left.crossKeyTargets[p]],
+                                right.position[right.crossKeyTargets[q]]);
+                    }
+                }
+                x = xRunEnd;
+                y = yRunEnd;
+            }
+        }
+
+        // drop the repeats that come from parallel morphisms of the factors
+        Arrays.sort(row, 0, count);
+        int unique = 0;
+        for (int r = 0; r < count; r++) {
+            if (unique == 0 || row[r] != row[unique - 1]) {
+                row[unique++] = row[r];
+            }
+        }
+        return unique == row.length ? row : Arrays.copyOf(row, unique);
+    }
+
+    private static Object keyOf(final Function<?, ?> key, final Object element) {
+        @SuppressWarnings("unchecked") final Object k = ((Function<Object, ?>) key).apply(element);
+        if (k == null) {
+            throw new IllegalArgumentException(String.format("The key of %s is null", element));
+        }
+        return k;
+    }
+
+    // one factor of the pullback, with its elements grouped by key, and its morphisms split by whether they change
+    // key (morphisms to elements whose keys the other factor lacks, and identities, are dropped)
+    private static final class Side<T> {
+        final IndexedDigraph<T> graph;
+        // key group of each element (or -1), and its position within the group
+        final int[] group;
+        final int[] position;
+        // members of group g are members[starts[g] .. starts[g + 1]), in id order
+        final int[] starts;
+        final int[] members;
+        final int[] sameKeyOffsets;
+        final int[] sameKeyTargets;
+        // sorted by the group of the target within each row
+        final int[] crossKeyOffsets;
+        final int[] crossKeyTargets;
+
+        Side(final IndexedDigraph<T> graph, final int[] group, final int groupCount) {
+            this.graph = graph;
+            this.group = group;
+            final int n = graph.size();
+            starts = new int[groupCount + 1];
+            for (final int g : group) {
+                if (g >= 0) {
+                    starts[g + 1]++;
+                }
+            }
+            for (int g = 0; g < groupCount; g++) {
+                starts[g + 1] += starts[g];
+            }
+            members = new int[starts[groupCount]];
+            position = new int[n];
+            final int[] next = Arrays.copyOf(starts, groupCount);
+            for (int v = 0; v < n; v++) {
+                if (group[v] >= 0) {
+                    position[v] = next[group[v]] - starts[group[v]];
+                    members[next[group[v]]++] = v;
+                } else {
+                    position[v] = -1;
+                }
+            }
+
+            final int[] offsets = graph.offsets();
+            final int[] targets = graph.targets();
+            sameKeyOffsets = new int[n + 1];
+            crossKeyOffsets = new int[n + 1];
+            final IntList same = new IntList();
+            final IntList cross = new IntList();
+            for (int v = 0; v < n; v++) {
+                if (group[v] >= 0) {
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        final int w = targets[e];
+                        if (w == v || group[w] < 0) {
+                            continue;
+                        }
+                        if (group[w] == group[v]) {
+                            same.add(w);
+                        } else {
+                            cross.add(w);
+                        }
+                    }
+                }
+                sameKeyOffsets[v + 1] = same.size();
+                crossKeyOffsets[v + 1] = cross.size();
+            }
+            sameKeyTargets = same.toArray();
+
+            // sort each row by target group, with a counting sort of all the targets by group, and then a stable
+            // one by row
+            final int crossCount = cross.size();
+            final int[] rowOf = new int[crossCount];
+            for (int v = 0; v < n; v++) {
+                Arrays.fill(rowOf, crossKeyOffsets[v], crossKeyOffsets[v + 1], v);
+            }
+            final int[] groupStarts = new int[groupCount + 1];
+            for (int e = 0; e < crossCount; e++) {
+                groupStarts[group[cross.get(e)] + 1]++;
+            }
+            for (int g = 0; g < groupCount; g++) {
+                groupStarts[g + 1] += groupStarts[g];
+            }
+            final int[] byGroup = new int[crossCount];
+            for (int e = 0; e < crossCount; e++) {
+                byGroup[groupStarts[group[cross.get(e)]]++] = e;
+            }
+            crossKeyTargets = new int[crossCount];
+            final int[] nextInRow = Arrays.copyOf(crossKeyOffsets, n);
+            for (final int e : byGroup) {
+                crossKeyTargets[nextInRow[rowOf[e]]++] = cross.get(e);
+            }
+        }
+
+        int groupSize(final int g) { return starts[g + 1] - starts[g]; }
+
+        int member(final int g, final int position) { return members[starts[g] + position]; }
+
+        int sameKeyDegree(final int v) { return sameKeyOffsets[v + 1] - sameKeyOffsets[v]; }
+    }
+
+    // element index over the pair ids, which are computed rather than stored
+    private final class PairIndex implements ElementIndex<Pair<E, F>> {
+        @Override
+        public int size() { return (int) elementCount(); }
+
+        @Override
+        public Pair<E, F> get(final int id) {
+            if (id < 0 || id >= size()) {
+                throw new IndexOutOfBoundsException(String.format("Element id %d out of range [0, %d)", id, size()));
+            }
+            return pairAt(id);
+        }
+
+        @Override
+        public int indexOf(final Object element) {
+            if (!(element instanceof Pair<?, ?> pair)) {
+                return -1;
+            }
+            final int a = left.graph.getElementIndex().indexOf(pair.first());
+            final int b = right.graph.getElementIndex().indexOf(pair.second());
+            if (a < 0 || b < 0 || left.group[a] < 0 || left.group[a] != right.group[b]) {
+                return -1;
+            }
+            return (int) pairId(left.group[a], left.position[a], right.position[b]);
+        }
+
+        @Override
+        public int add(final Pair<E, F> element) {
+            throw new UnsupportedOperationException("The elements of a pullback cannot be modified");
+        }
+    }
+}
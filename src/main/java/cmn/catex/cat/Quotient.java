@@ -0,0 +1,182 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The quotient of a category by its strongly connected components: elements that are reachable from each other
+ * (isomorphic, in a preorder) are collapsed into a single class, and there is a morphism from one class to another
+ * if there is a morphism between any of their members. The quotient of a preorder is a poset.
+ *
+ * Classes are numbered, and are represented in the quotient category by their first member, in the order of the
+ * original category's elements.
+ *
+ * @param <S> type of originating source object
+ * @param <E> type of elements
+ */
+public final class Quotient<S, E> {
+    private final ElementIndex<E> elementIndex;
+    private final FiniteCategory<S, E> category;
+    // class id of each element id
+    private final int[] classOf;
+    // members of class c are members[memberStarts[c] .. memberStarts[c + 1]), in element id order
+    private final int[] memberStarts;
+    private final int[] members;
+
+    private Quotient(
+            final ElementIndex<E> elementIndex,
+            final FiniteCategory<S, E> category,
+            final int[] classOf,
+            final int[] memberStarts,
+            final int[] members) {
+        this.elementIndex = elementIndex;
+        this.category = category;
+        this.classOf = classOf;
+        this.memberStarts = memberStarts;
+        this.members = members;
+    }
+
+    /**
+     * Collapse the strongly connected components of graph, in O(V + E) time.
+     */
+    static <S, E> Quotient<S, E> of(final S source, final IndexedDigraph<E> graph) {
+        final int n = graph.size();
+        final StronglyConnectedComponents components = new StronglyConnectedComponents(graph);
+        final ElementIndex<E> elementIndex = graph.getElementIndex();
+
+        // renumber the components in order of their first member
+        final int[] classOfComponent = new int[components.componentCount()];
+        Arrays.fill(classOfComponent, -1);
+        final int[] classOf = new int[n];
+        final HashElementIndex<E> representatives = new HashElementIndex<>(components.componentCount());
+        for (int v = 0; v < n; v++) {
+            final int component = components.componentOf(v);
+            if (classOfComponent[component] < 0) {
+                classOfComponent[component] = representatives.add(elementIndex.get(v));
+            }
+            classOf[v] = classOfComponent[component];
+        }
+        final int classCount = representatives.size();
+
+        final int[] memberStarts = new int[classCount + 1];
+        for (final int c : classOf) {
+            memberStarts[c + 1]++;
+        }
+        for (int c = 0; c < classCount; c++) {
+            memberStarts[c + 1] += memberStarts[c];
+        }
+        final int[] members = new int[n];
+        final int[] nextMember = Arrays.copyOf(memberStarts, classCount);
+        for (int v = 0; v < n; v++) {
+            members[nextMember[classOf[v]]++] = v;
+        }
+
+        // gather the morphisms between classes, dropping those within a class (which become identities) and
+        // repeats (which are parallel morphisms of the quotient), visiting members class by class
+        final int[] graphOffsets = graph.offsets();
+        final int[] graphTargets = graph.targets();
+        final int[] offsets = new int[classCount + 1];
+        final IntList targets = new IntList();
+        final int[] lastSource = new int[classCount];
+        Arrays.fill(lastSource, -1);
+        for (int c = 0; c < classCount; c++) {
+            for (int m = memberStarts[c]; m < memberStarts[c + 1]; m++) {
+                final int v = members[m];
+                for (int e = graphOffsets[v]; e < graphOffsets[v + 1]; e++) {
+                    final int d = classOf[graphTargets[e]];
+                    if (d != c && lastSource[d] != c) {
+                        lastSource[d] = c;
+                        targets.add(d);
+                    }
+                }
+            }
+            offsets[c + 1] = targets.size();
+        }
+        final IndexedDigraph<E> quotientGraph = new IndexedDigraph<>(representatives, offsets, targets.toArray());
+        return new Quotient<>(
+                elementIndex,
+                FiniteCategory.of(source, quotientGraph, MorphismPolicy.SET),
+                classOf,
+                memberStarts,
+                members);
+    }
+
+    /**
+     * @return the quotient category, an immutable poset whose elements are the class representatives
+     */
+    public FiniteCategory<S, E> getCategory() { return category; }
+
+    public int classCount() { return memberStarts.length - 1; }
+
+    /**
+     * @return the id (0..classCount()-1) of the class of an element of the original category
+     * @throws IllegalArgumentException if element isn't in the original category
+     */
+    public int classIdOf(final E element) {
+        final int id = elementIndex.indexOf(element);
+        if (id < 0) {
+            throw new IllegalArgumentException(String.format("%s is not an element of the category", element));
+        }
+        return classOf[id];
+    }
+
+    /**
+     * @return the representative of the class of an element of the original category
+     * @throws IllegalArgumentException if element isn't in the original category
+     */
+    public E classOf(final E element) {
+        return representative(classIdOf(element));
+    }
+
+    /**
+     * @return the representative of a class, which is its first member
+     */
+    public E representative(final int classId) {
+        return elementIndex.get(members[memberStarts[checkClassId(classId)]]);
+    }
+
+    /**
+     * @return the members of a class, in the order of the original category's elements
+     */
+    public List<E> members(final int classId) {
+        final int start = memberStarts[checkClassId(classId)];
+        final int size = memberStarts[classId + 1] - start;
+        return new MemberList(start, size);
+    }
+
+    private int checkClassId(final int classId) {
+        if (classId < 0 || classId >= classCount()) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Class id %d out of range [0, %d)", classId, classCount()));
+        }
+        return classId;
+    }
+
+    private final class MemberList extends AbstractList<E> implements RandomAccess {
+        private final int start;
+        private final int size;
+
+        private MemberList(final int start, final int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public E get(final int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException(String.format("Member %d out of range [0, %d)", i, size));
+            }
+            return elementIndex.get(members[start + i]);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
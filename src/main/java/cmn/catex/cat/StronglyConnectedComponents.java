@@ -0,0 +1,126 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of an {@link IndexedDigraph}, computed with an iterative (explicit stack) version of
+ * Tarjan's algorithm, so deep graphs can't overflow the call stack.
+ *
+ * Components are numbered in the order Tarjan's algorithm completes them, which is a reverse topological order of
+ * the condensation: every morphism from a vertex in component c leads to a vertex in component c or in a component
+ * with a smaller number.
+ */
+final class StronglyConnectedComponents {
+    private static final int UNVISITED = -1;
+
+    private final int[] componentOf;
+    private final int componentCount;
+
+    StronglyConnectedComponents(final IndexedDigraph<?> graph) {
+        final int n = graph.size();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+
+        componentOf = new int[n];
+        Arrays.fill(componentOf, UNVISITED);
+        final int[] discovery = new int[n];
+        Arrays.fill(discovery, UNVISITED);
+        final int[] lowLink = new int[n];
+        // vertices that have been discovered but not yet assigned to a component
+        final int[] tarjanStack = new int[n];
+        int tarjanTop = 0;
+        // depth-first search path, and the position within each path vertex's targets
+        final int[] callStack = new int[n];
+        final int[] nextEdge = new int[n];
+        int discovered = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (discovery[root] != UNVISITED) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = root;
+            discovery[root] = lowLink[root] = discovered++;
+            nextEdge[root] = offsets[root];
+            tarjanStack[tarjanTop++] = root;
+            while (callTop > 0) {
+                final int v = callStack[callTop - 1];
+                if (nextEdge[v] < offsets[v + 1]) {
+                    final int w = targets[nextEdge[v]++];
+                    if (discovery[w] == UNVISITED) {
+                        discovery[w] = lowLink[w] = discovered++;
+                        nextEdge[w] = offsets[w];
+                        tarjanStack[tarjanTop++] = w;
+                        callStack[callTop++] = w;
+                    } else if (componentOf[w] == UNVISITED) {
+                        // w is still on the Tarjan stack
+                        lowLink[v] = Math.min(lowLink[v], discovery[w]);
+                    }
+                } else {
+                    callTop--;
+                    if (lowLink[v] == discovery[v]) {
+                        int w;
+                        do {
+                            w = tarjanStack[--tarjanTop];
+                            componentOf[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                    if (callTop > 0) {
+                        final int parent = callStack[callTop - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                    }
+                }
+            }
+        }
+        componentCount = components;
+    }
+
+    int componentOf(final int v) { return componentOf[v]; }
+
+    int componentCount() { return componentCount; }
+
+    boolean isAcyclicIgnoringSelfLoops() { return componentCount == componentOf.length; }
+
+    /**
+     * @return the vertex ids in a topological order (every vertex before the targets of its morphisms, other than
+     * self-loops)
+     * @throws IllegalArgumentException if the graph has a cycle of non-identity morphisms
+     */
+    int[] topologicalOrder() {
+        if (!isAcyclicIgnoringSelfLoops()) {
+            throw new IllegalArgumentException("The category has a cycle of non-identity morphisms");
+        }
+        // each component is a single vertex, and components are in reverse topological order
+        final int n = componentOf.length;
+        final int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            order[n - 1 - componentOf[v]] = v;
+        }
+        return order;
+    }
+
+    /**
+     * @return vertex ids grouped by component, in component order: the members of component c are
+     * {@code members[starts[c] .. starts[c + 1])}, in increasing id order
+     */
+    int[][] membersByComponent() {
+        final int[] starts = new int[componentCount + 1];
+        for (final int c : componentOf) {
+            starts[c + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            starts[c + 1] += starts[c];
+        }
+        final int[] members = new int[componentOf.length];
+        final int[] next = Arrays.copyOf(starts, componentCount);
+        for (int v = 0; v < componentOf.length; v++) {
+            members[next[componentOf[v]]++] = v;
+        }
+        return new int[][] { starts, members };
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+/**
+ * An element of a coproduct category, tagged with the summand it came from, so equal elements of different
+ * summands stay distinct.
+ *
+ * @param tag 0 for the first summand, 1 for the second
+ * @param element element of the summand
+ * @param <E> type of element
+ */
+public record Tagged<E>(int tag, E element) {
+}
@@ -0,0 +1,214 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import cmn.catex.utils.IntList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Lazy topological orders of an {@link IndexedDigraph}, by Kahn's algorithm directly over its adjacency arrays:
+ * only the in-degrees are computed up front, and each element is released once all of its predecessors have been
+ * returned. Self-loops (identities) are ignored.
+ *
+ * If the graph has a cycle, iteration returns every element that isn't on or after the cycle, and then throws
+ * IllegalArgumentException.
+ */
+final class TopologicalOrder {
+    // layers smaller than this are expanded on the calling thread
+    static final int PARALLEL_LAYER_SIZE = 4096;
+
+    private TopologicalOrder() {}
+
+    /**
+     * @return the elements of graph, each after all the elements that have morphisms to it; elements are
+     * otherwise returned in the order they're released, starting from the minimal elements in id order
+     */
+    static <E> Iterator<E> iterator(final IndexedDigraph<E> graph) {
+        return new KahnIterator<>(graph);
+    }
+
+    // not SIZED, since a graph with a cycle yields fewer than graph.size() elements before the iterator throws
+    static <E> Spliterator<E> spliterator(final IndexedDigraph<E> graph) {
+        return Spliterators.spliteratorUnknownSize(
+                iterator(graph),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * @param pool pool on which to release the next layer from a large layer, or null to use the calling thread
+     * @return the elements of graph in layers, in id order within each layer: the first layer is the minimal
+     * elements, and each later layer is the elements whose predecessors are all in earlier layers, so each layer
+     * is an antichain
+     */
+    static <E> Iterator<List<E>> layers(final IndexedDigraph<E> graph, final ForkJoinPool pool) {
+        return new LayerIterator<>(graph, pool);
+    }
+
+    private static int[] inDegrees(final IndexedDigraph<?> graph) {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final int[] inDegree = new int[graph.size()];
+        for (int u = 0; u < graph.size(); u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (targets[e] != u) {
+                    inDegree[targets[e]]++;
+                }
+            }
+        }
+        return inDegree;
+    }
+
+    private static IllegalArgumentException cycle(final int released, final int size) {
+        return new IllegalArgumentException(String.format(
+                "The category has a cycle of non-identity morphisms: only %d of %d elements can be ordered",
+                released, size));
+    }
+
+    private static final class KahnIterator<E> implements Iterator<E> {
+        private final IndexedDigraph<E> graph;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] inDegree;
+        // every element is queued exactly once, so the queue never wraps
+        private final int[] queue;
+        private int head;
+        private int tail;
+
+        KahnIterator(final IndexedDigraph<E> graph) {
+            this.graph = graph;
+            offsets = graph.offsets();
+            targets = graph.targets();
+            inDegree = inDegrees(graph);
+            queue = new int[graph.size()];
+            for (int v = 0; v < inDegree.length; v++) {
+                if (inDegree[v] == 0) {
+                    queue[tail++] = v;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (head < tail) {
+                return true;
+            } else if (head < queue.length) {
+                throw cycle(head, queue.length);
+            }
+            return false;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int u = queue[head++];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                final int w = targets[e];
+                if (w != u && --inDegree[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+            return graph.getElementIndex().get(u);
+        }
+    }
+
+    private static final class LayerIterator<E> implements Iterator<List<E>> {
+        private final IndexedDigraph<E> graph;
+        private final ForkJoinPool pool;
+        private final AtomicIntegerArray inDegree;
+        // the next layer to return, or null if it hasn't been released from the last layer returned yet
+        private int[] layer;
+        private int[] lastLayer;
+        private int released;
+
+        LayerIterator(final IndexedDigraph<E> graph, final ForkJoinPool pool) {
+            this.graph = graph;
+            this.pool = pool;
+            final int[] inDegrees = inDegrees(graph);
+            inDegree = new AtomicIntegerArray(inDegrees);
+            layer = IntStream.range(0, inDegrees.length).filter(v -> inDegrees[v] == 0).toArray();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (layer == null) {
+                layer = release(lastLayer);
+                lastLayer = null;
+            }
+            if (layer.length > 0) {
+                return true;
+            } else if (released < graph.size()) {
+                throw cycle(released, graph.size());
+            }
+            return false;
+        }
+
+        @Override
+        public List<E> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int[] result = layer;
+            released += result.length;
+            lastLayer = result;
+            layer = null;
+            return new ElementList<>(graph.getElementIndex(), result);
+        }
+
+        // the elements whose last predecessors are in from, in id order
+        private int[] release(final int[] from) {
+            final int[] offsets = graph.offsets();
+            final int[] targets = graph.targets();
+            final int[] next;
+            if (pool != null && from.length >= PARALLEL_LAYER_SIZE) {
+                next = pool.submit(() -> Arrays.stream(from).parallel()
+                        .flatMap(u -> IntStream.range(offsets[u], offsets[u + 1])
+                                .map(e -> targets[e])
+                                .filter(w -> w != u && inDegree.decrementAndGet(w) == 0))
+                        .toArray()).join();
+            } else {
+                final IntList nextLayer = new IntList();
+                for (final int u : from) {
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        final int w = targets[e];
+                        if (w != u && inDegree.decrementAndGet(w) == 0) {
+                            nextLayer.add(w);
+                        }
+                    }
+                }
+                next = nextLayer.toArray();
+            }
+            Arrays.sort(next);
+            return next;
+        }
+    }
+
+    private static final class ElementList<E> extends AbstractList<E> implements RandomAccess {
+        private final ElementIndex<E> elementIndex;
+        private final int[] ids;
+
+        private ElementList(final ElementIndex<E> elementIndex, final int[] ids) {
+            this.elementIndex = elementIndex;
+            this.ids = ids;
+        }
+
+        @Override
+        public E get(final int i) { return elementIndex.get(ids[i]); }
+
+        @Override
+        public int size() { return ids.length; }
+    }
+}
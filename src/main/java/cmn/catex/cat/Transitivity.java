@@ -0,0 +1,174 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.cat;
+
+import java.util.Arrays;
+
+/**
+ * Word-parallel (bitset) transitive closure and transitive reduction over an {@link IndexedDigraph}.
+ *
+ * Both work on the condensation of the graph in the reverse topological order produced by
+ * {@link StronglyConnectedComponents}, so each vertex's descendants are the union of its successors' descendants,
+ * computed 64 vertices at a time with bitwise OR.
+ */
+final class Transitivity {
+    // upper bound on the size of the reachable bitsets held at once by closure
+    static final long DEFAULT_CLOSURE_BUDGET_BYTES = 256L << 20;
+    // upper bound on the size of the descendant bitsets held at once by transitiveReduction
+    static final long DEFAULT_REDUCTION_BUDGET_BYTES = 256L << 20;
+
+    private Transitivity() {}
+
+    /**
+     * Compute the transitive closure: morphisms from each vertex to every vertex reachable from it by a non-empty
+     * path (other than itself), in increasing id order and without duplicates.
+     *
+     * Rather than materializing the reachable set of every component at once, target vertices are processed in
+     * blocks sized so that the reachable bitsets for one block fit within budgetBytes.
+     */
+    static <E> IndexedFiniteMorphisms<E> closure(final IndexedDigraph<E> graph, final long budgetBytes) {
+        final int n = graph.size();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final StronglyConnectedComponents components = new StronglyConnectedComponents(graph);
+        final int componentCount = components.componentCount();
+        final int[][] grouped = components.membersByComponent();
+        final int[] starts = grouped[0];
+        final int[] members = grouped[1];
+
+        final IndexedFiniteMorphisms<E> closure =
+                new IndexedFiniteMorphisms<>(new HashElementIndex<>(graph.getElementIndex()));
+        // last component that merged in component d's row, so each condensed edge is merged once per block
+        final int[] lastMerged = new int[componentCount];
+        final int maxWords = (n + 63) >>> 6;
+        final long maxBlockWords = Math.min(budgetBytes / 8L, Integer.MAX_VALUE - 8) / Math.max(componentCount, 1);
+        final int blockWords = (int) Math.max(1, Math.min(maxWords, maxBlockWords));
+        for (int lo = 0; lo < n; lo += blockWords << 6) {
+            final int hi = (int) Math.min(n, lo + ((long) blockWords << 6));
+            final int words = (hi - lo + 63) >>> 6;
+            // reach[c * words ..]: the members of component c and of every component reachable from it, in [lo, hi)
+            final long[] reach = new long[componentCount * words];
+            Arrays.fill(lastMerged, -1);
+            for (int c = 0; c < componentCount; c++) {
+                final int base = c * words;
+                for (int m = starts[c]; m < starts[c + 1]; m++) {
+                    final int v = members[m];
+                    if (v >= lo && v < hi) {
+                        reach[base + ((v - lo) >>> 6)] |= 1L << (v - lo);
+                    }
+                }
+                for (int m = starts[c]; m < starts[c + 1]; m++) {
+                    final int v = members[m];
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        final int d = components.componentOf(targets[e]);
+                        if (d != c && lastMerged[d] != c) {
+                            lastMerged[d] = c;
+                            or(reach, base, d * words, words);
+                        }
+                    }
+                }
+            }
+
+            // blocks are in increasing id order, so each vertex's targets are added in increasing order
+            for (int v = 0; v < n; v++) {
+                final int base = components.componentOf(v) * words;
+                for (int w = 0; w < words; w++) {
+                    for (long bits = reach[base + w]; bits != 0; bits &= bits - 1) {
+                        final int t = lo + (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (t != v) {
+                            closure.addById(v, t);
+                        }
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Compute the transitive reduction (Hasse diagram) of an acyclic graph: the morphisms that are not implied by
+     * composing other morphisms, in their original order. Duplicate morphisms and self-loops are dropped.
+     *
+     * Rather than materializing all n^2 descendant bits at once, target vertices are processed in blocks sized so
+     * that the descendant bitsets for one block fit within budgetBytes.
+     *
+     * @throws IllegalArgumentException if the graph has a cycle (other than a self-loop)
+     */
+    static <E> IndexedFiniteMorphisms<E> reduction(final IndexedDigraph<E> graph, final long budgetBytes) {
+        final int n = graph.size();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+        final StronglyConnectedComponents components = new StronglyConnectedComponents(graph);
+        if (!components.isAcyclicIgnoringSelfLoops()) {
+            throw new IllegalArgumentException("The transitive reduction is only defined for acyclic categories");
+        }
+        // every component is a single vertex, so the members in component order are a reverse topological order
+        final int[] reverseTopological = components.membersByComponent()[1];
+
+        // mark self-loops and repeated morphisms as redundant up front
+        final boolean[] redundant = new boolean[targets.length];
+        final int[] lastSource = new int[n];
+        Arrays.fill(lastSource, -1);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                final int w = targets[e];
+                if (w == v || lastSource[w] == v) {
+                    redundant[e] = true;
+                }
+                lastSource[w] = v;
+            }
+        }
+
+        final int maxWords = (n + 63) >>> 6;
+        final int blockWords = (int) Math.max(1, Math.min(maxWords, budgetBytes / (8L * Math.max(n, 1))));
+        for (int lo = 0; lo < n; lo += blockWords << 6) {
+            final int hi = Math.min(n, lo + (blockWords << 6));
+            final int words = (hi - lo + 63) >>> 6;
+            // descendants[v * words ..]: the proper descendants of v that are in [lo, hi)
+            final long[] descendants = new long[n * words];
+            final long[] successorDescendants = new long[words];
+            for (final int v : reverseTopological) {
+                Arrays.fill(successorDescendants, 0L);
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if (!redundant[e]) {
+                        final int w = targets[e];
+                        for (int i = 0; i < words; i++) {
+                            successorDescendants[i] |= descendants[w * words + i];
+                        }
+                    }
+                }
+                // a morphism v -> w is implied by a composite iff w is a proper descendant of another successor
+                final int base = v * words;
+                System.arraycopy(successorDescendants, 0, descendants, base, words);
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    final int w = targets[e];
+                    if (w >= lo && w < hi && !redundant[e]) {
+                        final int bit = w - lo;
+                        if ((successorDescendants[bit >>> 6] & (1L << bit)) != 0) {
+                            redundant[e] = true;
+                        }
+                        descendants[base + (bit >>> 6)] |= 1L << bit;
+                    }
+                }
+            }
+        }
+
+        final IndexedFiniteMorphisms<E> reduction =
+                new IndexedFiniteMorphisms<>(new HashElementIndex<>(graph.getElementIndex()));
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (!redundant[e]) {
+                    reduction.addById(v, targets[e]);
+                }
+            }
+        }
+        return reduction;
+    }
+
+    private static void or(final long[] words, final int into, final int from, final int length) {
+        for (int i = 0; i < length; i++) {
+            words[into + i] |= words[from + i];
+        }
+    }
+}
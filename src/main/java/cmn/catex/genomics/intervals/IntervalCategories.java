@@ -0,0 +1,203 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.HashElementIndex;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.cat.Quotient;
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
+import cmn.catex.utils.IntList;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import htsjdk.utils.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Build categories whose elements are the intervals in an {@link IntervalList}, and whose morphisms are given by an
+ * {@link IntervalRelation}. The full relation is computed with a sorted sweep line in O(n log n + k) time, so the
+ * input does not need to be sorted.
+ *
+ * Morphisms never cross contigs, so each contig is swept independently; the parallel variants sweep contigs
+ * concurrently on a {@link ForkJoinPool}. Either way, the result is identical and deterministic. Interval relations
+ * are sets of pairs, so the categories use {@link MorphismPolicy#SET}, and adding a morphism to one that is
+ * already present has no effect.
+ */
+public class IntervalCategories {
+
+    // poset where < => contains
+    public static FiniteCategory<IntervalList, Interval> toContainsCategory(final IntervalList intervalList) {
+        return toCategory(intervalList, IntervalRelation.CONTAINS);
+    }
+
+    // preorder where < => overlaps
+    public static FiniteCategory<IntervalList, Interval> toOverlapsCategory(final IntervalList intervalList) {
+        return toCategory(intervalList, IntervalRelation.OVERLAPS);
+    }
+
+    public static FiniteCategory<IntervalList, Interval> toCategory(
+            final IntervalList intervalList,
+            final IntervalRelation relation) {
+        return toCategory(intervalList, relation, null);
+    }
+
+    public static FiniteCategory<IntervalList, Interval> toCategoryParallel(
+            final IntervalList intervalList,
+            final IntervalRelation relation) {
+        return toCategory(intervalList, relation, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool on which to sweep contigs concurrently, or null to sweep them sequentially on the calling
+     *             thread
+     */
+    public static FiniteCategory<IntervalList, Interval> toCategory(
+            final IntervalList intervalList,
+            final IntervalRelation relation,
+            final ForkJoinPool pool) {
+        ValidationUtils.validateArg(intervalList != null, "intervalList cannot be null");
+        ValidationUtils.validateArg(relation != null, "relation cannot be null");
+
+        final List<Interval> intervals = intervalList.getIntervals();
+        final HashElementIndex<Interval> elementIndex = new HashElementIndex<>(intervals.size());
+        final IntervalSweep sweep = IntervalSweep.of(
+                intervals,
+                intervalList.getHeader().getSequenceDictionary(),
+                elementIndex);
+        final IndexedFiniteMorphisms<Interval> morphisms =
+                new IndexedFiniteMorphisms<>(elementIndex, MorphismPolicy.SET);
+        Metrics.run(Phase.BUILD_MORPHISMS, "IntervalCategories.toCategory",
+                () -> sweepAll(sweep, relation, pool, morphisms::addById));
+        // the sweep only relates indexed intervals, so the morphisms don't need to be re-validated
+        final FiniteCategory<IntervalList, Interval> category =
+                FiniteCategory.ofTrusted(intervalList, elementsInOrder(elementIndex), morphisms);
+        Metrics.categoryBuilt("IntervalCategories.toCategory", category::getStats);
+        return category;
+    }
+
+    /**
+     * Build an immutable category, equal to the one built by {@link #toCategory}, whose elements are stored
+     * off-heap in an {@link OffHeapIntervalIndex} rather than as {@link Interval} objects. The category still
+     * references intervalList as its source; to avoid holding the intervals on the heap at all, stream them into
+     * an {@link OffHeapIntervalSink} instead.
+     *
+     * @param pool pool on which to sweep contigs concurrently, or null to sweep them sequentially on the calling
+     *             thread
+     */
+    public static FiniteCategory<IntervalList, Interval> toOffHeapCategory(
+            final IntervalList intervalList,
+            final IntervalRelation relation,
+            final ForkJoinPool pool) {
+        ValidationUtils.validateArg(intervalList != null, "intervalList cannot be null");
+        ValidationUtils.validateArg(relation != null, "relation cannot be null");
+
+        final List<Interval> intervals = intervalList.getIntervals();
+        final OffHeapIntervalSink sink = new OffHeapIntervalSink(new OffHeapIntervalIndex(intervals.size()));
+        final IntervalSweep sweep = IntervalSweep.of(
+                intervals,
+                intervalList.getHeader().getSequenceDictionary(),
+                sink.getElementIndex());
+        final FiniteCategory<IntervalList, Interval> category =
+                Metrics.time(Phase.BUILD_MORPHISMS, "IntervalCategories.toOffHeapCategory", () -> {
+                    sweepAll(sweep, relation, pool, sink::addMorphismById);
+                    return sink.toCategory(intervalList);
+                });
+        Metrics.categoryBuilt("IntervalCategories.toOffHeapCategory", category::getStats);
+        return category;
+    }
+
+    private static void sweepAll(
+            final IntervalSweep sweep,
+            final IntervalRelation relation,
+            final ForkJoinPool pool,
+            final IntervalSweep.EdgeConsumer edgeConsumer) {
+        final int[][] partitions = sweep.contigPartitions();
+        if (pool == null) {
+            for (final int[] partition : partitions) {
+                sweep.sweep(sweep.sorted(partition), relation, edgeConsumer);
+            }
+            return;
+        }
+        // each contig accumulates its (from, to) id pairs in its own buffer; the buffers are merged in contig
+        // order so the result doesn't depend on scheduling
+        final List<ForkJoinTask<IntList>> tasks = new ArrayList<>(partitions.length);
+        for (final int[] partition : partitions) {
+            tasks.add(pool.submit(() -> {
+                final IntList edges = new IntList();
+                sweep.sweep(sweep.sorted(partition), relation, (from, to) -> {
+                    edges.add(from);
+                    edges.add(to);
+                });
+                return edges;
+            }));
+        }
+        for (final ForkJoinTask<IntList> task : tasks) {
+            final IntList edges = task.join();
+            for (int i = 0; i < edges.size(); i += 2) {
+                edgeConsumer.accept(edges.get(i), edges.get(i + 1));
+            }
+        }
+    }
+
+    // a LinkedHashSet, which the category adopts rather than copies
+    private static LinkedHashSet<Interval> elementsInOrder(final HashElementIndex<Interval> elementIndex) {
+        final LinkedHashSet<Interval> elements = new LinkedHashSet<>(elementIndex.size() * 2);
+        for (int id = 0; id < elementIndex.size(); id++) {
+            elements.add(elementIndex.get(id));
+        }
+        return elements;
+    }
+
+    /**
+     * @param overlapClusters quotient of an overlaps category, whose classes are the clusters of transitively
+     *                        overlapping intervals
+     * @return for each class, in class order, the interval spanning its members (i.e., the merged intervals)
+     */
+    public static List<Interval> mergedIntervals(final Quotient<?, Interval> overlapClusters) {
+        ValidationUtils.validateArg(overlapClusters != null, "overlapClusters cannot be null");
+        final List<Interval> merged = new ArrayList<>(overlapClusters.classCount());
+        for (int c = 0; c < overlapClusters.classCount(); c++) {
+            final List<Interval> members = overlapClusters.members(c);
+            final String contig = members.get(0).getContig();
+            int start = Integer.MAX_VALUE;
+            int end = Integer.MIN_VALUE;
+            for (final Interval member : members) {
+                ValidationUtils.validateArg(member.getContig().equals(contig),
+                        () -> String.format("Cluster %s spans more than one contig", members));
+                start = Math.min(start, member.getStart());
+                end = Math.max(end, member.getEnd());
+            }
+            merged.add(new Interval(contig, start, end));
+        }
+        return merged;
+    }
+
+    /**
+     * @return the contig of an interval, for clustering intervals by contig (e.g. in
+     * {@link FiniteCategory#writeAsGraphSummary})
+     */
+    public static Function<Interval, String> contigClusters() {
+        return Interval::getContig;
+    }
+
+    /**
+     * @return the genomic bin (of binSize bases, on the same contig) containing the start of an interval, for
+     * clustering intervals by position (e.g. in {@link FiniteCategory#writeAsGraphSummary})
+     */
+    public static Function<Interval, String> binClusters(final int binSize) {
+        ValidationUtils.validateArg(binSize > 0, "binSize must be positive");
+        return interval -> {
+            final long binStart = (long) (interval.getStart() - 1) / binSize * binSize + 1;
+            return String.format("%s:%d-%d", interval.getContig(), binStart, binStart + binSize - 1);
+        };
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.ElementCodec;
+import htsjdk.samtools.util.Interval;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of intervals: contig, start, end, strand and (possibly null) name.
+ */
+public final class IntervalCodec implements ElementCodec<Interval> {
+    public static final IntervalCodec INSTANCE = new IntervalCodec();
+
+    private IntervalCodec() {
+        // use INSTANCE
+    }
+
+    @Override
+    public String getId() { return "htsjdk.interval"; }
+
+    @Override
+    public void encode(final Interval interval, final DataOutput out) throws IOException {
+        ElementCodec.writeString(interval.getContig(), out);
+        out.writeInt(interval.getStart());
+        out.writeInt(interval.getEnd());
+        out.writeBoolean(interval.isNegativeStrand());
+        ElementCodec.writeString(interval.getName(), out);
+    }
+
+    @Override
+    public Interval decode(final ByteBuffer in) {
+        final String contig = ElementCodec.readString(in);
+        final int start = in.getInt();
+        final int end = in.getInt();
+        final boolean negativeStrand = in.get() != 0;
+        final String name = ElementCodec.readString(in);
+        return new Interval(contig, start, end, negativeStrand, name);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.FiniteCategory;
+import htsjdk.samtools.util.Interval;
+
+/**
+ * Receives the elements and morphisms of an interval category as they are generated. Every element is delivered
+ * before any morphism that refers to it.
+ */
+public interface IntervalMorphismSink {
+
+    void addElement(Interval element);
+
+    void addMorphism(Interval from, Interval to);
+
+    /**
+     * @param category category to receive the elements and morphisms
+     * @return a sink that adds elements and morphisms to category
+     */
+    static IntervalMorphismSink of(final FiniteCategory<?, Interval> category) {
+        return new IntervalMorphismSink() {
+            @Override
+            public void addElement(final Interval element) { category.addElement(element); }
+
+            @Override
+            public void addMorphism(final Interval from, final Interval to) { category.addMorphism(from, to); }
+        };
+    }
+}
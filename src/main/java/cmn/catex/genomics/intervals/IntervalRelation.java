@@ -0,0 +1,15 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+/**
+ * Relations between intervals that can be used to generate the morphisms of an interval category. Intervals are
+ * treated as closed, 1-based ranges on the same contig; strand is ignored.
+ */
+public enum IntervalRelation {
+    // a -> b when a and b share at least one base (symmetric, so both a -> b and b -> a are generated)
+    OVERLAPS,
+    // a -> b when a contains b (intervals with identical coordinates contain each other)
+    CONTAINS
+}
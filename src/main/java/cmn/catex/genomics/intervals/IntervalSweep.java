@@ -0,0 +1,201 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.ElementIndex;
+import cmn.catex.utils.IntList;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.Interval;
+
+import java.util.*;
+
+/**
+ * Sweep-line engine that generates the complete overlaps or containment relation for a list of intervals in
+ * O(n log n + k) time, where k is the number of related pairs.
+ *
+ * Intervals are sorted by (contig, start ascending, end descending). The sweep keeps the still-open intervals in a
+ * map ordered by end position, so every interval that starts at or before the current one and ends at or after a
+ * given position can be enumerated without scanning intervals that are no longer relevant.
+ */
+final class IntervalSweep {
+
+    @FunctionalInterface
+    interface EdgeConsumer {
+        void accept(int from, int to);
+    }
+
+    // per input position; ids are element ids, or -1 for positions that repeat an earlier element
+    private final int[] contigs;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] ids;
+
+    private IntervalSweep(final int[] contigs, final int[] starts, final int[] ends, final int[] ids) {
+        this.contigs = contigs;
+        this.starts = starts;
+        this.ends = ends;
+        this.ids = ids;
+    }
+
+    /**
+     * Prepare a sweep over intervals, adding each distinct interval to elementIndex.
+     *
+     * @param intervals intervals, in any order
+     * @param sequenceDictionary used to order contigs; contigs not in the dictionary (or all contigs, if it is
+     *                           null) are ordered by first appearance
+     * @param elementIndex index that receives the intervals; the edges generated by the sweep are in terms of the
+     *                     ids assigned by this index
+     */
+    static IntervalSweep of(
+            final List<Interval> intervals,
+            final SAMSequenceDictionary sequenceDictionary,
+            final ElementIndex<Interval> elementIndex) {
+        final int n = intervals.size();
+        final int[] contigs = new int[n];
+        final int[] starts = new int[n];
+        final int[] ends = new int[n];
+        final int[] ids = new int[n];
+        final int dictionarySize = sequenceDictionary == null ? 0 : sequenceDictionary.size();
+        final Map<String, Integer> contigOrdinals = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            final Interval interval = intervals.get(i);
+            contigs[i] = contigOrdinals.computeIfAbsent(interval.getContig(), contig -> {
+                final int sequenceIndex = sequenceDictionary == null ? -1 : sequenceDictionary.getSequenceIndex(contig);
+                return sequenceIndex >= 0 ? sequenceIndex : dictionarySize + contigOrdinals.size();
+            });
+            starts[i] = interval.getStart();
+            ends[i] = interval.getEnd();
+            final int sizeBefore = elementIndex.size();
+            final int id = elementIndex.add(interval);
+            ids[i] = id == sizeBefore ? id : -1;
+        }
+        return new IntervalSweep(contigs, starts, ends, ids);
+    }
+
+    int size() { return ids.length; }
+
+    /**
+     * @return for each contig that has intervals (in contig order), the input positions of its intervals, excluding
+     * repeats of an earlier element
+     */
+    int[][] contigPartitions() {
+        // a counting sort by contig ordinal, which keeps the positions of each contig in input order
+        int contigCount = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] >= 0) {
+                contigCount = Math.max(contigCount, contigs[i] + 1);
+            }
+        }
+        final int[] counts = new int[contigCount];
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] >= 0) {
+                counts[contigs[i]]++;
+            }
+        }
+        // partitionOf[contig] is the index of the contig's partition, if it has one
+        final int[] partitionOf = new int[contigCount];
+        int partitionCount = 0;
+        for (int contig = 0; contig < contigCount; contig++) {
+            if (counts[contig] > 0) {
+                partitionOf[contig] = partitionCount++;
+            }
+        }
+        final int[][] partitions = new int[partitionCount][];
+        for (int contig = 0; contig < contigCount; contig++) {
+            if (counts[contig] > 0) {
+                partitions[partitionOf[contig]] = new int[counts[contig]];
+                counts[contig] = 0;
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] >= 0) {
+                partitions[partitionOf[contigs[i]]][counts[contigs[i]]++] = i;
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * @param positions input positions of intervals on a single contig
+     * @return a copy of positions, in sweep order; positions of intervals with the same start and end keep their order
+     */
+    int[] sorted(final int[] positions) {
+        final int n = positions.length;
+        // start ascending in the high half, then end descending in the low half (which is in [0, 2^32))
+        long[] keys = new long[n];
+        int[] sorted = positions.clone();
+        for (int j = 0; j < n; j++) {
+            keys[j] = ((long) starts[positions[j]] << 32) | (Integer.MAX_VALUE - (long) ends[positions[j]]);
+        }
+        // stable bottom-up merge sort of the keys, moving the positions with them
+        long[] keyBuffer = new long[n];
+        int[] positionBuffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                final int middle = Math.min(low + width, n);
+                final int high = Math.min(low + 2 * width, n);
+                int left = low;
+                int right = middle;
+                for (int out = low; out < high; out++) {
+                    final int from = left < middle && (right == high || keys[left] <= keys[right]) ? left++ : right++;
+                    keyBuffer[out] = keys[from];
+                    positionBuffer[out] = sorted[from];
+                }
+            }
+            final long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            final int[] swapPositions = sorted;
+            sorted = positionBuffer;
+            positionBuffer = swapPositions;
+        }
+        return sorted;
+    }
+
+    /**
+     * Generate all related pairs for relation among the intervals at sortedPositions, reporting each as a pair
+     * of element ids.
+     *
+     * @param sortedPositions positions of intervals on a single contig, in sweep order
+     */
+    void sweep(final int[] sortedPositions, final IntervalRelation relation, final EdgeConsumer edgeConsumer) {
+        // open intervals, keyed by end position
+        final TreeMap<Integer, IntList> active = new TreeMap<>();
+        for (final int p : sortedPositions) {
+            final int start = starts[p];
+            final int end = ends[p];
+            // intervals ending before start - 1 can neither overlap nor contain this (or any later) interval; those
+            // ending at start - 1 are retained so that they can still contain an empty interval at start
+            while (!active.isEmpty() && active.firstKey() < start - 1) {
+                active.pollFirstEntry();
+            }
+            switch (relation) {
+                case OVERLAPS -> {
+                    for (final IntList candidates : active.tailMap(start, true).values()) {
+                        for (int c = 0; c < candidates.size(); c++) {
+                            final int q = candidates.get(c);
+                            if (starts[q] <= end) {
+                                edgeConsumer.accept(ids[q], ids[p]);
+                                edgeConsumer.accept(ids[p], ids[q]);
+                            }
+                        }
+                    }
+                }
+                case CONTAINS -> {
+                    // every open interval started at or before this one, so those that end at or after it contain it
+                    for (final IntList candidates : active.tailMap(end, true).values()) {
+                        for (int c = 0; c < candidates.size(); c++) {
+                            final int q = candidates.get(c);
+                            edgeConsumer.accept(ids[q], ids[p]);
+                            if (starts[q] == start && ends[q] == end) {
+                                edgeConsumer.accept(ids[p], ids[q]);
+                            }
+                        }
+                    }
+                }
+            }
+            active.computeIfAbsent(end, k -> new IntList(2)).add(p);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.ElementIndex;
+import htsjdk.samtools.util.Interval;
+import htsjdk.utils.ValidationUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ElementIndex} that stores intervals off-heap, in direct buffers, rather than as {@link Interval} objects.
+ * Each interval is a row across columns of contig id, start, end, strand and name offset; names are stored once,
+ * as UTF-8, in a separate buffer, and the table used to find the id of an interval is off-heap as well. Only the
+ * contig names are kept on the heap, so a large index adds almost nothing for the garbage collector to trace.
+ *
+ * {@link #get(int)} materializes a new Interval on each call. As for {@link Interval#equals}, intervals are
+ * identified by contig, start and end; the strand and name of the first interval added with given coordinates are
+ * kept.
+ */
+public class OffHeapIntervalIndex implements ElementIndex<Interval> {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_NAMES_BYTES = 64 * 1024;
+    private static final int MAX_BUFFER_BYTES = Integer.MAX_VALUE - 8;
+    // the id table has at least two slots per interval, and is limited to MAX_BUFFER_BYTES like the other buffers
+    private static final int MAX_SIZE = 1 << 27;
+    private static final int NO_NAME = -1;
+
+    private final List<String> contigNames = new ArrayList<>();
+    private final Map<String, Integer> contigIds = new HashMap<>();
+
+    // columns, indexed by element id
+    private ByteBuffer contigColumn;
+    private ByteBuffer startColumn;
+    private ByteBuffer endColumn;
+    private ByteBuffer strandColumn;
+    private ByteBuffer nameOffsetColumn;
+    private int capacity;
+    private int size;
+
+    // each name is an int byte length followed by the UTF-8 bytes
+    private ByteBuffer names;
+    private int namesSize;
+
+    // open-addressing table of element id + 1 (0 for an empty slot)
+    private ByteBuffer table;
+    private int tableSlots;
+
+    public OffHeapIntervalIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public OffHeapIntervalIndex(final int expectedSize) {
+        ValidationUtils.validateArg(expectedSize >= 0, "expectedSize cannot be negative");
+        capacity = Math.min(Math.max(expectedSize, 16), MAX_SIZE);
+        contigColumn = allocate(capacity, Integer.BYTES);
+        startColumn = allocate(capacity, Integer.BYTES);
+        endColumn = allocate(capacity, Integer.BYTES);
+        strandColumn = allocate(capacity, 1);
+        nameOffsetColumn = allocate(capacity, Integer.BYTES);
+        names = allocate(INITIAL_NAMES_BYTES, 1);
+        tableSlots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        table = allocate(tableSlots, Integer.BYTES);
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public Interval get(final int id) {
+        checkId(id);
+        return new Interval(
+                contigNames.get(contigColumn.getInt(id * Integer.BYTES)),
+                startColumn.getInt(id * Integer.BYTES),
+                endColumn.getInt(id * Integer.BYTES),
+                strandColumn.get(id) != 0,
+                readName(nameOffsetColumn.getInt(id * Integer.BYTES)));
+    }
+
+    /**
+     * @return the start of the interval with the given id, without materializing it
+     */
+    public int getStart(final int id) {
+        checkId(id);
+        return startColumn.getInt(id * Integer.BYTES);
+    }
+
+    /**
+     * @return the end of the interval with the given id, without materializing it
+     */
+    public int getEnd(final int id) {
+        checkId(id);
+        return endColumn.getInt(id * Integer.BYTES);
+    }
+
+    /**
+     * @return the contig of the interval with the given id, without materializing it
+     */
+    public String getContig(final int id) {
+        checkId(id);
+        return contigNames.get(contigColumn.getInt(id * Integer.BYTES));
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        if (!(element instanceof Interval interval)) {
+            return -1;
+        }
+        final Integer contigId = contigIds.get(interval.getContig());
+        return contigId == null ? -1 : find(contigId, interval.getStart(), interval.getEnd());
+    }
+
+    @Override
+    public int add(final Interval element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null elements cannot be indexed");
+        }
+        final int contigId = contigIds.computeIfAbsent(element.getContig(), contig -> {
+            contigNames.add(contig);
+            return contigNames.size() - 1;
+        });
+        final int existing = find(contigId, element.getStart(), element.getEnd());
+        if (existing >= 0) {
+            return existing;
+        }
+        if (size == capacity) {
+            growColumns();
+        }
+        final int id = size;
+        contigColumn.putInt(id * Integer.BYTES, contigId);
+        startColumn.putInt(id * Integer.BYTES, element.getStart());
+        endColumn.putInt(id * Integer.BYTES, element.getEnd());
+        strandColumn.put(id, (byte) (element.isNegativeStrand() ? 1 : 0));
+        nameOffsetColumn.putInt(id * Integer.BYTES, writeName(element.getName()));
+        size++;
+        if (size * 2 > tableSlots) {
+            rehash(tableSlots * 2);
+        } else {
+            insert(table, tableSlots, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the number of bytes of direct memory allocated by this index
+     */
+    public long offHeapBytes() {
+        return (long) contigColumn.capacity() + startColumn.capacity() + endColumn.capacity()
+                + strandColumn.capacity() + nameOffsetColumn.capacity() + names.capacity() + table.capacity();
+    }
+
+    private int find(final int contigId, final int start, final int end) {
+        final int mask = tableSlots - 1;
+        for (int slot = hash(contigId, start, end) & mask; ; slot = (slot + 1) & mask) {
+            final int id = table.getInt(slot * Integer.BYTES) - 1;
+            if (id < 0) {
+                return -1;
+            } else if (startColumn.getInt(id * Integer.BYTES) == start
+                    && endColumn.getInt(id * Integer.BYTES) == end
+                    && contigColumn.getInt(id * Integer.BYTES) == contigId) {
+                return id;
+            }
+        }
+    }
+
+    private void insert(final ByteBuffer target, final int slots, final int id) {
+        final int mask = slots - 1;
+        int slot = hash(
+                contigColumn.getInt(id * Integer.BYTES),
+                startColumn.getInt(id * Integer.BYTES),
+                endColumn.getInt(id * Integer.BYTES)) & mask;
+        while (target.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        target.putInt(slot * Integer.BYTES, id + 1);
+    }
+
+    private void rehash(final int newSlots) {
+        final ByteBuffer newTable = allocate(newSlots, Integer.BYTES);
+        for (int id = 0; id < size; id++) {
+            insert(newTable, newSlots, id);
+        }
+        table = newTable;
+        tableSlots = newSlots;
+    }
+
+    private void growColumns() {
+        final int newCapacity = Math.min(capacity * 2, MAX_SIZE);
+        if (newCapacity == capacity) {
+            throw new IllegalStateException(String.format("Off-heap interval index is full (%d intervals)", size));
+        }
+        contigColumn = copyOf(contigColumn, newCapacity * Integer.BYTES);
+        startColumn = copyOf(startColumn, newCapacity * Integer.BYTES);
+        endColumn = copyOf(endColumn, newCapacity * Integer.BYTES);
+        strandColumn = copyOf(strandColumn, newCapacity);
+        nameOffsetColumn = copyOf(nameOffsetColumn, newCapacity * Integer.BYTES);
+        capacity = newCapacity;
+    }
+
+    private int writeName(final String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        final long required = (long) namesSize + Integer.BYTES + bytes.length;
+        if (required > names.capacity()) {
+            if (required > MAX_BUFFER_BYTES) {
+                throw new IllegalStateException("Off-heap interval index has no room for more interval names");
+            }
+            names = copyOf(names, (int) Math.min(Math.max(required, (long) names.capacity() * 2), MAX_BUFFER_BYTES));
+        }
+        final int offset = namesSize;
+        names.putInt(offset, bytes.length);
+        names.put(offset + Integer.BYTES, bytes);
+        namesSize = (int) required;
+        return offset;
+    }
+
+    private String readName(final int offset) {
+        if (offset == NO_NAME) {
+            return null;
+        }
+        final byte[] bytes = new byte[names.getInt(offset)];
+        names.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkId(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(String.format("Element id %d out of range [0, %d)", id, size));
+        }
+    }
+
+    private static int hash(final int contigId, final int start, final int end) {
+        final int h = ((contigId * 31 + start) * 31 + end) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static ByteBuffer allocate(final int count, final int width) {
+        return ByteBuffer.allocateDirect(count * width).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer copyOf(final ByteBuffer buffer, final int newBytes) {
+        final ByteBuffer copy = ByteBuffer.allocateDirect(newBytes).order(ByteOrder.nativeOrder());
+        copy.put(0, buffer, 0, Math.min(buffer.capacity(), newBytes));
+        return copy;
+    }
+}
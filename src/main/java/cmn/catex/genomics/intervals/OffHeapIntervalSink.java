@@ -0,0 +1,130 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.IndexedDigraph;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.utils.IntList;
+import htsjdk.samtools.util.Interval;
+
+import java.util.Arrays;
+
+/**
+ * {@link IntervalMorphismSink} that stores elements in an {@link OffHeapIntervalIndex}, and morphisms as pairs of
+ * element ids, and then builds an immutable category over them. Combined with
+ * {@link StreamingIntervalCategoryBuilder}, this builds a category from a large file without ever holding all of
+ * its intervals on the heap, e.g.:
+ * <pre>
+ *     final OffHeapIntervalSink sink = new OffHeapIntervalSink();
+ *     StreamingIntervalCategoryBuilder.fromReads(readsPath, IntervalRelation.OVERLAPS, sink);
+ *     final FiniteCategory&lt;IOPath, Interval&gt; category = sink.toCategory(readsPath);
+ * </pre>
+ */
+public class OffHeapIntervalSink implements IntervalMorphismSink {
+    private final OffHeapIntervalIndex elementIndex;
+    private final IntList froms = new IntList();
+    private final IntList tos = new IntList();
+    // the most recently added element, which is one end of most morphisms, so its id doesn't need to be looked up
+    private Interval lastElement;
+    private int lastId = -1;
+    private boolean built;
+
+    public OffHeapIntervalSink() {
+        this(new OffHeapIntervalIndex());
+    }
+
+    /**
+     * @param elementIndex index to receive the elements; it becomes the element index of the category
+     */
+    public OffHeapIntervalSink(final OffHeapIntervalIndex elementIndex) {
+        this.elementIndex = elementIndex;
+    }
+
+    public OffHeapIntervalIndex getElementIndex() { return elementIndex; }
+
+    @Override
+    public void addElement(final Interval element) {
+        checkNotBuilt();
+        lastId = elementIndex.add(element);
+        lastElement = element;
+    }
+
+    @Override
+    public void addMorphism(final Interval from, final Interval to) {
+        addMorphismById(idOf(from), idOf(to));
+    }
+
+    void addMorphismById(final int from, final int to) {
+        checkNotBuilt();
+        froms.add(from);
+        tos.add(to);
+    }
+
+    /**
+     * Build an immutable category whose element index is this sink's; afterwards, no more elements or morphisms
+     * can be added to this sink. Morphisms are kept in the order they were added, except that repeats are dropped,
+     * so the category has the SET {@link MorphismPolicy}.
+     */
+    public <S> FiniteCategory<S, Interval> toCategory(final S source) {
+        checkNotBuilt();
+        built = true;
+        final int n = elementIndex.size();
+        final int edgeCount = froms.size();
+        final int[] offsets = new int[n + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[froms.get(i) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        final int[] targets = new int[edgeCount];
+        final int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < edgeCount; i++) {
+            targets[next[froms.get(i)]++] = tos.get(i);
+        }
+        froms.clear();
+        tos.clear();
+
+        // compact each row in place, keeping the first of any repeated targets
+        final int[] lastSource = new int[n];
+        Arrays.fill(lastSource, -1);
+        int write = 0;
+        for (int v = 0; v < n; v++) {
+            final int end = offsets[v + 1];
+            final int start = offsets[v];
+            offsets[v] = write;
+            for (int e = start; e < end; e++) {
+                final int t = targets[e];
+                if (lastSource[t] != v) {
+                    lastSource[t] = v;
+                    targets[write++] = t;
+                }
+            }
+        }
+        offsets[n] = write;
+        final IndexedDigraph<Interval> graph = new IndexedDigraph<>(
+                elementIndex,
+                offsets,
+                write == edgeCount ? targets : Arrays.copyOf(targets, write));
+        return FiniteCategory.of(source, graph, MorphismPolicy.SET);
+    }
+
+    private int idOf(final Interval element) {
+        if (element == lastElement) {
+            return lastId;
+        }
+        final int id = elementIndex.indexOf(element);
+        if (id < 0) {
+            throw new IllegalArgumentException(String.format("Morphism refers to %s, which is not an element", element));
+        }
+        return id;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("The category has already been built from this sink");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.genomics.intervals;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
+import htsjdk.beta.plugin.reads.ReadsDecoder;
+import htsjdk.beta.plugin.registry.HtsDefaultRegistry;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.Interval;
+import htsjdk.utils.ValidationUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFFileReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Incrementally builds an interval category from coordinate-sorted input, without materializing an
+ * {@link htsjdk.samtools.util.IntervalList} first. Only a sliding window of still-open intervals (those that can
+ * still be related to a later interval) is retained, so the memory used by the builder is bounded by the maximum
+ * overlap depth of the input rather than by its size. Elements and morphisms are emitted to an
+ * {@link IntervalMorphismSink} as soon as they are known.
+ *
+ * Input must be grouped by contig, and sorted by start position within each contig. Repeats of an interval are
+ * only detected when they share a start position (after sorting, identical intervals always do).
+ */
+public class StreamingIntervalCategoryBuilder {
+    private final IntervalRelation relation;
+    private final IntervalMorphismSink sink;
+
+    // open intervals on the current contig, keyed by end position
+    private final TreeMap<Integer, List<Interval>> window = new TreeMap<>();
+    // open intervals that start at the current start position, in input order
+    private final List<Interval> sameStart = new ArrayList<>();
+    private final Set<String> completedContigs = new HashSet<>();
+    private Interval previous;
+    private int windowSize;
+    private int maxWindowSize;
+    private long elementCount;
+
+    public StreamingIntervalCategoryBuilder(final IntervalRelation relation, final IntervalMorphismSink sink) {
+        ValidationUtils.validateArg(relation != null, "relation cannot be null");
+        ValidationUtils.validateArg(sink != null, "sink cannot be null");
+        this.relation = relation;
+        this.sink = sink;
+    }
+
+    /**
+     * Add the next interval, emitting it and all morphisms between it and previously added intervals.
+     *
+     * @param interval next interval in coordinate order
+     */
+    public void add(final Interval interval) {
+        ValidationUtils.validateArg(interval != null, "interval cannot be null");
+        final int start = interval.getStart();
+        final int end = interval.getEnd();
+        if (previous == null || !previous.getContig().equals(interval.getContig())) {
+            if (previous != null) {
+                completedContigs.add(previous.getContig());
+            }
+            ValidationUtils.validateArg(!completedContigs.contains(interval.getContig()),
+                    () -> String.format("Input is not grouped by contig: %s follows contig %s", interval, previous.getContig()));
+            window.clear();
+            sameStart.clear();
+            windowSize = 0;
+        } else {
+            ValidationUtils.validateArg(start >= previous.getStart(),
+                    () -> String.format("Input is not coordinate sorted: %s follows %s", interval, previous));
+            if (start != previous.getStart()) {
+                sameStart.clear();
+            } else if (sameStart.contains(interval)) {
+                return;
+            }
+        }
+        previous = interval;
+
+        // intervals ending before start - 1 can neither overlap nor contain this (or any later) interval; those
+        // ending at start - 1 are retained so that they can still contain an empty interval at start
+        while (!window.isEmpty() && window.firstKey() < start - 1) {
+            windowSize -= window.pollFirstEntry().getValue().size();
+        }
+
+        sink.addElement(interval);
+        elementCount++;
+        switch (relation) {
+            case OVERLAPS -> {
+                for (final List<Interval> candidates : window.tailMap(start, true).values()) {
+                    for (final Interval candidate : candidates) {
+                        if (candidate.getStart() <= end) {
+                            sink.addMorphism(candidate, interval);
+                            sink.addMorphism(interval, candidate);
+                        }
+                    }
+                }
+            }
+            case CONTAINS -> {
+                // every open interval started at or before this one, so those that end at or after it contain it
+                for (final List<Interval> candidates : window.tailMap(end, true).values()) {
+                    for (final Interval candidate : candidates) {
+                        sink.addMorphism(candidate, interval);
+                        if (candidate.getStart() == start && candidate.getEnd() == end) {
+                            sink.addMorphism(interval, candidate);
+                        }
+                    }
+                }
+                // intervals with the same start aren't ordered by end, so this one may contain earlier ones
+                for (final Interval candidate : sameStart) {
+                    if (candidate.getEnd() < end) {
+                        sink.addMorphism(interval, candidate);
+                    }
+                }
+            }
+        }
+
+        window.computeIfAbsent(end, k -> new ArrayList<>(2)).add(interval);
+        sameStart.add(interval);
+        maxWindowSize = Math.max(maxWindowSize, ++windowSize);
+    }
+
+    public void addAll(final Iterator<Interval> intervals) {
+        intervals.forEachRemaining(this::add);
+    }
+
+    /**
+     * @return the largest number of open intervals held at any one time
+     */
+    public int getMaxWindowSize() { return maxWindowSize; }
+
+    /**
+     * @return the number of (distinct) intervals emitted so far
+     */
+    public long getElementCount() { return elementCount; }
+
+    public static FiniteCategory<IOPath, Interval> fromVCF(final IOPath vcfPath, final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> category = new FiniteCategory<>(vcfPath);
+        fromVCF(vcfPath, relation, IntervalMorphismSink.of(category));
+        return category;
+    }
+
+    // stream the (unfiltered) variants in a coordinate sorted VCF, using the same intervals as VCFFileReader.toIntervalList
+    public static void fromVCF(final IOPath vcfPath, final IntervalRelation relation, final IntervalMorphismSink sink) {
+        final StreamingIntervalCategoryBuilder builder = new StreamingIntervalCategoryBuilder(relation, sink);
+        Metrics.run(Phase.READ_INPUT, "StreamingIntervalCategoryBuilder.fromVCF", () -> {
+            try (final VCFFileReader reader = new VCFFileReader(vcfPath.toPath(), false)) {
+                int unnamedCount = 0;
+                for (final VariantContext vc : reader) {
+                    if (vc.isFiltered()) {
+                        continue;
+                    }
+                    String name = vc.getID();
+                    if (name == null || VCFConstants.EMPTY_ID_FIELD.equals(name)) {
+                        name = "interval-" + (++unnamedCount);
+                    }
+                    final int end = vc.getAttributeAsInt(VCFConstants.END_KEY, vc.getEnd());
+                    builder.add(new Interval(vc.getContig(), vc.getStart(), end, false, name));
+                }
+            }
+        });
+    }
+
+    public static FiniteCategory<IOPath, Interval> fromReads(final IOPath readsPath, final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> category = new FiniteCategory<>(readsPath);
+        fromReads(readsPath, relation, IntervalMorphismSink.of(category));
+        return category;
+    }
+
+    // stream the aligned span of each mapped read in a coordinate sorted reads file (i.e., BAM)
+    public static void fromReads(final IOPath readsPath, final IntervalRelation relation, final IntervalMorphismSink sink) {
+        final StreamingIntervalCategoryBuilder builder = new StreamingIntervalCategoryBuilder(relation, sink);
+        Metrics.run(Phase.READ_INPUT, "StreamingIntervalCategoryBuilder.fromReads", () -> {
+            try (final ReadsDecoder readsDecoder = HtsDefaultRegistry.getReadsResolver().getReadsDecoder(readsPath)) {
+                for (final SAMRecord read : readsDecoder) {
+                    if (!read.getReadUnmappedFlag()) {
+                        builder.add(new Interval(
+                                read.getContig(),
+                                read.getAlignmentStart(),
+                                read.getAlignmentEnd(),
+                                read.getReadNegativeStrandFlag(),
+                                read.getReadName()));
+                    }
+                }
+            }
+        });
+    }
+
+    public static FiniteCategory<IOPath, Interval> fromPicardIntervalList(
+            final IOPath intervalListPath,
+            final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> category = new FiniteCategory<>(intervalListPath);
+        fromPicardIntervalList(intervalListPath, relation, IntervalMorphismSink.of(category));
+        return category;
+    }
+
+    // stream the body of a coordinate sorted Picard interval list (contig, start, end, strand, name), skipping the header
+    public static void fromPicardIntervalList(
+            final IOPath intervalListPath,
+            final IntervalRelation relation,
+            final IntervalMorphismSink sink) {
+        final StreamingIntervalCategoryBuilder builder = new StreamingIntervalCategoryBuilder(relation, sink);
+        Metrics.run(Phase.READ_INPUT, "StreamingIntervalCategoryBuilder.fromPicardIntervalList", () -> {
+            try (final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(intervalListPath.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isBlank() || line.startsWith("@")) {
+                        continue;
+                    }
+                    final String[] fields = line.split("\t");
+                    ValidationUtils.validateArg(fields.length == 5, "Malformed interval list line: " + line);
+                    builder.add(new Interval(
+                            fields[0],
+                            Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]),
+                            fields[3].equals("-"),
+                            fields[4]));
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
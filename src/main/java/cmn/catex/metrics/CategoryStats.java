@@ -0,0 +1,86 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+import cmn.catex.utils.IntAdjacencyView;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Size statistics of a category.
+ *
+ * @param elementCount number of elements
+ * @param edgeCount number of (non-identity) morphisms
+ * @param maxOutDegree largest number of morphisms from a single element
+ * @param outDegreeHistogram number of elements by out-degree, in power-of-two buckets: bucket 0 counts elements with
+ *                           no morphisms, and bucket k (k > 0) counts those with out-degree in [2^(k-1), 2^k)
+ */
+public record CategoryStats(long elementCount, long edgeCount, int maxOutDegree, long[] outDegreeHistogram) {
+
+    public static CategoryStats of(final IntAdjacencyView adjacency) {
+        return ofOutDegrees(adjacency.nodeCount(), IntStream.range(0, adjacency.nodeCount()).map(adjacency::degree));
+    }
+
+    /**
+     * @param elementCount number of elements
+     * @param outDegrees out-degrees of some of the elements (e.g. those with morphisms); the rest have none
+     */
+    public static CategoryStats ofOutDegrees(final long elementCount, final IntStream outDegrees) {
+        final long[] histogram = new long[Integer.SIZE + 1];
+        long edgeCount = 0;
+        int maxOutDegree = 0;
+        int maxBucket = 0;
+        long counted = 0;
+        for (final PrimitiveIterator.OfInt degrees = outDegrees.iterator(); degrees.hasNext(); ) {
+            final int degree = degrees.nextInt();
+            final int bucket = bucketOf(degree);
+            histogram[bucket]++;
+            maxBucket = Math.max(maxBucket, bucket);
+            edgeCount += degree;
+            maxOutDegree = Math.max(maxOutDegree, degree);
+            counted++;
+        }
+        histogram[0] += elementCount - counted;
+        return new CategoryStats(
+                elementCount,
+                edgeCount,
+                maxOutDegree,
+                Arrays.copyOf(histogram, maxBucket + 1));
+    }
+
+    /**
+     * @return the histogram bucket for an out-degree
+     */
+    public static int bucketOf(final int degree) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(degree);
+    }
+
+    public double meanOutDegree() {
+        return elementCount == 0 ? 0.0 : (double) edgeCount / elementCount;
+    }
+
+    // records compare arrays by identity, so compare the histogram by value
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CategoryStats that)) return false;
+        return elementCount == that.elementCount
+                && edgeCount == that.edgeCount
+                && maxOutDegree == that.maxOutDegree
+                && Arrays.equals(outDegreeHistogram, that.outDegreeHistogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(elementCount) + 17 * Long.hashCode(edgeCount) + Arrays.hashCode(outDegreeHistogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CategoryStats[elementCount=%d, edgeCount=%d, maxOutDegree=%d, outDegreeHistogram=%s]",
+                elementCount, edgeCount, maxOutDegree, Arrays.toString(outDegreeHistogram));
+    }
+}
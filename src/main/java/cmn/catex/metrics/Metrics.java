@@ -0,0 +1,128 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Metrics for building and exporting categories, reported to registered {@link MetricsListener}s and as JFR events
+ * (see {@link MetricsEvents}). When there are no listeners and the JFR events aren't enabled, timing a phase and
+ * reporting statistics do nothing.
+ */
+public final class Metrics {
+    private static final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private static final com.sun.management.ThreadMXBean allocationMXBean = getAllocationMXBean();
+
+    private Metrics() {
+    }
+
+    public static void addListener(final MetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(final MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Start timing a phase on the current thread. Use with try-with-resources; the phase is reported when the
+     * returned timer is closed. Phases that don't use the timer are simpler to time with {@link #time} or
+     * {@link #run}.
+     *
+     * @param phase phase
+     * @param operation the operation running the phase, e.g. "GraphUtils.writeDOT"
+     */
+    public static PhaseTimer start(final Phase phase, final String operation) {
+        final boolean jfrEnabled = MetricsEvents.PHASE_EVENT_TYPE.isEnabled();
+        if (listeners.isEmpty() && !jfrEnabled) {
+            return PhaseTimer.NO_OP;
+        }
+        return new PhaseTimer(phase, operation, jfrEnabled ? new MetricsEvents.PhaseEvent() : null);
+    }
+
+    /**
+     * Time a phase that produces a result, on the current thread.
+     *
+     * @param phase phase
+     * @param operation the operation running the phase
+     * @param work the phase
+     * @return the result of work
+     */
+    public static <T> T time(final Phase phase, final String operation, final Supplier<T> work) {
+        final PhaseTimer timer = start(phase, operation);
+        try {
+            return work.get();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Time a phase on the current thread.
+     *
+     * @param phase phase
+     * @param operation the operation running the phase
+     * @param work the phase
+     */
+    public static void run(final Phase phase, final String operation, final Runnable work) {
+        final PhaseTimer timer = start(phase, operation);
+        try {
+            work.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Report the statistics of a newly built category. The statistics are only computed if they will be reported.
+     *
+     * @param operation the operation that built the category
+     * @param stats the category's statistics
+     */
+    public static void categoryBuilt(final String operation, final Supplier<CategoryStats> stats) {
+        final boolean jfrEnabled = MetricsEvents.CATEGORY_BUILT_EVENT_TYPE.isEnabled();
+        if (listeners.isEmpty() && !jfrEnabled) {
+            return;
+        }
+        final CategoryStats categoryStats = stats.get();
+        if (jfrEnabled) {
+            final MetricsEvents.CategoryBuiltEvent event = new MetricsEvents.CategoryBuiltEvent();
+            event.operation = operation;
+            event.elementCount = categoryStats.elementCount();
+            event.edgeCount = categoryStats.edgeCount();
+            event.maxOutDegree = categoryStats.maxOutDegree();
+            event.commit();
+        }
+        for (final MetricsListener listener : listeners) {
+            listener.categoryBuilt(operation, categoryStats);
+        }
+    }
+
+    static void phaseCompleted(final PhaseMetrics metrics) {
+        for (final MetricsListener listener : listeners) {
+            listener.phaseCompleted(metrics);
+        }
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, or -1 if that isn't supported
+     */
+    static long currentThreadAllocatedBytes() {
+        return allocationMXBean == null ? -1 : allocationMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationMXBean() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean allocationBean
+                && allocationBean.isThreadAllocatedMemorySupported()
+                && allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return allocationBean;
+        }
+        return null;
+    }
+}
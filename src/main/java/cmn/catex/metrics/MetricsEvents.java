@@ -0,0 +1,57 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * JFR events for {@link Metrics}, so that phases and category statistics show up in flight recordings without
+ * registering a listener. When the events aren't enabled in a recording, they aren't created.
+ */
+final class MetricsEvents {
+
+    private MetricsEvents() {
+    }
+
+    @Name("cmn.catex.Phase")
+    @Label("Category Phase")
+    @Category("catex")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Written")
+        @DataAmount
+        long bytesWritten;
+    }
+
+    @Name("cmn.catex.CategoryBuilt")
+    @Label("Category Built")
+    @Category("catex")
+    @StackTrace(false)
+    static final class CategoryBuiltEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Elements")
+        long elementCount;
+
+        @Label("Morphisms")
+        long edgeCount;
+
+        @Label("Max Out-Degree")
+        int maxOutDegree;
+    }
+
+    static final EventType PHASE_EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+    static final EventType CATEGORY_BUILT_EVENT_TYPE = EventType.getEventType(CategoryBuiltEvent.class);
+}
@@ -0,0 +1,21 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+/**
+ * Receives metrics from {@link Metrics}. Callbacks are made on the thread that ran the phase, so implementations
+ * must be thread-safe and should return quickly.
+ */
+public interface MetricsListener {
+
+    default void phaseCompleted(final PhaseMetrics metrics) {
+    }
+
+    /**
+     * @param operation the operation that built the category, e.g. "IntervalCategories.toCategory"
+     * @param stats statistics of the category
+     */
+    default void categoryBuilt(final String operation, final CategoryStats stats) {
+    }
+}
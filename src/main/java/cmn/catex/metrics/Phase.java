@@ -0,0 +1,17 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+/**
+ * Phases of building and exporting a category, for which {@link Metrics} reports time, allocation and output size.
+ */
+public enum Phase {
+    // reading input; for streaming builders this includes building the category as the input is read
+    READ_INPUT,
+    BUILD_MORPHISMS,
+    VALIDATE,
+    AS_GRAPH,
+    EXPORT,
+    RENDER
+}
@@ -0,0 +1,22 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+/**
+ * Measurements of one completed phase.
+ *
+ * @param phase phase
+ * @param operation the operation that ran the phase, e.g. "GraphUtils.writeDOT"
+ * @param elapsedNanos wall-clock duration
+ * @param allocatedBytes bytes allocated by the thread that ran the phase (work the phase handed to other threads is
+ *                       not included), or -1 if the JVM doesn't support allocation measurement
+ * @param bytesWritten bytes of output written, or -1 if the phase doesn't write output
+ */
+public record PhaseMetrics(
+        Phase phase,
+        String operation,
+        long elapsedNanos,
+        long allocatedBytes,
+        long bytesWritten) {
+}
@@ -0,0 +1,94 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Measures one phase, from {@link Metrics#start} until it is closed, on a single thread.
+ */
+public class PhaseTimer implements AutoCloseable {
+    // returned when nothing is listening
+    static final PhaseTimer NO_OP = new PhaseTimer() {
+        @Override
+        public OutputStream countBytes(final OutputStream out) { return out; }
+
+        @Override
+        public void addBytesWritten(final long bytes) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final Phase phase;
+    private final String operation;
+    private final MetricsEvents.PhaseEvent event;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private long bytesWritten = -1;
+
+    private PhaseTimer() {
+        this.phase = null;
+        this.operation = null;
+        this.event = null;
+        this.startNanos = 0;
+        this.startAllocatedBytes = 0;
+    }
+
+    PhaseTimer(final Phase phase, final String operation, final MetricsEvents.PhaseEvent event) {
+        this.phase = phase;
+        this.operation = operation;
+        this.event = event;
+        if (event != null) {
+            event.begin();
+        }
+        this.startAllocatedBytes = Metrics.currentThreadAllocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return a stream that writes to out, and counts the bytes written as output of this phase
+     */
+    public OutputStream countBytes(final OutputStream out) {
+        addBytesWritten(0);
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(final int b) throws IOException {
+                out.write(b);
+                bytesWritten++;
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+                bytesWritten += len;
+            }
+        };
+    }
+
+    public void addBytesWritten(final long bytes) {
+        bytesWritten = Math.max(bytesWritten, 0) + bytes;
+    }
+
+    @Override
+    public void close() {
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long allocatedBytes = startAllocatedBytes < 0 ? -1 : Metrics.currentThreadAllocatedBytes() - startAllocatedBytes;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.operation = operation;
+                event.allocatedBytes = allocatedBytes;
+                event.bytesWritten = bytesWritten;
+                event.commit();
+            }
+        }
+        Metrics.phaseCompleted(new PhaseMetrics(phase, operation, elapsedNanos, allocatedBytes, bytesWritten));
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Collapsed view of a graph for rendering, as written by {@link GraphUtils#writeDOTSummary}. Nodes are partitioned
+ * into groups, each of which is drawn as a single node:
+ * <ul>
+ *     <li>a chain of nodes, each the only successor of the one before (and the only one with it as a successor),
+ *     is one group</li>
+ *     <li>the groups in a cluster with more than {@link GraphUtils.LevelOfDetail#maxNodesPerCluster()} groups are
+ *     merged into runs of adjacent groups (in order of their first node), so that the cluster has that many</li>
+ *     <li>if there are still more than {@link GraphUtils.LevelOfDetail#maxNodes()} groups, the runs in each cluster,
+ *     and among the unclustered nodes, are merged further in proportion, leaving at least one group in each</li>
+ * </ul>
+ * A cluster left with a single group is drawn as one node labeled with the cluster's name; any other merged group is
+ * labeled with its first and last nodes.
+ * Edges between the nodes of two groups are drawn once (labeled with their number, if more than one), and at most
+ * {@link GraphUtils.LevelOfDetail#maxEdgesPerNode()} edges are drawn from each group.
+ */
+final class GraphSummary {
+    private static final int NO_CLUSTER = -1;
+
+    private final IntAdjacencyView adjacency;
+    private final IntFunction<?> labels;
+    private final GraphUtils.LevelOfDetail detail;
+    private final String[] clusterNames;
+    // cluster of each node, or NO_CLUSTER
+    private final int[] clusterOf;
+    private final int[] groupOf;
+    private int groupCount;
+    // first and last node of each group, and the cluster of a group that is a whole collapsed cluster (or NO_CLUSTER)
+    private int[] chainHead;
+    private int[] chainTail;
+    private int[] collapsedCluster;
+    // group members in CSR form, in node id order
+    private int[] groupOffsets;
+    private int[] groupMembers;
+
+    GraphSummary(
+            final IntAdjacencyView adjacency,
+            final IntFunction<?> labels,
+            final IntFunction<String> clusters,
+            final GraphUtils.LevelOfDetail detail) {
+        this.adjacency = adjacency;
+        this.labels = labels;
+        this.detail = detail;
+        final int n = adjacency.nodeCount();
+        this.clusterOf = new int[n];
+        final Map<String, Integer> clusterIds = new LinkedHashMap<>();
+        for (int v = 0; v < n; v++) {
+            final String cluster = clusters == null ? null : clusters.apply(v);
+            clusterOf[v] = cluster == null ? NO_CLUSTER : clusterIds.computeIfAbsent(cluster, c -> clusterIds.size());
+        }
+        this.clusterNames = clusterIds.keySet().toArray(String[]::new);
+        this.groupOf = new int[n];
+        groupChains();
+        mergeGroups();
+        indexGroupMembers();
+    }
+
+    private void groupChains() {
+        final int n = adjacency.nodeCount();
+        // predecessor is only meaningful for nodes with exactly one incoming edge
+        final int[] inDegree = new int[n];
+        final int[] predecessor = new int[n];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < adjacency.degree(v); i++) {
+                final int w = adjacency.target(v, i);
+                inDegree[w]++;
+                predecessor[w] = v;
+            }
+        }
+        Arrays.fill(groupOf, -1);
+        final IntList heads = new IntList();
+        final IntList tails = new IntList();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int v = 0; v < n; v++) {
+                // the first pass starts at chain heads; the second breaks chains that are cycles
+                if (groupOf[v] >= 0 || (pass == 0 && continuesChain(predecessor[v], v, inDegree))) {
+                    continue;
+                }
+                final int group = groupCount++;
+                groupOf[v] = group;
+                int u = v;
+                while (detail.mergeChains() && adjacency.degree(u) == 1) {
+                    final int w = adjacency.target(u, 0);
+                    if (groupOf[w] >= 0 || !continuesChain(u, w, inDegree)) {
+                        break;
+                    }
+                    groupOf[w] = group;
+                    u = w;
+                }
+                heads.add(v);
+                tails.add(u);
+            }
+        }
+        chainHead = heads.toArray();
+        chainTail = tails.toArray();
+    }
+
+    // whether w is merged into the chain of its predecessor u
+    private boolean continuesChain(final int u, final int w, final int[] inDegree) {
+        return detail.mergeChains()
+                && inDegree[w] == 1
+                && u != w
+                && adjacency.degree(u) == 1
+                && clusterOf[u] == clusterOf[w];
+    }
+
+    private void mergeGroups() {
+        // chains never cross clusters, so each group is in exactly one slot; rank orders the groups of each slot by
+        // their first node
+        final int slotCount = clusterNames.length + 1;
+        final int[] slotGroupCounts = new int[slotCount];
+        final int[] rank = new int[groupCount];
+        Arrays.fill(rank, -1);
+        for (final int group : groupOf) {
+            if (rank[group] < 0) {
+                rank[group] = slotGroupCounts[clusterSlot(group)]++;
+            }
+        }
+        // the number of merged groups allowed in each slot, scaled down if they exceed the overall limit
+        final long[] allowed = new long[slotCount];
+        long total = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            allowed[slot] = slot < clusterNames.length
+                    ? Math.min(slotGroupCounts[slot], detail.maxNodesPerCluster())
+                    : slotGroupCounts[slot];
+            total += allowed[slot];
+        }
+        if (total > detail.maxNodes()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (allowed[slot] > 0) {
+                    allowed[slot] = Math.max(1, allowed[slot] * detail.maxNodes() / total);
+                }
+            }
+        }
+        final int[] binStarts = new int[slotCount + 1];
+        for (int slot = 0; slot < slotCount; slot++) {
+            binStarts[slot + 1] = binStarts[slot] + (int) allowed[slot];
+        }
+
+        // each run of adjacent groups in a slot becomes one group, numbered in order of its first node
+        final int[] renumbered = new int[binStarts[slotCount]];
+        Arrays.fill(renumbered, -1);
+        final boolean[] merged = new boolean[groupCount];
+        final IntList heads = new IntList();
+        final IntList tails = new IntList();
+        final IntList collapsed = new IntList();
+        for (int v = 0; v < groupOf.length; v++) {
+            final int group = groupOf[v];
+            final int slot = clusterSlot(group);
+            final int bin = binStarts[slot] + (int) (rank[group] * allowed[slot] / slotGroupCounts[slot]);
+            if (renumbered[bin] < 0) {
+                renumbered[bin] = collapsed.size();
+                heads.add(chainHead[group]);
+                tails.add(chainTail[group]);
+                collapsed.add(slot < clusterNames.length && allowed[slot] == 1 && slotGroupCounts[slot] > 1
+                        ? slot
+                        : NO_CLUSTER);
+            }
+            if (!merged[group]) {
+                // groups are merged in rank order, so the last one merged has the run's last node
+                merged[group] = true;
+                tails.set(renumbered[bin], chainTail[group]);
+            }
+            groupOf[v] = renumbered[bin];
+        }
+        groupCount = collapsed.size();
+        chainHead = heads.toArray();
+        chainTail = tails.toArray();
+        collapsedCluster = collapsed.toArray();
+    }
+
+    private void indexGroupMembers() {
+        groupOffsets = new int[groupCount + 1];
+        for (final int group : groupOf) {
+            groupOffsets[group + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            groupOffsets[g + 1] += groupOffsets[g];
+        }
+        groupMembers = new int[groupOf.length];
+        final int[] next = Arrays.copyOf(groupOffsets, groupCount);
+        for (int v = 0; v < groupOf.length; v++) {
+            groupMembers[next[groupOf[v]]++] = v;
+        }
+    }
+
+    int groupCount() { return groupCount; }
+
+    void write(final Writer writer) throws IOException {
+        // distinct target groups of each group, in order of first appearance, with their edge counts; the reused
+        // arrays make this O(V + E) overall
+        final int[] seenFrom = new int[groupCount];
+        Arrays.fill(seenFrom, -1);
+        final int[] edgeCounts = new int[groupCount];
+        final IntList groupTargets = new IntList();
+        final IntList edgeTargets = new IntList();
+        final IntList edgeTargetCounts = new IntList();
+        final int[] edgeOffsets = new int[groupCount + 1];
+        final int[] omittedEdges = new int[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            groupTargets.clear();
+            for (int m = groupOffsets[g]; m < groupOffsets[g + 1]; m++) {
+                final int v = groupMembers[m];
+                for (int i = 0; i < adjacency.degree(v); i++) {
+                    final int w = adjacency.target(v, i);
+                    final int target = groupOf[w];
+                    // edges inside a group are implied by it, except for actual self-loops
+                    if (target == g && v != w) {
+                        continue;
+                    }
+                    if (seenFrom[target] != g) {
+                        seenFrom[target] = g;
+                        edgeCounts[target] = 0;
+                        groupTargets.add(target);
+                    }
+                    edgeCounts[target]++;
+                }
+            }
+            final int kept = Math.min(groupTargets.size(), detail.maxEdgesPerNode());
+            for (int e = 0; e < kept; e++) {
+                edgeTargets.add(groupTargets.get(e));
+                edgeTargetCounts.add(edgeCounts[groupTargets.get(e)]);
+            }
+            edgeOffsets[g + 1] = edgeTargets.size();
+            omittedEdges[g] = groupTargets.size() - kept;
+        }
+
+        writer.write("digraph G {\n");
+        // clusters in order of their first node, then the unclustered groups
+        final int[] clusterOffsets = new int[clusterNames.length + 2];
+        for (int g = 0; g < groupCount; g++) {
+            clusterOffsets[clusterSlot(g) + 1]++;
+        }
+        for (int c = 0; c <= clusterNames.length; c++) {
+            clusterOffsets[c + 1] += clusterOffsets[c];
+        }
+        final int[] groupsByCluster = new int[groupCount];
+        final int[] next = Arrays.copyOf(clusterOffsets, clusterNames.length + 1);
+        for (int g = 0; g < groupCount; g++) {
+            groupsByCluster[next[clusterSlot(g)]++] = g;
+        }
+        for (int cluster = 0; cluster <= clusterNames.length; cluster++) {
+            final boolean isCluster = cluster < clusterNames.length;
+            if (isCluster) {
+                writer.write("  subgraph cluster_");
+                writer.write(Integer.toString(cluster + 1));
+                writer.write(" {\n    label=\"");
+                writer.write(GraphUtils.escapeDOT(clusterNames[cluster]));
+                writer.write("\";\n");
+            }
+            for (int k = clusterOffsets[cluster]; k < clusterOffsets[cluster + 1]; k++) {
+                writeGroup(writer, groupsByCluster[k], omittedEdges[groupsByCluster[k]], isCluster ? "    " : "  ");
+            }
+            if (isCluster) {
+                writer.write("  }\n");
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            for (int e = edgeOffsets[g]; e < edgeOffsets[g + 1]; e++) {
+                writer.write("  ");
+                writer.write(Integer.toString(g + 1));
+                writer.write(" -> ");
+                writer.write(Integer.toString(edgeTargets.get(e) + 1));
+                if (edgeTargetCounts.get(e) > 1) {
+                    writer.write(" [ label=\"");
+                    writer.write(Integer.toString(edgeTargetCounts.get(e)));
+                    writer.write("\" ]");
+                }
+                writer.write(";\n");
+            }
+        }
+        writer.write("}\n");
+    }
+
+    // the cluster of a group (which is that of its first node), with unclustered groups after all of the clusters
+    private int clusterSlot(final int group) {
+        final int cluster = clusterOf[chainHead[group]];
+        return cluster == NO_CLUSTER ? clusterNames.length : cluster;
+    }
+
+    private void writeGroup(final Writer writer, final int group, final int omittedEdges, final String indent)
+            throws IOException {
+        final int size = groupOffsets[group + 1] - groupOffsets[group];
+        String label;
+        if (collapsedCluster[group] != NO_CLUSTER) {
+            label = String.format("%s (%d elements)", clusterNames[collapsedCluster[group]], size);
+        } else if (size == 1) {
+            label = String.valueOf(labels.apply(chainHead[group]));
+        } else {
+            label = String.format("%s ... %s (%d elements)",
+                    labels.apply(chainHead[group]), labels.apply(chainTail[group]), size);
+        }
+        if (omittedEdges > 0) {
+            label += String.format(" (+%d edges)", omittedEdges);
+        }
+        writer.write(indent);
+        writer.write(Integer.toString(group + 1));
+        writer.write(" [ label=\"");
+        writer.write(GraphUtils.escapeDOT(label));
+        writer.write("\" ];\n");
+    }
+}
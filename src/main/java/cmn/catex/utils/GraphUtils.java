@@ -3,56 +3,323 @@
  */
 package cmn.catex.utils;
 
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
+import cmn.catex.metrics.PhaseTimer;
 import htsjdk.io.IOPath;
+import htsjdk.utils.ValidationUtils;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.nio.Attribute;
 import org.jgrapht.nio.DefaultAttribute;
 import org.jgrapht.nio.dot.DOTExporter;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 public class GraphUtils {
-    private static String graphvizAppPath = "/opt/homebrew/bin/dot"; // Graphviz installation path
+    // Graphviz dot executable, found on the PATH unless set to a path
+    private static String graphvizAppPath = "dot";
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
 
     public enum GraphFileType {
         PNG,
-        PDF
+        PDF;
+
+        // Graphviz output format argument
+        public String getFormatArg() {
+            return switch (this) {
+                case PNG -> "-Tpng";
+                case PDF -> "-Tpdf";
+            };
+        }
+    }
+
+    /**
+     * Level-of-detail limits for {@link #writeDOTSummary}, which bound the size of the rendered graph.
+     *
+     * @param maxNodes maximum number of nodes drawn in all, including nodes that aren't in a cluster (though if
+     *                 there are more clusters than this, each cluster, and the unclustered nodes, still get one node)
+     * @param maxNodesPerCluster maximum number of nodes drawn in each cluster; adjacent nodes (after merging chains)
+     *                           of a cluster with more than this are merged until it fits
+     * @param maxEdgesPerNode maximum number of edges drawn from each node
+     * @param mergeChains whether to draw chains of nodes with a single successor as a single node
+     */
+    public record LevelOfDetail(int maxNodes, int maxNodesPerCluster, int maxEdgesPerNode, boolean mergeChains) {
+        public static final int DEFAULT_MAX_NODES = 2000;
+        public static final LevelOfDetail DEFAULT = new LevelOfDetail(DEFAULT_MAX_NODES, 200, 20, true);
+
+        public LevelOfDetail {
+            ValidationUtils.validateArg(maxNodes > 0, "maxNodes must be positive");
+            ValidationUtils.validateArg(maxNodesPerCluster > 0, "maxNodesPerCluster must be positive");
+            ValidationUtils.validateArg(maxEdgesPerNode >= 0, "maxEdgesPerNode must be non-negative");
+        }
+
+        /**
+         * Level of detail with at most {@link #DEFAULT_MAX_NODES} nodes in all.
+         */
+        public LevelOfDetail(final int maxNodesPerCluster, final int maxEdgesPerNode, final boolean mergeChains) {
+            this(DEFAULT_MAX_NODES, maxNodesPerCluster, maxEdgesPerNode, mergeChains);
+        }
     }
 
-    public static <E> void writeGraphToDOT(final Graph<E, DefaultEdge> graph, final IOPath path){
+    public static <E, T> void writeGraphToDOT(final Graph<E, T> graph, final IOPath path){
         // Export the graph to DOT format
-        final DOTExporter<E, DefaultEdge> exporter = new DOTExporter<>();
+        final DOTExporter<E, T> exporter = new DOTExporter<>();
         exporter.setVertexAttributeProvider((final E e) -> {
             final Map<String, Attribute> map = new LinkedHashMap<>();
             map.put("label", DefaultAttribute.createAttribute(e.toString()));
             return map;
         });
-        exporter.exportGraph(graph, path.getOutputStream());
+        try (final PhaseTimer timer = Metrics.start(Phase.EXPORT, "GraphUtils.writeGraphToDOT");
+             final OutputStream out = timer.countBytes(path.getOutputStream())) {
+            exporter.exportGraph(graph, out);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    public static void writeDOTToExternal(final IOPath ioDotPath, final IOPath ioOutputPath, final GraphFileType graphFileType) {
-        try {
-            final String graphTypeArg = switch (graphFileType) {
-                case PNG -> "-Tpng";
-                case PDF -> "-Tpdf";
-            };
-            final Process process = new ProcessBuilder(
-                    graphvizAppPath,
-                    graphTypeArg,
-                    ioDotPath.getRawInputString(),
-                    "-o",
-                    ioOutputPath.getRawInputString()).start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                System.err.println("Graphviz process failed with exit code: " + exitCode);
+    /**
+     * Edges between node ids, supplied in the order in which they are to be written.
+     */
+    @FunctionalInterface
+    public interface EdgeSource {
+        void forEachEdge(EdgeConsumer consumer) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(int from, int to) throws IOException;
+    }
+
+    // the edges of an adjacency, by source id and then in the order of each source's targets
+    private static EdgeSource edgesOf(final IntAdjacencyView adjacency) {
+        return consumer -> {
+            for (int node = 0; node < adjacency.nodeCount(); node++) {
+                final int degree = adjacency.degree(node);
+                for (int i = 0; i < degree; i++) {
+                    consumer.accept(node, adjacency.target(node, i));
+                }
+            }
+        };
+    }
+
+    /**
+     * Stream a graph to a DOT file in a single pass over its adjacency, without materializing a jgrapht Graph.
+     * The output is the same as {@link #writeGraphToDOT} for the same graph: nodes are numbered from 1 in id order,
+     * and each node is labeled with the string value of its label.
+     *
+     * @param adjacency graph to write
+     * @param labels label for each node id
+     * @param path output path
+     */
+    public static void writeDOT(final IntAdjacencyView adjacency, final IntFunction<?> labels, final IOPath path) {
+        writeDOT(adjacency, labels, path.getOutputStream());
+    }
+
+    /**
+     * Stream a graph in DOT format to an output stream (such as the input of a Graphviz process), as for
+     * {@link #writeDOT(IntAdjacencyView, IntFunction, IOPath)}. The stream is closed when the graph has been written.
+     */
+    public static void writeDOT(final IntAdjacencyView adjacency, final IntFunction<?> labels, final OutputStream out) {
+        writeDOT(adjacency.nodeCount(), labels, edgesOf(adjacency), out);
+    }
+
+    /**
+     * Stream a graph in DOT format to an output stream, with its edges in the order given by an edge source; the
+     * output is the same as {@link #writeGraphToDOT} for a graph whose vertices and edges were added in the same
+     * order. The stream is closed when the graph has been written.
+     *
+     * @param nodeCount number of nodes
+     * @param labels label for each node id
+     * @param edges edges of the graph
+     * @param out output stream
+     */
+    public static void writeDOT(
+            final int nodeCount,
+            final IntFunction<?> labels,
+            final EdgeSource edges,
+            final OutputStream out) {
+        try (final PhaseTimer timer = Metrics.start(Phase.EXPORT, "GraphUtils.writeDOT");
+             final Writer writer = newBufferedWriter(timer.countBytes(out))) {
+            writer.write("digraph G {\n");
+            for (int node = 0; node < nodeCount; node++) {
+                writer.write("  ");
+                writer.write(Integer.toString(node + 1));
+                writer.write(" [ label=\"");
+                writer.write(escapeDOT(String.valueOf(labels.apply(node))));
+                writer.write("\" ];\n");
             }
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+            edges.forEachEdge((from, to) -> {
+                writer.write("  ");
+                writer.write(Integer.toString(from + 1));
+                writer.write(" -> ");
+                writer.write(Integer.toString(to + 1));
+                writer.write(";\n");
+            });
+            writer.write("}\n");
+        } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Write a collapsed summary of a graph as DOT, for graphs that are too large to render in full: nodes can be
+     * grouped into clusters (drawn as DOT cluster subgraphs), chains of nodes are merged, and adjacent nodes are
+     * merged further until each cluster, and the graph as a whole, fits within the level of detail, which also caps
+     * out-degrees. The output has at most {@link LevelOfDetail#maxNodes()} nodes (or one per cluster, plus one for
+     * the unclustered nodes, if there are more clusters than that) and at most
+     * {@link LevelOfDetail#maxEdgesPerNode()} edges per node, whatever the size of the graph, though computing it
+     * takes time linear in the size of the graph. Merged nodes are labeled with their extent and size.
+     *
+     * @param adjacency graph to write
+     * @param labels label for each node id
+     * @param clusters cluster name for each node id (null for a node that isn't in a cluster), or null for no clusters
+     * @param detail level of detail
+     * @param out output stream, which is closed when the summary has been written
+     */
+    public static void writeDOTSummary(
+            final IntAdjacencyView adjacency,
+            final IntFunction<?> labels,
+            final IntFunction<String> clusters,
+            final LevelOfDetail detail,
+            final OutputStream out) {
+        try (final PhaseTimer timer = Metrics.start(Phase.EXPORT, "GraphUtils.writeDOTSummary");
+             final Writer writer = newBufferedWriter(timer.countBytes(out))) {
+            new GraphSummary(adjacency, labels, clusters, detail).write(writer);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stream a graph to a GraphML file in a single pass over its adjacency. Nodes are numbered from 1 in id order,
+     * and each node has a "label" data value.
+     *
+     * @param adjacency graph to write
+     * @param labels label for each node id
+     * @param path output path
+     */
+    public static void writeGraphML(final IntAdjacencyView adjacency, final IntFunction<?> labels, final IOPath path) {
+        writeGraphML(adjacency.nodeCount(), labels, edgesOf(adjacency), path);
+    }
+
+    /**
+     * Stream a graph to a GraphML file, with its edges in the order given by an edge source.
+     *
+     * @param nodeCount number of nodes
+     * @param labels label for each node id
+     * @param edges edges of the graph
+     * @param path output path
+     */
+    public static void writeGraphML(
+            final int nodeCount,
+            final IntFunction<?> labels,
+            final EdgeSource edges,
+            final IOPath path) {
+        try (final PhaseTimer timer = Metrics.start(Phase.EXPORT, "GraphUtils.writeGraphML");
+             final Writer writer = newBufferedWriter(timer.countBytes(path.getOutputStream()))) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+            writer.write("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n");
+            writer.write("  <graph edgedefault=\"directed\">\n");
+            for (int node = 0; node < nodeCount; node++) {
+                writer.write("    <node id=\"");
+                writer.write(Integer.toString(node + 1));
+                writer.write("\"><data key=\"label\">");
+                writer.write(escapeXML(String.valueOf(labels.apply(node))));
+                writer.write("</data></node>\n");
+            }
+            edges.forEachEdge((from, to) -> {
+                writer.write("    <edge source=\"");
+                writer.write(Integer.toString(from + 1));
+                writer.write("\" target=\"");
+                writer.write(Integer.toString(to + 1));
+                writer.write("\"/>\n");
+            });
+            writer.write("  </graph>\n");
+            writer.write("</graphml>\n");
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Writer newBufferedWriter(final OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    // quote escaping as done by DOTExporter, so that both writers produce the same output
+    static String escapeDOT(final String label) {
+        return label.indexOf('"') < 0 ? label : label.replace("\"", "\\\"");
+    }
+
+    private static String escapeXML(final String label) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < label.length(); i++) {
+            final char c = label.charAt(i);
+            final String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&apos;";
+                default -> null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(label.length() + 16).append(label, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? label : escaped.toString();
+    }
+
+    /**
+     * @param path path of the Graphviz dot executable used by {@link #writeDOTToExternal}, or "dot" to find it on
+     * the PATH
+     */
+    public static void setGraphvizAppPath(final String path) {
+        graphvizAppPath = path;
+    }
+
+    // renders synchronously; see GraphvizRenderer for asynchronous rendering without an intermediate DOT file
+    public static void writeDOTToExternal(final IOPath ioDotPath, final IOPath ioOutputPath, final GraphFileType graphFileType) {
+        Metrics.run(Phase.RENDER, "GraphUtils.writeDOTToExternal", () -> {
+            try {
+                // dot writes the output file itself, and any diagnostics are passed through rather than left to fill
+                // (and block on) the pipe buffers
+                final Process process = new ProcessBuilder(
+                        graphvizAppPath,
+                        graphFileType.getFormatArg(),
+                        ioDotPath.getRawInputString(),
+                        "-o",
+                        ioOutputPath.getRawInputString())
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                final int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    throw new RuntimeException(String.format(
+                            "Graphviz %s failed with exit code %d", graphvizAppPath, exitCode));
+                }
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
 }
@@ -0,0 +1,198 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+import cmn.catex.metrics.Metrics;
+import cmn.catex.metrics.Phase;
+import cmn.catex.metrics.PhaseTimer;
+import htsjdk.io.IOPath;
+import htsjdk.utils.ValidationUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders graphs with Graphviz asynchronously. The DOT for each graph is streamed into the stdin of the layout
+ * process, with no intermediate file, and at most a fixed number of layout processes run at once; further requests
+ * wait in a queue. The stderr of each process is drained as it is produced, so a process with a lot of diagnostics
+ * can't block on a full pipe.
+ */
+public final class GraphvizRenderer implements AutoCloseable {
+    private static final int MAX_DIAGNOSTICS_CHARS = 4096;
+
+    /**
+     * Graphviz layout engines. Each is run as the Graphviz executable of the same name.
+     */
+    public enum LayoutEngine {
+        DOT,
+        NEATO,
+        FDP,
+        SFDP;
+
+        // dot's hierarchical layout is superlinear in graph size, so large graphs use the multiscale force layout
+        static final int LARGE_GRAPH_NODE_COUNT = 10_000;
+
+        public String getExecutableName() { return name().toLowerCase(); }
+
+        /**
+         * @return the layout engine to use for a graph with the given number of nodes: dot, or sfdp for large graphs
+         */
+        public static LayoutEngine forNodeCount(final int nodeCount) {
+            return nodeCount < LARGE_GRAPH_NODE_COUNT ? DOT : SFDP;
+        }
+    }
+
+    /**
+     * Writes a graph in DOT format to a stream. The stream is closed once writeTo returns or throws, if it hasn't
+     * closed it already.
+     */
+    @FunctionalInterface
+    public interface DOTSource {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path graphvizDirectory;
+    private final ExecutorService renderExecutor;
+    // each running process has one thread draining its stderr, so there are at most maxProcesses of these
+    private final ThreadFactory drainThreadFactory = daemonThreadFactory("graphviz-drain");
+
+    /**
+     * Create a renderer that runs Graphviz executables found on the PATH.
+     *
+     * @param maxProcesses maximum number of Graphviz processes to run at once
+     */
+    public GraphvizRenderer(final int maxProcesses) {
+        this(null, maxProcesses);
+    }
+
+    /**
+     * @param graphvizDirectory directory containing the Graphviz executables, or null to find them on the PATH
+     * @param maxProcesses maximum number of Graphviz processes to run at once
+     */
+    public GraphvizRenderer(final Path graphvizDirectory, final int maxProcesses) {
+        ValidationUtils.validateArg(maxProcesses > 0, "maxProcesses must be positive");
+        this.graphvizDirectory = graphvizDirectory;
+        this.renderExecutor = Executors.newFixedThreadPool(maxProcesses, daemonThreadFactory("graphviz-render"));
+    }
+
+    /**
+     * Render a graph with the layout engine for its size; see {@link LayoutEngine#forNodeCount}.
+     *
+     * @param nodeCount number of nodes in the graph that dotSource writes
+     */
+    public CompletableFuture<IOPath> render(
+            final DOTSource dotSource,
+            final IOPath outputPath,
+            final GraphUtils.GraphFileType graphFileType,
+            final int nodeCount) {
+        return render(dotSource, outputPath, graphFileType, LayoutEngine.forNodeCount(nodeCount));
+    }
+
+    /**
+     * @param dotSource writes the graph to render
+     * @param outputPath path of the rendered output
+     * @param graphFileType format of the rendered output
+     * @param layoutEngine layout engine
+     * @return a future that completes with outputPath once Graphviz has written it, or completes exceptionally if
+     * Graphviz can't be started or fails
+     */
+    public CompletableFuture<IOPath> render(
+            final DOTSource dotSource,
+            final IOPath outputPath,
+            final GraphUtils.GraphFileType graphFileType,
+            final LayoutEngine layoutEngine) {
+        return CompletableFuture.supplyAsync(() -> {
+            runGraphviz(dotSource, outputPath, graphFileType, layoutEngine);
+            return outputPath;
+        }, renderExecutor);
+    }
+
+    private void runGraphviz(
+            final DOTSource dotSource,
+            final IOPath outputPath,
+            final GraphUtils.GraphFileType graphFileType,
+            final LayoutEngine layoutEngine) {
+        final String executable = graphvizDirectory == null ?
+                layoutEngine.getExecutableName() :
+                graphvizDirectory.resolve(layoutEngine.getExecutableName()).toString();
+        Process process = null;
+        try (final PhaseTimer timer = Metrics.start(Phase.RENDER, "GraphvizRenderer.render")) {
+            process = new ProcessBuilder(executable, graphFileType.getFormatArg(), "-o", outputPath.getRawInputString())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            final FutureTask<String> diagnostics = new FutureTask<>(drain(process.getErrorStream()));
+            drainThreadFactory.newThread(diagnostics).start();
+            Exception writeFailure = null;
+            try {
+                dotSource.writeTo(timer.countBytes(process.getOutputStream()));
+            } catch (final IOException | RuntimeException e) {
+                // most likely a broken pipe because the process exited early, which the exit code reports
+                writeFailure = e;
+            } finally {
+                // Graphviz only exits once it reads the end of its input, so close it even if dotSource didn't
+                try {
+                    process.getOutputStream().close();
+                } catch (final IOException e) {
+                    writeFailure = writeFailure == null ? e : writeFailure;
+                }
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new RuntimeException(String.format(
+                        "Graphviz %s failed with exit code %d: %s", executable, exitCode, diagnostics.get().strip()));
+            } else if (writeFailure != null) {
+                throw new RuntimeException(writeFailure);
+            }
+        } catch (final IOException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // read a stream to the end, retaining only its start
+    private static Callable<String> drain(final InputStream in) {
+        return () -> {
+            final StringBuilder retained = new StringBuilder();
+            final byte[] buffer = new byte[8192];
+            try (in) {
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    if (retained.length() < MAX_DIAGNOSTICS_CHARS) {
+                        retained.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            return retained.length() <= MAX_DIAGNOSTICS_CHARS ?
+                    retained.toString() :
+                    retained.substring(0, MAX_DIAGNOSTICS_CHARS);
+        };
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String prefix) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Stop accepting new requests; requests already submitted still run.
+     */
+    @Override
+    public void close() {
+        renderExecutor.shutdown();
+    }
+}
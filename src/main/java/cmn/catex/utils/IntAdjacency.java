@@ -0,0 +1,175 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable adjacency lists over dense int node ids. Each node with at least one outgoing edge owns a single
+ * primitive int array, so there is no per-edge object and no boxing. Targets are kept in insertion order.
+ *
+ * An adjacency created by {@link #sharing} starts out reading its rows from immutable CSR arrays, which may be shared
+ * with other adjacencies, and copies a node's row into an array of its own when an edge is first added to the node.
+ */
+public class IntAdjacency implements IntAdjacencyView {
+    private static final int[] NO_TARGETS = new int[0];
+    private static final int INITIAL_LIST_CAPACITY = 2;
+
+    // shared CSR rows, or null; node v's row is shared while lists[v] is null
+    private final int[] sharedOffsets;
+    private final int[] sharedTargets;
+    private int[][] lists;
+    private int[] sizes;
+    private int nodeCount;
+    private long edgeCount;
+
+    public IntAdjacency() {
+        this(16);
+    }
+
+    public IntAdjacency(final int expectedNodes) {
+        this(null, null, Math.max(expectedNodes, 1), 0);
+    }
+
+    private IntAdjacency(final int[] sharedOffsets, final int[] sharedTargets, final int capacity, final int nodeCount) {
+        this.sharedOffsets = sharedOffsets;
+        this.sharedTargets = sharedTargets;
+        this.lists = new int[capacity][];
+        this.sizes = new int[capacity];
+        this.nodeCount = nodeCount;
+        this.edgeCount = sharedTargets == null ? 0 : sharedTargets.length;
+    }
+
+    /**
+     * Create an adjacency whose edges are initially those of CSR arrays: the targets of node v are
+     * {@code targets[offsets[v] .. offsets[v + 1])}. The arrays are shared rather than copied, so this takes
+     * constant time, and they must not be modified afterwards.
+     */
+    public static IntAdjacency sharing(final int[] offsets, final int[] targets) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("CSR offsets are inconsistent with the targets");
+        }
+        return new IntAdjacency(offsets, targets, 0, offsets.length - 1);
+    }
+
+    /**
+     * Ensure that node ids [0, nodeCount) are valid.
+     *
+     * @param newNodeCount the minimum number of nodes
+     */
+    public void ensureNodes(final int newNodeCount) {
+        nodeCount = Math.max(nodeCount, newNodeCount);
+    }
+
+    public void add(final int from, final int to) {
+        ensureNodes(Math.max(from, to) + 1);
+        int[] list = ownedList(from);
+        final int size = sizes[from];
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            lists[from] = list;
+        }
+        list[size] = to;
+        sizes[from] = size + 1;
+        edgeCount++;
+    }
+
+    /**
+     * Copy the shared targets of node (see {@link #sharing}), if any, into an array of its own.
+     */
+    public void unshare(final int node) {
+        if (isShared(node)) {
+            ownedList(node);
+        }
+    }
+
+    // the array of node's targets, which is created (with any shared targets) if node doesn't have one yet
+    private int[] ownedList(final int node) {
+        if (node >= lists.length) {
+            final int newCapacity = Math.max(node + 1, lists.length * 2);
+            lists = Arrays.copyOf(lists, newCapacity);
+            sizes = Arrays.copyOf(sizes, newCapacity);
+        }
+        int[] list = lists[node];
+        if (list == null) {
+            final int size = sharedDegree(node);
+            list = new int[size + Math.max(INITIAL_LIST_CAPACITY, size >> 1)];
+            if (size > 0) {
+                System.arraycopy(sharedTargets, sharedOffsets[node], list, 0, size);
+            }
+            lists[node] = list;
+            sizes[node] = size;
+        }
+        return list;
+    }
+
+    @Override
+    public int nodeCount() { return nodeCount; }
+
+    public long edgeCount() { return edgeCount; }
+
+    @Override
+    public int degree(final int node) {
+        if (node >= nodeCount) {
+            return 0;
+        }
+        return node < lists.length && lists[node] != null ? sizes[node] : sharedDegree(node);
+    }
+
+    @Override
+    public int target(final int node, final int i) {
+        if (i < 0 || i >= degree(node)) {
+            throw new IndexOutOfBoundsException(String.format("Edge %d out of range for node %d", i, node));
+        }
+        return isShared(node) ? sharedTargets[sharedOffsets[node] + i] : lists[node][i];
+    }
+
+    /**
+     * @return true if node has edges that are still read from the shared CSR arrays (see {@link #sharing})
+     */
+    public boolean isShared(final int node) {
+        return (node >= lists.length || lists[node] == null) && sharedDegree(node) > 0;
+    }
+
+    /**
+     * @param node source node
+     * @param target target node
+     * @return true if there is at least one edge from node to target
+     */
+    public boolean contains(final int node, final int target) {
+        final int degree = degree(node);
+        if (degree == 0) {
+            return false;
+        }
+        final boolean shared = isShared(node);
+        final int[] list = shared ? sharedTargets : lists[node];
+        final int start = shared ? sharedOffsets[node] : 0;
+        for (int i = start; i < start + degree; i++) {
+            if (list[i] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node source node
+     * @return a copy of the targets of node, in insertion order
+     */
+    public int[] targets(final int node) {
+        final int degree = degree(node);
+        if (degree == 0) {
+            return NO_TARGETS;
+        }
+        return isShared(node)
+                ? Arrays.copyOfRange(sharedTargets, sharedOffsets[node], sharedOffsets[node] + degree)
+                : Arrays.copyOf(lists[node], degree);
+    }
+
+    private int sharedDegree(final int node) {
+        return sharedOffsets == null || node >= sharedOffsets.length - 1
+                ? 0
+                : sharedOffsets[node + 1] - sharedOffsets[node];
+    }
+}
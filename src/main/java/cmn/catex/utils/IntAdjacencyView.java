@@ -0,0 +1,19 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+/**
+ * Read-only view of adjacency lists over dense int node ids.
+ */
+public interface IntAdjacencyView {
+
+    int nodeCount();
+
+    int degree(int node);
+
+    /**
+     * @return the i'th target of node, in insertion order
+     */
+    int target(int node, int i);
+}
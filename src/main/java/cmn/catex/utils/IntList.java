@@ -0,0 +1,51 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(final int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(final int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    public int get(final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of range [0, %d)", i, size));
+        }
+        return values[i];
+    }
+
+    public void set(final int i, final int value) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of range [0, %d)", i, size));
+        }
+        values[i] = value;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() { size = 0; }
+
+    public int[] toArray() { return Arrays.copyOf(values, size); }
+}
@@ -0,0 +1,117 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex.utils;
+
+/**
+ * Open-addressing hash map from primitive longs to positive ints, with linear probing. A value of 0 means "absent",
+ * so there is no per-entry object, no boxing, and no separate occupancy table. Entries cannot be removed.
+ */
+public class LongIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public LongIntHashMap(final int expectedSize) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public LongIntHashMap(final LongIntHashMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    /**
+     * @return the value for key, or 0 if there is none
+     */
+    public int get(final long key) {
+        final int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param value a positive value to store for key, if it has none
+     * @return the previous value for key, or 0 if there was none (and value was stored)
+     */
+    public int putIfAbsent(final long key, final int value) {
+        return update(key, value, false);
+    }
+
+    /**
+     * @param delta a positive amount to add to the value for key (which is 0 if there is none)
+     * @return the previous value for key, or 0 if there was none
+     */
+    public int addTo(final long key, final int delta) {
+        return update(key, delta, true);
+    }
+
+    public int size() { return size; }
+
+    private int update(final long key, final int value, final boolean add) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(String.format("Value must be positive, got %d", value));
+        }
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final int previous = values[slot];
+                if (add) {
+                    values[slot] = Math.addExact(previous, value);
+                }
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // keep the load factor at or below 1/2
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return 0;
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new int[newCapacity];
+        final int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // spread the bits of the key (which is often two packed ints), as in SplitMix64
+    private static int slot(final long key, final int mask) {
+        long h = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LongIntHashMap(size=%d, capacity=%d)", size, keys.length);
+    }
+}
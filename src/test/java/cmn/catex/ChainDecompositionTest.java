@@ -0,0 +1,139 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class ChainDecompositionTest extends TestBase {
+
+    @Test
+    private void testNeedsTransitiveClosure() {
+        // the fewest paths along the morphisms is 3, but b < c < e, so {a, c, d} and {b, e} are chains
+        final FiniteCategory<Object, String> poset = new FiniteCategory<>();
+        poset.addElements("a", "b", "c", "d", "e");
+        poset.addMorphism("a", "c");
+        poset.addMorphism("b", "c");
+        poset.addMorphism("c", "d");
+        poset.addMorphism("c", "e");
+
+        Assert.assertEquals(poset.height(), 3);
+        Assert.assertEquals(poset.width(), 2);
+        assertIsChainCover(poset, poset.chainDecomposition());
+    }
+
+    @Test
+    private void testEmptyAndDiscrete() {
+        final FiniteCategory<Object, String> empty = new FiniteCategory<>();
+        Assert.assertEquals(empty.height(), 0);
+        Assert.assertEquals(empty.width(), 0);
+
+        final FiniteCategory<Object, String> discrete = new FiniteCategory<>();
+        discrete.addElements("a", "b", "c");
+        discrete.addMorphism("a", "a");
+        Assert.assertEquals(discrete.height(), 1);
+        Assert.assertEquals(discrete.width(), 3);
+    }
+
+    @Test
+    private void testMatchesLargestAntichain() {
+        final Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            final int n = 1 + random.nextInt(12);
+            final FiniteCategory<Object, Integer> poset = new FiniteCategory<>();
+            for (int i = 0; i < n; i++) {
+                poset.addElement(i);
+            }
+            // morphisms only go from smaller to larger numbers, so there are no cycles
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (random.nextInt(4) == 0) {
+                        poset.addMorphism(i, j);
+                    }
+                }
+            }
+            Assert.assertEquals(poset.width(), largestAntichain(poset));
+            assertIsChainCover(poset, poset.chainDecomposition());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsCycles() {
+        final FiniteCategory<Object, String> cycle = new FiniteCategory<>();
+        cycle.addElements("a", "b");
+        cycle.addMorphism("a", "b");
+        cycle.addMorphism("b", "a");
+        cycle.width();
+    }
+
+    @Test
+    private void testMillionIntervals() {
+        final Random random = new Random(19);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        for (int i = 0; i < 1_000_000; i++) {
+            final int start = 1 + random.nextInt(50_000_000);
+            intervalList.add(new Interval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(2_000)));
+        }
+        final FiniteCategory<IntervalList, Interval> contains =
+                GenomicIntervalTestUtils.toContainsCategory(intervalList);
+
+        final int height = contains.height();
+        final List<List<Interval>> chains = contains.chainDecomposition();
+        Assert.assertEquals(contains.width(), chains.size());
+        // a chain holds at most height elements
+        Assert.assertTrue((long) chains.size() * height >= contains.getElements().size());
+        int covered = 0;
+        for (final List<Interval> chain : chains) {
+            for (int i = 1; i < chain.size(); i++) {
+                Assert.assertTrue(chain.get(i - 1).contains(chain.get(i)), chain.toString());
+            }
+            covered += chain.size();
+        }
+        Assert.assertEquals(covered, contains.getElements().size());
+    }
+
+    private static <E> void assertIsChainCover(final FiniteCategory<?, E> poset, final List<List<E>> chains) {
+        final Set<E> covered = new HashSet<>();
+        for (final List<E> chain : chains) {
+            for (int i = 0; i < chain.size(); i++) {
+                Assert.assertTrue(covered.add(chain.get(i)));
+                if (i > 0) {
+                    Assert.assertTrue(poset.reachable(chain.get(i - 1)).contains(chain.get(i)), chain.toString());
+                }
+            }
+        }
+        Assert.assertEquals(covered, poset.getElements());
+    }
+
+    private static <E> int largestAntichain(final FiniteCategory<?, E> poset) {
+        final List<E> elements = new ArrayList<>(poset.getElements());
+        int largest = 0;
+        for (int subset = 0; subset < 1 << elements.size(); subset++) {
+            if (Integer.bitCount(subset) > largest && isAntichain(poset, elements, subset)) {
+                largest = Integer.bitCount(subset);
+            }
+        }
+        return largest;
+    }
+
+    private static <E> boolean isAntichain(final FiniteCategory<?, E> poset, final List<E> elements, final int subset) {
+        for (int i = 0; i < elements.size(); i++) {
+            if ((subset & (1 << i)) != 0) {
+                final Set<E> reachable = poset.reachable(elements.get(i));
+                for (int j = 0; j < elements.size(); j++) {
+                    if (j != i && (subset & (1 << j)) != 0 && reachable.contains(elements.get(j))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.ConcurrentFiniteCategory;
+import cmn.catex.cat.ConcurrentFiniteMorphisms;
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.Morphism;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+public class ConcurrentFiniteCategoryTest extends TestBase {
+
+    @Test
+    private void testConcurrentProducers() throws Exception {
+        final int threadCount = 8;
+        final int elementCount = 2000;
+        final ConcurrentFiniteCategory<Object, Integer> concurrent = new ConcurrentFiniteCategory<>("source");
+        IntStream.range(0, elementCount).parallel().forEach(concurrent::addElement);
+
+        // each thread owns the sources congruent to its id, so the order of each source's targets is deterministic
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int shard = t;
+                futures.add(executor.submit(() -> {
+                    for (int from = shard; from < elementCount; from += threadCount) {
+                        for (int k = 1; k <= 20; k++) {
+                            concurrent.addMorphism(from, (from * k) % elementCount);
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final FiniteCategory<Object, Integer> expected = new FiniteCategory<>("source");
+        IntStream.range(0, elementCount).forEach(expected::addElement);
+        for (int from = 0; from < elementCount; from++) {
+            for (int k = 1; k <= 20; k++) {
+                expected.addMorphism(from, (from * k) % elementCount);
+            }
+        }
+
+        final FiniteCategory<Object, Integer> actual = concurrent.toFiniteCategory();
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(concurrent.getMorphismMap(), expected.getMorphismMap());
+        Assert.assertEquals(actual.getElements().size(), elementCount);
+    }
+
+    @Test
+    private void testElementOrderIsAdditionOrder() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElements("z", "a", "m", "a");
+        concurrent.addMorphism("m", "z");
+        concurrent.addMorphism("m", "a");
+
+        final FiniteCategory<Object, String> finCat = concurrent.toFiniteCategory();
+        Assert.assertEquals(finCat.getElements().stream().toList(), List.of("z", "a", "m"));
+        Assert.assertEquals(finCat.getMorphismMap().get("m"), List.of("z", "a"));
+
+        // the result is an ordinary, mutable category
+        finCat.addElement("b");
+        finCat.addMorphism("b", "m");
+        Assert.assertFalse(concurrent.getElements().contains("b"));
+    }
+
+    @Test
+    private void testQueries() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElements("p", "q", "r", "s");
+        concurrent.addMorphism("p", "q");
+        concurrent.addMorphism("p", "q");
+        concurrent.addMorphism("q", "r");
+
+        Assert.assertEquals(concurrent.hom("p", "q"), List.of(new Morphism<>("p", "q"), new Morphism<>("p", "q")));
+        Assert.assertEquals(concurrent.hom("s", "s"), List.of(Morphism.identity("s")));
+        Assert.assertEquals(concurrent.compose(new Morphism<>("p", "q"), new Morphism<>("q", "r")), new Morphism<>("p", "r"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> concurrent.compose(new Morphism<>("q", "r"), new Morphism<>("r", "s")));
+        Assert.assertEquals(concurrent.reachable("p"), Set.of("p", "q", "r"));
+        Assert.assertEquals(concurrent.predecessors("q"), Set.of("p"));
+        Assert.assertEquals(concurrent.predecessors("s"), Set.of());
+    }
+
+    @Test
+    private void testComposeChain() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElements("p", "q", "r", "s");
+        concurrent.addMorphism("p", "q");
+        concurrent.addMorphism("q", "r");
+        concurrent.addMorphism("r", "s");
+
+        final Morphism<String> pr = concurrent.compose(new Morphism<>("p", "q"), new Morphism<>("q", "r"));
+        Assert.assertEquals(concurrent.compose(pr, new Morphism<>("r", "s")), new Morphism<>("p", "s"));
+        Assert.assertEquals(concurrent.hom("p", "r"), List.of(pr));
+        Assert.assertTrue(concurrent.hom("s", "p").isEmpty());
+    }
+
+    @Test
+    private void testTargetAndSourceViews() {
+        final ConcurrentFiniteMorphisms<String> morphisms = new ConcurrentFiniteMorphisms<>();
+        // more targets than fit in the first chunk of the append-only lists
+        for (int i = 0; i < 20; i++) {
+            morphisms.add("p", "t" + i);
+            morphisms.add("s" + i, "t0");
+        }
+        final List<String> targets = morphisms.targetsOf("p");
+        final List<String> sources = morphisms.sourcesOf("t0");
+        morphisms.add("p", "t20");
+        morphisms.add("s20", "t0");
+
+        // views are as of the call that returned them
+        Assert.assertEquals(targets, IntStream.range(0, 20).mapToObj(i -> "t" + i).toList());
+        Assert.assertEquals(sources, IntStream.range(-1, 20).mapToObj(i -> i < 0 ? "p" : "s" + i).toList());
+        Assert.assertEquals(morphisms.targetsOf("p").size(), 21);
+        Assert.assertEquals(morphisms.sourcesOf("t0").get(21), "s20");
+        Assert.assertEquals(morphisms.sourcesOf("p"), List.of());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testMorphismToUnknownElement() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElement("p");
+        concurrent.addMorphism("p", "q");
+    }
+
+    @Test
+    private void testHomOfUnknownElement() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElement("p");
+        Assert.assertThrows(IllegalArgumentException.class, () -> concurrent.hom("p", "unknown"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> concurrent.hom("unknown", "unknown"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testMorphismMapSourcesAreUnmodifiable() {
+        final ConcurrentFiniteCategory<Object, String> concurrent = new ConcurrentFiniteCategory<>();
+        concurrent.addElement("p");
+        concurrent.getMorphismMap().put("p", new ArrayList<>());
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.ElementCodec;
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.FiniteCategoryIO;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.genomics.intervals.IntervalCodec;
+import htsjdk.io.HtsPath;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FiniteCategoryIOTest extends TestBase {
+
+    private static IOPath createTempPath() throws IOException {
+        final Path path = Files.createTempFile("finiteCategoryIOTest", ".catx");
+        path.toFile().deleteOnExit();
+        return new HtsPath(path.toUri().toString());
+    }
+
+    @Test
+    private void testStringRoundTrip() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>("source");
+        finCat.addElements("p", "q", "", "ré");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("ré", "p");
+        finCat.addMorphism("", "");
+
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, ElementCodec.STRING, path);
+        final FiniteCategory<Object, String> roundTrip = FiniteCategoryIO.read(path, ElementCodec.STRING, "source");
+
+        Assert.assertTrue(roundTrip.isFrozen());
+        Assert.assertEquals(roundTrip, finCat);
+        Assert.assertEquals(roundTrip.getElements().stream().toList(), List.of("p", "q", "", "ré"));
+        Assert.assertEquals(roundTrip.getMorphismMap().get("p"), List.of("q", "q"));
+    }
+
+    @DataProvider(name = "policies")
+    public Object[][] getPolicies() {
+        return Arrays.stream(MorphismPolicy.values()).map(policy -> new Object[]{policy}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "policies")
+    private void testPolicyRoundTrip(final MorphismPolicy policy) throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>("source", policy);
+        finCat.addElements("p", "q", "r");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("q", "r");
+        finCat.addMorphism("r", "r");
+
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, ElementCodec.STRING, path);
+        final FiniteCategory<Object, String> roundTrip = FiniteCategoryIO.read(path, ElementCodec.STRING, "source");
+
+        Assert.assertEquals(roundTrip.getMorphismPolicy(), policy);
+        Assert.assertEquals(roundTrip, finCat);
+        for (final String from : finCat.getElements()) {
+            for (final String to : finCat.getElements()) {
+                Assert.assertEquals(roundTrip.multiplicity(from, to), finCat.multiplicity(from, to));
+            }
+        }
+        Assert.assertEquals(roundTrip.multiplicity("p", "q"), policy == MorphismPolicy.SET ? 1 : 3);
+
+        // the policy and multiplicities carry over to a mutable copy, and to the file written from a snapshot
+        final FiniteCategory<Object, String> mutable = roundTrip.toMutable();
+        mutable.addMorphism("q", "r");
+        Assert.assertEquals(mutable.getMorphismPolicy(), policy);
+        Assert.assertEquals(mutable.multiplicity("q", "r"), policy == MorphismPolicy.SET ? 1 : 2);
+        FiniteCategoryIO.write(roundTrip, ElementCodec.STRING, path);
+        Assert.assertEquals(FiniteCategoryIO.read(path, ElementCodec.STRING, "source").multiplicity("p", "q"),
+                roundTrip.multiplicity("p", "q"));
+    }
+
+    @Test
+    private void testIntervalRoundTrip() throws IOException {
+        final Random random = new Random(17);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        for (int i = 0; i < 500; i++) {
+            final int start = 1 + random.nextInt(2000);
+            intervalList.add(new Interval(
+                    random.nextBoolean() ? "1" : "2",
+                    start,
+                    start + random.nextInt(40),
+                    random.nextBoolean(),
+                    i % 3 == 0 ? null : "interval-" + i));
+        }
+        final FiniteCategory<IntervalList, Interval> finCat = IntervalCategories.toOverlapsCategory(intervalList);
+
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, IntervalCodec.INSTANCE, path);
+        final FiniteCategory<IntervalList, Interval> roundTrip =
+                FiniteCategoryIO.read(path, IntervalCodec.INSTANCE, intervalList);
+
+        Assert.assertEquals(roundTrip, finCat);
+        final List<Interval> expected = finCat.getElements().stream().toList();
+        final List<Interval> actual = roundTrip.getElements().stream().toList();
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).getName(), expected.get(i).getName());
+            Assert.assertEquals(actual.get(i).isNegativeStrand(), expected.get(i).isNegativeStrand());
+        }
+    }
+
+    @Test
+    private void testReadCategoryQueriesAndCopies() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        for (int i = 0; i < 100; i++) {
+            finCat.addElement("e" + i);
+            if (i > 0) {
+                finCat.addMorphism("e" + (i - 1), "e" + i);
+            }
+        }
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, ElementCodec.STRING, path);
+        final FiniteCategory<Object, String> roundTrip = FiniteCategoryIO.read(path, ElementCodec.STRING, null);
+
+        Assert.assertTrue(roundTrip.getElements().contains("e99"));
+        Assert.assertEquals(roundTrip.reachable("e98"), finCat.reachable("e98"));
+        Assert.assertEquals(roundTrip.toIndexedDigraph().edgeCount(), 99);
+
+        final FiniteCategory<Object, String> mutable = roundTrip.toMutable();
+        mutable.addElement("e100");
+        mutable.addMorphism("e99", "e100");
+        Assert.assertTrue(mutable.reachable("e0").contains("e100"));
+        Assert.assertFalse(roundTrip.getElements().contains("e100"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testCodecMismatch() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElement("p");
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, ElementCodec.STRING, path);
+        FiniteCategoryIO.read(path, IntervalCodec.INSTANCE, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testNotACategoryFile() throws IOException {
+        final IOPath path = createTempPath();
+        Files.writeString(path.toPath(), "digraph G {\n}\n");
+        FiniteCategoryIO.read(path, ElementCodec.STRING, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testTruncatedFile() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("p", "q");
+        finCat.addMorphism("p", "q");
+        final IOPath path = createTempPath();
+        FiniteCategoryIO.write(finCat, ElementCodec.STRING, path);
+        final byte[] bytes = Files.readAllBytes(path.toPath());
+        Files.write(path.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+        FiniteCategoryIO.read(path, ElementCodec.STRING, null);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.Morphism;
+import cmn.catex.cat.MorphismPolicy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class FiniteCategorySnapshotTest extends TestBase {
+
+    private static FiniteCategory<Object, String> getTestCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>("source");
+        finCat.addElements("p", "q", "r", "s");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("r", "s");
+        finCat.addMorphism("p", "s");
+        return finCat;
+    }
+
+    @Test
+    private void testSnapshotEqualsOriginal() {
+        final FiniteCategory<Object, String> finCat = getTestCategory();
+        final FiniteCategory<Object, String> snapshot = finCat.snapshot();
+
+        Assert.assertTrue(snapshot.isFrozen());
+        Assert.assertFalse(finCat.isFrozen());
+        Assert.assertEquals(snapshot, finCat);
+        Assert.assertEquals(finCat, snapshot);
+        Assert.assertEquals(snapshot.hashCode(), finCat.hashCode());
+        Assert.assertEquals(snapshot.getSource(), "source");
+        Assert.assertEquals(snapshot.getElements().stream().toList(), List.of("p", "q", "r", "s"));
+        Assert.assertEquals(snapshot.getMorphismMap().get("p"), List.of("q", "s"));
+        Assert.assertSame(snapshot.snapshot(), snapshot);
+    }
+
+    @Test
+    private void testSnapshotIsIndependentOfOriginal() {
+        final FiniteCategory<Object, String> finCat = getTestCategory();
+        final FiniteCategory<Object, String> snapshot = finCat.snapshot();
+
+        finCat.addElement("t");
+        finCat.addMorphism("q", "t");
+        finCat.getMorphismMap().get("p").add("r");
+
+        Assert.assertFalse(snapshot.getElements().contains("t"));
+        Assert.assertFalse(snapshot.getMorphismMap().containsKey("q"));
+        Assert.assertEquals(snapshot.getMorphismMap().get("p"), List.of("q", "s"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testSnapshotRejectsAddElement() {
+        getTestCategory().snapshot().addElement("t");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testSnapshotRejectsAddMorphism() {
+        getTestCategory().snapshot().addMorphism("q", "r");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testSnapshotMorphismMapIsUnmodifiable() {
+        getTestCategory().snapshot().getMorphismMap().get("p").add("r");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testSnapshotElementsAreUnmodifiable() {
+        getTestCategory().snapshot().getElements().add("t");
+    }
+
+    @Test
+    private void testSnapshotQueries() {
+        final FiniteCategory<Object, String> snapshot = getTestCategory().snapshot();
+
+        Assert.assertEquals(snapshot.hom("p", "s"), List.of(new Morphism<>("p", "s")));
+        Assert.assertEquals(snapshot.reachable("p"), Set.of("p", "q", "s"));
+        Assert.assertEquals(snapshot.predecessors("s"), Set.of("p", "r"));
+        Assert.assertEquals(snapshot.transitiveClosure().getMorphismMap(), snapshot.getMorphismMap());
+    }
+
+    @Test
+    private void testToMutable() {
+        final FiniteCategory<Object, String> snapshot = getTestCategory().snapshot();
+        final FiniteCategory<Object, String> mutable = snapshot.toMutable();
+
+        Assert.assertEquals(mutable, snapshot);
+        mutable.addElement("t");
+        mutable.addMorphism("s", "t");
+        Assert.assertEquals(mutable.getMorphismMap().get("s"), List.of("t"));
+        Assert.assertEquals(mutable.reachable("r"), Set.of("r", "s", "t"));
+        Assert.assertFalse(snapshot.getElements().contains("t"));
+        Assert.assertEquals(snapshot.getMorphismMap(), Map.of("p", List.of("q", "s"), "r", List.of("s")));
+    }
+
+    @Test
+    private void testPredecessorsOfCopies() {
+        // the reverse index is built on first use, before or after the snapshot is copied
+        for (final boolean queryFirst : new boolean[]{true, false}) {
+            final FiniteCategory<Object, String> snapshot = getTestCategory().snapshot();
+            if (queryFirst) {
+                Assert.assertEquals(snapshot.predecessors("s"), Set.of("p", "r"));
+            }
+            final FiniteCategory<Object, String> mutable = snapshot.toMutable();
+            mutable.addElement("t");
+            mutable.addMorphism("t", "s");
+            Assert.assertEquals(mutable.predecessors("s"), Set.of("p", "r", "t"));
+            mutable.addMorphism("q", "s");
+            Assert.assertEquals(mutable.predecessors("s"), Set.of("p", "r", "t", "q"));
+            Assert.assertEquals(mutable.multiplicity("q", "s"), 1);
+            Assert.assertEquals(snapshot.predecessors("s"), Set.of("p", "r"));
+        }
+    }
+
+    @Test
+    private void testCopiesOfSnapshotAreIndependent() {
+        for (final MorphismPolicy policy : MorphismPolicy.values()) {
+            // "hub" has more targets than are scanned for repeats, so SET and COUNTED index them by hash
+            final FiniteCategory<Object, String> finCat = new FiniteCategory<>("source", policy);
+            finCat.addElements("hub", "leaf");
+            for (int i = 0; i < 40; i++) {
+                finCat.addElement("e" + i);
+                finCat.addMorphism("hub", "e" + i);
+            }
+            finCat.addMorphism("hub", "e3");
+            finCat.addMorphism("e1", "e2");
+            final FiniteCategory<Object, String> snapshot = finCat.snapshot();
+            Assert.assertSame(finCat.snapshot(), snapshot);
+
+            final FiniteCategory<Object, String> first = snapshot.toMutable();
+            final FiniteCategory<Object, String> second = snapshot.toMutable();
+            Assert.assertEquals(first, snapshot);
+            Assert.assertEquals(first.multiplicity("hub", "e3"), snapshot.multiplicity("hub", "e3"));
+
+            first.addMorphism("hub", "e5");
+            first.addMorphism("hub", "leaf");
+            first.addElement("new");
+            first.addMorphism("leaf", "new");
+            second.addMorphism("e1", "e4");
+
+            Assert.assertEquals(snapshot.toMutable(), snapshot);
+            Assert.assertEquals(first.multiplicity("hub", "e5"), policy == MorphismPolicy.SET ? 1 : 2);
+            Assert.assertEquals(first.multiplicity("hub", "e3"), policy == MorphismPolicy.SET ? 1 : 2);
+            Assert.assertEquals(first.getMorphismMap().get("hub").size(), policy == MorphismPolicy.MULTIGRAPH ? 43 : 41);
+            Assert.assertEquals(first.getMorphismMap().get("leaf"), List.of("new"));
+            Assert.assertEquals(first.reachable("hub").size(), 43);
+            Assert.assertEquals(first.predecessors("leaf"), Set.of("hub"));
+            Assert.assertEquals(first.getElements().size(), 43);
+            Assert.assertEquals(second.getMorphismMap().get("e1"), List.of("e2", "e4"));
+            Assert.assertEquals(second.getElements(), new LinkedHashSet<>(snapshot.getElements()));
+            Assert.assertEquals(snapshot.getMorphismMap(), finCat.getMorphismMap());
+            Assert.assertEquals(first.snapshot().getMorphismMap(), first.getMorphismMap());
+            Assert.assertEquals(first.toMutable(), first);
+        }
+    }
+}
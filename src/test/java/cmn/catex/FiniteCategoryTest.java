@@ -2,10 +2,17 @@ package cmn.catex;
 
 import cmn.catex.cat.FiniteCategory;
 import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.cat.IndexedDigraph;
+import cmn.catex.cat.IndexedEdge;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import cmn.catex.cat.Morphism;
+import cmn.catex.cat.MorphismPolicy;
+import org.jgrapht.Graph;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,6 +73,51 @@ public class FiniteCategoryTest {
             });
     }
 
+    @Test
+    private void testOfTrustedAdoptsMorphisms() {
+        final FiniteMorphisms<String> morphisms = new FiniteMorphisms<>();
+        morphisms.add("X", "Y");
+        final FiniteCategory<Object, String> finCat =
+                FiniteCategory.ofTrusted(null, Arrays.asList("X", "Y"), morphisms);
+
+        Assert.assertEquals(finCat.getElements(), Set.of("X", "Y"));
+        Assert.assertSame(finCat.getMorphismMap(), morphisms.getMorphismMap());
+    }
+
+    @Test
+    private void testOfTrustedAdoptsOnlyLinkedHashSets() {
+        final LinkedHashSet<String> linked = new LinkedHashSet<>(List.of("X", "Y"));
+        Assert.assertSame(FiniteCategory.ofTrusted(null, linked, new FiniteMorphisms<>()).getElements(), linked);
+
+        // any other set is copied, so an immutable or unordered set doesn't make the category immutable or unordered
+        final Set<String> immutable = Set.of("X", "Y");
+        final FiniteCategory<Object, String> finCat = FiniteCategory.of(null, immutable, new FiniteMorphisms<>());
+        Assert.assertNotSame(finCat.getElements(), immutable);
+        finCat.addElement("Z");
+        Assert.assertEquals(finCat.getElements(), Set.of("X", "Y", "Z"));
+        Assert.assertEquals(immutable, Set.of("X", "Y"));
+    }
+
+    @Test
+    private void testBulkLoadAdoptsValidatedMorphisms() {
+        final IndexedFiniteMorphisms<String> morphisms = new IndexedFiniteMorphisms<>();
+        morphisms.add("X", "Y");
+        morphisms.add("Y", "Z");
+        final FiniteCategory<Object, String> finCat =
+                FiniteCategory.of(null, Arrays.asList("X", "Y", "Z"), morphisms);
+
+        Assert.assertSame(finCat.getMorphismMap(), morphisms.getMorphismMap());
+        Assert.assertEquals(finCat, new FiniteCategory<>(null, Arrays.asList("X", "Y", "Z"), morphisms));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testBulkLoadRejectsUnknownElementMorphisms() {
+        final IndexedFiniteMorphisms<String> morphisms = new IndexedFiniteMorphisms<>();
+        morphisms.add("X", "Y");
+        morphisms.add("Y", "A"); // 'A' not in elements list
+        FiniteCategory.of(null, Arrays.asList("X", "Y", "Z"), morphisms);
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     private void testRejectMorphismsForUnknownElements() throws IllegalArgumentException {
         // adding a morphism without prior addElement calls
@@ -117,4 +169,193 @@ public class FiniteCategoryTest {
         Assert.assertEquals(a, b);
         Assert.assertEquals(a.hashCode(), b.hashCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    private void testHomSetQueries() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+
+        Assert.assertEquals(finCat.hom("a", "b"), List.of(new Morphism<>("a", "b"), new Morphism<>("a", "b")));
+        Assert.assertEquals(finCat.hom("a", "a"), List.of(Morphism.identity("a")));
+        Assert.assertTrue(finCat.hom("b", "a").isEmpty());
+        Assert.assertEquals(finCat.reachable("a"), Set.of("a", "b", "c"));
+        Assert.assertEquals(finCat.predecessors("b"), Set.of("a"));
+
+        // the indexes are maintained as the category grows
+        finCat.addElement("d");
+        finCat.addMorphism("c", "d");
+        finCat.addMorphism("a", "d");
+        Assert.assertEquals(finCat.reachable("b"), Set.of("b", "c", "d"));
+        Assert.assertEquals(finCat.predecessors("d"), Set.of("c", "a"));
+        Assert.assertEquals(finCat.hom("c", "d"), List.of(new Morphism<>("c", "d")));
+    }
+
+    @Test
+    private void testCompose() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+
+        final Morphism<String> f = finCat.hom("a", "b").get(0);
+        final Morphism<String> g = finCat.hom("b", "c").get(0);
+        Assert.assertEquals(finCat.compose(f, g), new Morphism<>("a", "c"));
+        Assert.assertEquals(finCat.compose(Morphism.identity("a"), f), f);
+        Assert.assertEquals(finCat.compose(f, Morphism.identity("b")), f);
+    }
+
+    @Test
+    private void testComposeChain() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c", "d");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+        finCat.addMorphism("c", "d");
+
+        // composites can be composed again, and are reported by hom
+        final Morphism<String> ac = finCat.compose(new Morphism<>("a", "b"), new Morphism<>("b", "c"));
+        Assert.assertEquals(finCat.compose(ac, new Morphism<>("c", "d")), new Morphism<>("a", "d"));
+        Assert.assertEquals(finCat.compose(new Morphism<>("a", "b"), finCat.compose(new Morphism<>("b", "c"),
+                new Morphism<>("c", "d"))), new Morphism<>("a", "d"));
+        Assert.assertEquals(finCat.hom("a", "c"), List.of(ac));
+        Assert.assertEquals(finCat.hom("a", "d"), List.of(new Morphism<>("a", "d")));
+        Assert.assertTrue(finCat.hom("d", "a").isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testComposeRejectsNonComposable() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.compose(new Morphism<>("a", "b"), new Morphism<>("a", "c"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testComposeRejectsMorphismsNotInCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.addMorphism("a", "b");
+        finCat.compose(new Morphism<>("b", "c"), new Morphism<>("c", "a"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testQueriesRejectUnknownElements() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a");
+        finCat.reachable("z");
+    }
+
+    @Test
+    private void testDerivedStructuresAreCachedUntilModified() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.addMorphism("a", "b");
+
+        final Graph<String, IndexedEdge> graph = finCat.asGraph();
+        final IndexedDigraph<String> indexedDigraph = finCat.toIndexedDigraph();
+        final int hashCode = finCat.hashCode();
+        Assert.assertSame(finCat.asGraph(), graph);
+        Assert.assertSame(finCat.toIndexedDigraph(), indexedDigraph);
+
+        // re-adding an existing element isn't a change
+        finCat.addElement("a");
+        Assert.assertSame(finCat.asGraph(), graph);
+
+        finCat.addMorphism("b", "c");
+        Assert.assertNotSame(finCat.asGraph(), graph);
+        Assert.assertNotSame(finCat.toIndexedDigraph(), indexedDigraph);
+        Assert.assertEquals(finCat.asGraph().edgeSet().size(), 2);
+        Assert.assertEquals(finCat.toIndexedDigraph().edgeCount(), 2);
+        Assert.assertNotEquals(finCat.hashCode(), hashCode);
+
+        finCat.addElement("d");
+        Assert.assertTrue(finCat.asGraph().containsVertex("d"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testCachedGraphIsUnmodifiable() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b");
+        finCat.asGraph().addEdge("a", "b");
+    }
+
+    @Test
+    private void testCachedClosureIsImmutable() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+
+        final FiniteCategory<Object, String> closure = finCat.transitiveClosure();
+        Assert.assertTrue(closure.isFrozen());
+        Assert.assertSame(finCat.transitiveClosure(), closure);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> closure.addElement("d"));
+        final FiniteCategory<Object, String> mutable = closure.toMutable();
+        mutable.addElement("d");
+        mutable.addMorphism("c", "d");
+        Assert.assertEquals(finCat.transitiveClosure().getMorphismMap(), Map.of("a", List.of("b", "c"), "b", List.of("c")));
+
+        finCat.addMorphism("c", "a");
+        Assert.assertEquals(finCat.transitiveClosure().getMorphismMap().get("c"), List.of("a", "b"));
+    }
+
+    @Test
+    private void testEqualityAfterModification() {
+        final FiniteCategory<Object, String> left = new FiniteCategory<>();
+        final FiniteCategory<Object, String> right = new FiniteCategory<>();
+        left.addElements("a", "b");
+        right.addElements("a", "b");
+        Assert.assertEquals(left, right);
+
+        left.addMorphism("a", "b");
+        Assert.assertNotEquals(left, right);
+        right.addMorphism("a", "b");
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(left.hashCode(), right.hashCode());
+
+        // equality and hash codes compare contents, even after changes made directly to the morphism map
+        left.addMorphism("a", "b");
+        Assert.assertNotEquals(left.hashCode(), right.hashCode());
+        right.getMorphismMap().get("a").add("b");
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(left.hashCode(), right.hashCode());
+    }
+
+    @Test
+    private void testSetPolicyCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>(null, MorphismPolicy.SET);
+        finCat.addElements("a", "b");
+        finCat.addMorphism("a", "b");
+        final int hashCode = finCat.hashCode();
+        finCat.addMorphism("a", "b");
+
+        Assert.assertEquals(finCat.hom("a", "b"), List.of(new Morphism<>("a", "b")));
+        Assert.assertEquals(finCat.getMorphismMap().get("a"), List.of("b"));
+        Assert.assertEquals(finCat.hashCode(), hashCode);
+        Assert.assertEquals(finCat.toMutable().getMorphismPolicy(), MorphismPolicy.SET);
+        Assert.assertEquals(finCat.snapshot().getMorphismPolicy(), MorphismPolicy.SET);
+    }
+
+    @Test
+    private void testCountedPolicyCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>(null, MorphismPolicy.COUNTED);
+        finCat.addElements("a", "b");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("a", "b");
+
+        Assert.assertEquals(finCat.getMorphismMap().get("a"), List.of("b"));
+        Assert.assertEquals(finCat.multiplicity("a", "b"), 2);
+        Assert.assertEquals(finCat.hom("a", "b"), List.of(new Morphism<>("a", "b"), new Morphism<>("a", "b")));
+        Assert.assertEquals(finCat.getStats().edgeCount(), 1);
+
+        final FiniteCategory<Object, String> snapshot = finCat.snapshot();
+        Assert.assertEquals(snapshot.multiplicity("a", "b"), 2);
+        Assert.assertEquals(snapshot, finCat);
+        final FiniteCategory<Object, String> copy = snapshot.toMutable();
+        copy.addMorphism("a", "b");
+        Assert.assertEquals(copy.multiplicity("a", "b"), 3);
+        Assert.assertNotEquals(copy, finCat);
+    }
+}
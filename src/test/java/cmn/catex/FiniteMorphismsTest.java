@@ -1,6 +1,7 @@
 package cmn.catex;
 
 import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.cat.MorphismPolicy;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -32,6 +33,73 @@ public class FiniteMorphismsTest extends TestBase {
         Assert.assertEquals(Arrays.asList("v1", "v2", "v1"), values);
     }
 
+    @Test
+    private void testSetPolicyIgnoresRepeatedMorphisms() {
+        final FiniteMorphisms<String> fm = new FiniteMorphisms<>(MorphismPolicy.SET);
+        Assert.assertTrue(fm.add("k", "v1"));
+        Assert.assertTrue(fm.add("k", "v2"));
+        Assert.assertFalse(fm.add("k", "v1"));
+
+        Assert.assertEquals(fm.getMorphismMap().get("k"), Arrays.asList("v1", "v2"));
+        Assert.assertEquals(fm.multiplicity("k", "v1"), 1);
+        Assert.assertEquals(fm.multiplicity("k", "v3"), 0);
+    }
+
+    @Test
+    private void testRepeatsOfManyTargetsAreDetected() {
+        final FiniteMorphisms<Integer> set = new FiniteMorphisms<>(MorphismPolicy.SET);
+        final FiniteMorphisms<Integer> counted = new FiniteMorphisms<>(MorphismPolicy.COUNTED);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 40; i++) {
+                Assert.assertEquals(set.add(0, i), round == 0);
+                Assert.assertEquals(counted.add(0, i), round == 0);
+            }
+        }
+
+        Assert.assertEquals(set.getMorphismMap().get(0).size(), 40);
+        Assert.assertEquals(set.multiplicity(0, 39), 1);
+        Assert.assertEquals(counted.multiplicity(0, 39), 2);
+        Assert.assertEquals(new FiniteMorphisms<>(counted).multiplicity(0, 39), 2);
+        Assert.assertFalse(new FiniteMorphisms<>(set).add(0, 39));
+    }
+
+    @Test
+    private void testTargetsAddedThroughTheMorphismMap() {
+        final FiniteMorphisms<Integer> set = new FiniteMorphisms<>(MorphismPolicy.SET);
+        for (int i = 0; i < 16; i++) {
+            set.add(0, i);
+        }
+        // one target past the scanned size, and then one more once the source has a set of its targets
+        set.getMorphismMap().get(0).add(16);
+        Assert.assertFalse(set.add(0, 16));
+        Assert.assertTrue(set.add(0, 17));
+        set.getMorphismMap().get(0).add(18);
+        Assert.assertFalse(set.add(0, 18));
+        Assert.assertEquals(set.multiplicity(0, 18), 1);
+        Assert.assertEquals(set.getMorphismMap().get(0).size(), 19);
+    }
+
+    @Test
+    private void testCountedPolicyKeepsMultiplicities() {
+        final FiniteMorphisms<String> fm = new FiniteMorphisms<>(MorphismPolicy.COUNTED);
+        fm.add("k", "v1");
+        fm.add("k", "v1");
+        fm.add("k", "v1");
+        fm.add("k", "v2");
+
+        Assert.assertEquals(fm.getMorphismMap().get("k"), Arrays.asList("v1", "v2"));
+        Assert.assertEquals(fm.multiplicity("k", "v1"), 3);
+        Assert.assertEquals(fm.multiplicity("k", "v2"), 1);
+
+        final FiniteMorphisms<String> copy = new FiniteMorphisms<>(fm);
+        Assert.assertEquals(copy.getPolicy(), MorphismPolicy.COUNTED);
+        Assert.assertEquals(copy, fm);
+        copy.add("k", "v2");
+        Assert.assertEquals(copy.multiplicity("k", "v2"), 2);
+        Assert.assertEquals(fm.multiplicity("k", "v2"), 1);
+        Assert.assertNotEquals(copy, fm); // same morphism map, different multiplicities
+    }
+
     @Test
     private void testCopyConstructorCreatesDeepListsAndIndependentCopy() {
         final FiniteMorphisms<String> original = new FiniteMorphisms<>();
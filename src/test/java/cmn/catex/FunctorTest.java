@@ -0,0 +1,139 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.Functor;
+import cmn.catex.cat.Morphism;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class FunctorTest extends TestBase {
+
+    @Test
+    private void testImageOfIntervalsInBins() {
+        final FiniteCategory<IntervalList, Interval> overlaps =
+                GenomicIntervalTestUtils.toOverlapsCategory(
+                        GenomicIntervalTestUtils.randomIntervals(100_000, 10_000_000, 500, new Random(37)));
+        final Functor<Interval, Interval> toBin = binFunctor(5_000);
+
+        final FiniteCategory<IntervalList, Interval> image = toBin.image(overlaps, null);
+        Assert.assertEquals(image.getMorphismPolicy(), MorphismPolicy.SET);
+        Assert.assertEquals(image.getSource(), overlaps.getSource());
+        final FiniteCategory<IntervalList, Interval> expected = naiveImage(overlaps, toBin);
+        Assert.assertEquals(image.getElements(), expected.getElements());
+        // the naive image adds morphisms in the order of the morphism map rather than of the elements
+        Assert.assertEquals(morphismSet(image), morphismSet(expected));
+        Assert.assertEquals(toBin.image(overlaps, ForkJoinPool.commonPool()), image);
+        Assert.assertTrue(toBin.isFunctor(overlaps, image));
+    }
+
+    @Test
+    private void testCompositesAndIdentitiesArePreserved() {
+        final FiniteCategory<Object, String> source = new FiniteCategory<>();
+        source.addElements("a", "b", "c");
+        source.addMorphism("a", "b");
+        source.addMorphism("b", "c");
+        final FiniteCategory<Object, String> target = new FiniteCategory<>();
+        target.addElements("A", "X", "C");
+        target.addMorphism("A", "X");
+        target.addMorphism("X", "C");
+
+        // a -> b maps to the identity of A, and b -> c to the composite A -> X -> C
+        final Functor<String, String> functor = new Functor<>(element -> element.equals("c") ? "C" : "A");
+        Assert.assertTrue(functor.isFunctor(source, target));
+
+        final Functor<String, String> reversed = new Functor<>(element -> element.equals("a") ? "C" : "A");
+        Assert.assertEquals(reversed.violations(source, target), List.of(new Morphism<>("a", "b")));
+    }
+
+    @Test
+    private void testCompositesFromAlternatingImageSources() {
+        final FiniteCategory<Object, String> target = new FiniteCategory<>();
+        target.addElements("t3", "tx", "ty", "t5");
+        target.addMorphism("t3", "tx");
+        target.addMorphism("tx", "ty");
+        target.addMorphism("t5", "tx");
+        final FiniteCategory<Object, String> source = new FiniteCategory<>();
+        source.addElements("s0", "s1", "s2", "s3", "s4", "s5");
+        source.addMorphism("s0", "s1");
+        source.addMorphism("s2", "s3");
+        source.addMorphism("s4", "s5");
+
+        // each morphism maps to a composite through tx, from image sources t3, then t5, then t3 again
+        final Map<String, String> images = Map.of(
+                "s0", "t3", "s1", "ty", "s2", "t5", "s3", "ty", "s4", "t3", "s5", "ty");
+        Assert.assertEquals(new Functor<String, String>(images::get).violations(source, target), List.of());
+
+        // violations are searched for by image source, but reported in the order of the source's morphisms
+        final Map<String, String> swapped = Map.of(
+                "s0", "t3", "s1", "t5", "s2", "t5", "s3", "t3", "s4", "t3", "s5", "t5");
+        Assert.assertEquals(new Functor<String, String>(swapped::get).violations(source, target), List.of(
+                new Morphism<>("s0", "s1"), new Morphism<>("s2", "s3"), new Morphism<>("s4", "s5")));
+    }
+
+    @Test
+    private void testAndThen() {
+        final FiniteCategory<Object, Integer> chain = new FiniteCategory<>();
+        chain.addElements(1, 2, 3, 4);
+        chain.addMorphism(1, 2);
+        chain.addMorphism(2, 3);
+        chain.addMorphism(3, 4);
+
+        final Functor<Integer, Integer> half = new Functor<>(i -> i / 2);
+        final Functor<Integer, String> name = new Functor<>(i -> "n" + i);
+        final FiniteCategory<Object, String> image = half.andThen(name).image(chain);
+        Assert.assertEquals(image.getElements(), new LinkedHashSet<>(List.of("n0", "n1", "n2")));
+        Assert.assertEquals(image.getMorphismMap(), Map.of("n0", List.of("n1"), "n1", List.of("n2")));
+        Assert.assertEquals(name.image(half.image(chain)), image);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsNullImages() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElement("a");
+        new Functor<String, String>(element -> null).image(category);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsImagesOutsideTarget() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElement("a");
+        new Functor<String, String>(String::toUpperCase).isFunctor(category, category);
+    }
+
+    // map each interval to the bin of binSize bases that contains its start
+    private static Functor<Interval, Interval> binFunctor(final int binSize) {
+        return new Functor<>(interval -> {
+            final int binStart = (interval.getStart() - 1) / binSize * binSize + 1;
+            return new Interval(interval.getContig(), binStart, binStart + binSize - 1);
+        });
+    }
+
+    private static <S, E, F> FiniteCategory<S, F> naiveImage(
+            final FiniteCategory<S, E> category,
+            final Functor<E, F> functor) {
+        final FiniteCategory<S, F> image = new FiniteCategory<>(category.getSource(), MorphismPolicy.SET);
+        for (final E element : category.getElements()) {
+            image.addElement(functor.apply(element));
+        }
+        category.getMorphismMap().forEach((from, targets) -> {
+            for (final E to : targets) {
+                final F fromImage = functor.apply(from);
+                final F toImage = functor.apply(to);
+                if (!fromImage.equals(toImage)) {
+                    image.addMorphism(fromImage, toImage);
+                }
+            }
+        });
+        return image;
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.utils.GraphUtils;
+import htsjdk.io.HtsPath;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class GraphUtilsTest extends TestBase {
+
+    private static FiniteCategory<Object, String> getTestCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a\"b", "c\\d", "<e & f>", "g");
+        finCat.addMorphism("a\"b", "c\\d");
+        finCat.addMorphism("a\"b", "c\\d");
+        finCat.addMorphism("<e & f>", "a\"b");
+        return finCat;
+    }
+
+    private static Path createTempFile(final String suffix) throws IOException {
+        final Path path = Files.createTempFile("graphUtilsTest", suffix);
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    @Test
+    private void testStreamingDOTMatchesDOTExporter() throws IOException {
+        final FiniteCategory<Object, String> finCat = getTestCategory();
+        final Path exporterPath = createTempFile(".dot");
+        final Path streamingPath = createTempFile(".dot");
+
+        GraphUtils.writeGraphToDOT(finCat.asGraph(), new HtsPath(exporterPath.toUri().toString()));
+        finCat.writeAsGraph(new HtsPath(streamingPath.toUri().toString()));
+        Assert.assertEquals(Files.readString(streamingPath), Files.readString(exporterPath));
+
+        // snapshots are written directly from their arrays
+        finCat.snapshot().writeAsGraph(new HtsPath(streamingPath.toUri().toString()));
+        Assert.assertEquals(Files.readString(streamingPath), Files.readString(exporterPath));
+    }
+
+    @Test
+    private void testStreamingDOTWritesMorphismsInMapOrder() throws IOException {
+        // morphisms from a later element are added first, so the morphism map isn't in element order
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("p", "q", "r");
+        finCat.addMorphism("r", "p");
+        finCat.addMorphism("p", "q");
+        finCat.addMorphism("r", "q");
+        final DirectedMultigraph<String, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
+        finCat.getElements().forEach(graph::addVertex);
+        finCat.getMorphismMap().forEach((from, targets) -> targets.forEach(to -> graph.addEdge(from, to)));
+        final Path exporterPath = createTempFile(".dot");
+        final Path streamingPath = createTempFile(".dot");
+
+        GraphUtils.writeGraphToDOT(graph, new HtsPath(exporterPath.toUri().toString()));
+        finCat.writeAsGraph(new HtsPath(streamingPath.toUri().toString()));
+        Assert.assertEquals(Files.readString(streamingPath), Files.readString(exporterPath));
+        Assert.assertTrue(Files.readString(streamingPath).contains("  3 -> 1;\n  3 -> 2;\n  1 -> 2;\n"));
+    }
+
+    @Test
+    private void testStreamingDOTWithSelfLoop() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElement("a");
+        finCat.addMorphism("a", "a");
+        final Path path = createTempFile(".dot");
+
+        finCat.writeAsGraph(new HtsPath(path.toUri().toString()));
+        Assert.assertEquals(Files.readString(path), "digraph G {\n  1 [ label=\"a\" ];\n  1 -> 1;\n}\n");
+    }
+
+    @Test
+    private void testStreamingGraphML() throws Exception {
+        final Path path = createTempFile(".graphml");
+        final IOPath ioPath = new HtsPath(path.toUri().toString());
+        getTestCategory().writeAsGraphML(ioPath);
+
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(path.toFile());
+        Assert.assertEquals(document.getElementsByTagName("node").getLength(), 4);
+        Assert.assertEquals(document.getElementsByTagName("edge").getLength(), 3);
+        Assert.assertEquals(document.getElementsByTagName("data").item(2).getTextContent(), "<e & f>");
+        Assert.assertEquals(
+                document.getElementsByTagName("edge").item(2).getAttributes().getNamedItem("source").getNodeValue(),
+                "3");
+    }
+
+    @Test
+    private void testSummaryMergesChains() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c", "d", "e");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+        finCat.addMorphism("c", "d");
+        finCat.addMorphism("a", "e");
+        final Path path = createTempFile(".dot");
+
+        finCat.writeAsGraphSummary(new HtsPath(path.toUri().toString()), null, GraphUtils.LevelOfDetail.DEFAULT);
+        Assert.assertEquals(Files.readString(path), """
+                digraph G {
+                  1 [ label="a" ];
+                  2 [ label="b ... d (3 elements)" ];
+                  3 [ label="e" ];
+                  1 -> 2;
+                  1 -> 3;
+                }
+                """);
+    }
+
+    @Test
+    private void testSummaryMergesLargeClustersAndCapsEdges() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("x1", "x2", "x3", "x4", "x5", "y1", "y2");
+        finCat.addMorphism("y1", "x1");
+        finCat.addMorphism("y1", "x2");
+        finCat.addMorphism("y1", "x3");
+        finCat.addMorphism("y1", "y2");
+        finCat.addMorphism("x1", "x1");
+        finCat.addMorphism("x1", "x2");
+        final Path path = createTempFile(".dot");
+
+        finCat.writeAsGraphSummary(
+                new HtsPath(path.toUri().toString()),
+                element -> element.substring(0, 1),
+                new GraphUtils.LevelOfDetail(3, 1, false));
+        Assert.assertEquals(Files.readString(path), """
+                digraph G {
+                  subgraph cluster_1 {
+                    label="x";
+                    1 [ label="x1 ... x2 (2 elements)" ];
+                    2 [ label="x3 ... x4 (2 elements)" ];
+                    3 [ label="x5" ];
+                  }
+                  subgraph cluster_2 {
+                    label="y";
+                    4 [ label="y1 (+2 edges)" ];
+                    5 [ label="y2" ];
+                  }
+                  1 -> 1;
+                  4 -> 1 [ label="2" ];
+                }
+                """);
+
+        // with room for only two nodes in all, each cluster is drawn as a single node
+        finCat.writeAsGraphSummary(
+                new HtsPath(path.toUri().toString()),
+                element -> element.substring(0, 1),
+                new GraphUtils.LevelOfDetail(2, 3, 1, false));
+        Assert.assertEquals(Files.readString(path), """
+                digraph G {
+                  subgraph cluster_1 {
+                    label="x";
+                    1 [ label="x (5 elements)" ];
+                  }
+                  subgraph cluster_2 {
+                    label="y";
+                    2 [ label="y (2 elements)" ];
+                  }
+                  1 -> 1;
+                  2 -> 1 [ label="3" ];
+                }
+                """);
+    }
+
+    @Test
+    private void testSummaryMergesUnclusteredNodes() throws IOException {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        for (int i = 0; i < 1000; i++) {
+            finCat.addElement("e" + i);
+        }
+        finCat.addMorphism("e0", "e999");
+        final Path path = createTempFile(".dot");
+
+        finCat.writeAsGraphSummary(new HtsPath(path.toUri().toString()), null,
+                new GraphUtils.LevelOfDetail(10, 5, 5, false));
+        final List<String> lines = Files.readAllLines(path);
+        Assert.assertEquals(lines.stream().filter(line -> line.contains("[ label=")).count(), 10);
+        Assert.assertEquals(lines.get(1), "  1 [ label=\"e0 ... e99 (100 elements)\" ];");
+        Assert.assertEquals(lines.get(10), "  10 [ label=\"e900 ... e999 (100 elements)\" ];");
+        Assert.assertEquals(lines.get(11), "  1 -> 10;");
+    }
+
+    @Test
+    private void testIntervalSummaryIsBounded() throws IOException {
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        final Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            final int start = 1 + random.nextInt(1_000_000);
+            intervalList.add(new Interval(i % 2 == 0 ? "1" : "2", start, start + random.nextInt(500)));
+        }
+        final FiniteCategory<IntervalList, Interval> finCat = IntervalCategories.toOverlapsCategory(intervalList);
+        final GraphUtils.LevelOfDetail detail = new GraphUtils.LevelOfDetail(50, 5, true);
+        final Path path = createTempFile(".dot");
+
+        finCat.writeAsGraphSummary(
+                new HtsPath(path.toUri().toString()), IntervalCategories.binClusters(100_000), detail);
+        final List<String> lines = Files.readAllLines(path);
+        final long clusters = lines.stream().filter(line -> line.contains("subgraph cluster_")).count();
+        final long nodes = lines.stream().filter(line -> line.contains("[ label=") && !line.contains("->")).count();
+        final long edges = lines.stream().filter(line -> line.contains("->")).count();
+        // two contigs of 10 bins each
+        Assert.assertEquals(clusters, 20);
+        Assert.assertTrue(nodes <= clusters * detail.maxNodesPerCluster(), Long.toString(nodes));
+        Assert.assertTrue(edges <= nodes * detail.maxEdgesPerNode(), Long.toString(edges));
+    }
+}
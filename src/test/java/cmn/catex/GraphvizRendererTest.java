@@ -0,0 +1,144 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.utils.GraphUtils;
+import cmn.catex.utils.GraphvizRenderer;
+import htsjdk.io.HtsPath;
+import htsjdk.io.IOPath;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// uses stub executables in place of Graphviz, which copy their stdin to the output file
+public class GraphvizRendererTest extends TestBase {
+    private Path stubDirectory;
+
+    @BeforeClass
+    private void createStubs() throws IOException {
+        stubDirectory = Files.createTempDirectory("graphvizRendererTest");
+        // writes a lot of stderr before reading stdin, which blocks unless stderr is drained
+        writeStub("dot", """
+                #!/bin/sh
+                [ "$1" = "-Tpdf" ] && [ "$2" = "-o" ] || exit 2
+                i=0
+                while [ $i -lt 2000 ]; do echo "Warning: stub diagnostic line $i" >&2; i=$((i+1)); done
+                cat > "$3"
+                """);
+        writeStub("sfdp", """
+                #!/bin/sh
+                echo "Error: sfdp stub failure" >&2
+                exit 3
+                """);
+    }
+
+    private void writeStub(final String name, final String script) throws IOException {
+        final Path stub = stubDirectory.resolve(name);
+        Files.writeString(stub, script);
+        Files.setPosixFilePermissions(stub, PosixFilePermissions.fromString("rwx------"));
+    }
+
+    @AfterClass
+    private void deleteStubs() throws IOException {
+        for (final String name : List.of("dot", "sfdp")) {
+            Files.deleteIfExists(stubDirectory.resolve(name));
+        }
+        Files.deleteIfExists(stubDirectory);
+    }
+
+    private static FiniteCategory<Object, String> getTestCategory(final int size) {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        for (int i = 0; i < size; i++) {
+            finCat.addElement("element-" + i);
+            if (i > 0) {
+                finCat.addMorphism("element-" + (i - 1), "element-" + i);
+            }
+        }
+        return finCat;
+    }
+
+    @Test
+    private void testRenderPipesDOT() throws Exception {
+        final FiniteCategory<Object, String> finCat = getTestCategory(50_000);
+        final Path expectedPath = Files.createTempFile("graphvizRendererTest", ".dot");
+        expectedPath.toFile().deleteOnExit();
+        finCat.writeAsGraph(new HtsPath(expectedPath.toUri().toString()));
+
+        try (final GraphvizRenderer renderer = new GraphvizRenderer(stubDirectory, 2)) {
+            final List<Path> outputs = new ArrayList<>();
+            final List<CompletableFuture<IOPath>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                final Path output = Files.createTempFile("graphvizRendererTest", ".pdf");
+                output.toFile().deleteOnExit();
+                outputs.add(output);
+                futures.add(renderer.render(
+                        finCat::writeAsGraph,
+                        new HtsPath(output.toString()),
+                        GraphUtils.GraphFileType.PDF,
+                        GraphvizRenderer.LayoutEngine.DOT));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+            for (final Path output : outputs) {
+                Assert.assertEquals(Files.mismatch(output, expectedPath), -1L);
+            }
+        }
+    }
+
+    @Test
+    private void testRenderFailure() throws Exception {
+        try (final GraphvizRenderer renderer = new GraphvizRenderer(stubDirectory, 1)) {
+            final Path output = Files.createTempFile("graphvizRendererTest", ".pdf");
+            output.toFile().deleteOnExit();
+            final CompletableFuture<IOPath> future = renderer.render(
+                    getTestCategory(100_000)::writeAsGraph,
+                    new HtsPath(output.toString()),
+                    GraphUtils.GraphFileType.PDF,
+                    GraphvizRenderer.LayoutEngine.SFDP);
+            try {
+                future.get();
+                Assert.fail("Expected the render to fail");
+            } catch (final ExecutionException e) {
+                Assert.assertTrue(e.getCause().getMessage().contains("exit code 3"), e.getCause().getMessage());
+                Assert.assertTrue(e.getCause().getMessage().contains("sfdp stub failure"), e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    private void testRenderDefaultsLayoutEngineAndClosesInput() throws Exception {
+        final byte[] dot = "digraph G {\n  a -> b;\n}\n".getBytes(StandardCharsets.UTF_8);
+        try (final GraphvizRenderer renderer = new GraphvizRenderer(stubDirectory, 1)) {
+            final Path output = Files.createTempFile("graphvizRendererTest", ".pdf");
+            output.toFile().deleteOnExit();
+            // the source leaves the stream open, so the stub only finishes if the renderer closes it
+            renderer.render(out -> out.write(dot), new HtsPath(output.toString()), GraphUtils.GraphFileType.PDF, 2)
+                    .get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(Files.readAllBytes(output), dot);
+
+            final CompletableFuture<IOPath> large = renderer.render(
+                    out -> out.write(dot), new HtsPath(output.toString()), GraphUtils.GraphFileType.PDF, 100_000);
+            final ExecutionException e = Assert.expectThrows(ExecutionException.class, large::get);
+            Assert.assertTrue(e.getCause().getMessage().contains("sfdp stub failure"), e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    private void testLayoutEngineForNodeCount() {
+        Assert.assertEquals(GraphvizRenderer.LayoutEngine.forNodeCount(100), GraphvizRenderer.LayoutEngine.DOT);
+        Assert.assertEquals(GraphvizRenderer.LayoutEngine.forNodeCount(1_000_000), GraphvizRenderer.LayoutEngine.SFDP);
+    }
+}
@@ -0,0 +1,132 @@
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.cat.HashElementIndex;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import cmn.catex.cat.MorphismPolicy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class IndexedFiniteMorphismsTest extends TestBase {
+
+    @Test
+    private void testAddAndRetrieveMorphisms() {
+        final IndexedFiniteMorphisms<String> fm = new IndexedFiniteMorphisms<>();
+        fm.add("a", "b");
+
+        final Map<String, List<String>> map = fm.getMorphismMap();
+        Assert.assertTrue(map.containsKey("a"));
+        Assert.assertFalse(map.containsKey("b")); // target only, no outgoing morphisms
+        Assert.assertNull(map.get("b"));
+        Assert.assertEquals(Arrays.asList("b"), map.get("a"));
+    }
+
+    @Test
+    private void testPreserveInsertionOrderAndAllowDuplicates() {
+        final IndexedFiniteMorphisms<String> fm = new IndexedFiniteMorphisms<>();
+        fm.add("v1", "k"); // "v1" is indexed before "k" is a source
+        fm.add("k", "v1");
+        fm.add("k", "v2");
+        fm.add("k", "v1"); // duplicate allowed
+
+        Assert.assertEquals(fm.getMorphismMap().get("k"), Arrays.asList("v1", "v2", "v1"));
+        Assert.assertEquals(fm.getMorphismMap().keySet().stream().toList(), Arrays.asList("v1", "k"));
+    }
+
+    @Test
+    private void testSetPolicyIgnoresRepeatedMorphisms() {
+        final IndexedFiniteMorphisms<Integer> fm = new IndexedFiniteMorphisms<>(MorphismPolicy.SET);
+        // enough targets that repeats are detected both by scanning and by hashing
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 40; i++) {
+                Assert.assertEquals(fm.add(0, i), round == 0);
+            }
+        }
+
+        Assert.assertEquals(fm.getMorphismMap().get(0).size(), 40);
+        Assert.assertEquals(fm.multiplicity(0, 39), 1);
+        Assert.assertEquals(fm.multiplicity(39, 0), 0);
+        Assert.assertEquals(new IndexedFiniteMorphisms<>(fm).getPolicy(), MorphismPolicy.SET);
+    }
+
+    @Test
+    private void testCountedPolicyKeepsMultiplicities() {
+        final IndexedFiniteMorphisms<Integer> fm = new IndexedFiniteMorphisms<>(MorphismPolicy.COUNTED);
+        for (int i = 0; i < 40; i++) {
+            fm.add(0, i);
+        }
+        fm.add(0, 3);
+        fm.add(0, 39);
+        fm.add(0, 39);
+
+        Assert.assertEquals(fm.getMorphismMap().get(0).size(), 40);
+        Assert.assertEquals(fm.multiplicity(0, 3), 2);
+        Assert.assertEquals(fm.multiplicity(0, 39), 3);
+        Assert.assertEquals(fm.multiplicity(0, 4), 1);
+
+        // equal to map-backed morphisms with the same multiplicities
+        final FiniteMorphisms<Integer> mapBacked = new FiniteMorphisms<>(fm);
+        Assert.assertEquals(mapBacked, fm);
+        Assert.assertEquals(mapBacked.multiplicity(0, 39), 3);
+        Assert.assertEquals(new IndexedFiniteMorphisms<>(mapBacked).multiplicity(0, 39), 3);
+    }
+
+    @Test
+    private void testAddById() {
+        final HashElementIndex<String> index = new HashElementIndex<>();
+        index.add("x");
+        index.add("y");
+        final IndexedFiniteMorphisms<String> fm = new IndexedFiniteMorphisms<>(index);
+        fm.addById(1, 0);
+
+        Assert.assertEquals(fm.getMorphismMap(), Map.of("y", List.of("x")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testAddByIdRejectsUnknownIds() {
+        new IndexedFiniteMorphisms<String>().addById(0, 1);
+    }
+
+    @Test
+    private void testEqualToMapBackedMorphisms() {
+        final FiniteMorphisms<String> mapBacked = new FiniteMorphisms<>();
+        final IndexedFiniteMorphisms<String> indexed = new IndexedFiniteMorphisms<>();
+        for (final String[] edge : new String[][] { {"x", "a"}, {"y", "b"}, {"x", "c"} }) {
+            mapBacked.add(edge[0], edge[1]);
+            indexed.add(edge[0], edge[1]);
+        }
+
+        Assert.assertEquals(indexed, mapBacked);
+        Assert.assertEquals(mapBacked, indexed);
+        Assert.assertEquals(indexed.hashCode(), mapBacked.hashCode());
+        Assert.assertEquals(new IndexedFiniteMorphisms<>(mapBacked), indexed);
+    }
+
+    @Test
+    private void testMorphismMapViewIsWriteThrough() {
+        final IndexedFiniteMorphisms<String> fm = new IndexedFiniteMorphisms<>();
+        fm.add("x", "a");
+        final IndexedFiniteMorphisms<String> copy = new IndexedFiniteMorphisms<>(fm);
+
+        fm.getMorphismMap().get("x").add("c");
+        Assert.assertEquals(fm.getMorphismMap().get("x"), Arrays.asList("a", "c"));
+        Assert.assertFalse(copy.getMorphismMap().get("x").contains("c"));
+    }
+
+    @Test
+    private void testCategoryPreservesBackend() {
+        final IndexedFiniteMorphisms<String> fm = new IndexedFiniteMorphisms<>();
+        fm.add("X", "Y");
+        fm.add("Y", "Z");
+        final FiniteCategory<Object, String> finCat =
+                new FiniteCategory<>(null, Arrays.asList("X", "Y", "Z"), fm);
+
+        Assert.assertEquals(finCat.getMorphismMap(), fm.getMorphismMap());
+        Assert.assertFalse(finCat.getMorphismMap() instanceof java.util.LinkedHashMap);
+    }
+}
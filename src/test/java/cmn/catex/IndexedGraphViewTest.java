@@ -0,0 +1,112 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.IndexedEdge;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.alg.shortestpath.BFSShortestPath;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedPseudograph;
+import org.jgrapht.traverse.TopologicalOrderIterator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class IndexedGraphViewTest extends TestBase {
+
+    private static FiniteCategory<Object, String> getTestCategory() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c", "d", "e");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+        finCat.addMorphism("c", "a");
+        finCat.addMorphism("c", "c");
+        finCat.addMorphism("d", "c");
+        return finCat;
+    }
+
+    // the same category, copied into a jgrapht graph
+    private static Graph<String, DefaultEdge> copyOf(final FiniteCategory<Object, String> finCat) {
+        final Graph<String, DefaultEdge> copy = new DirectedPseudograph<>(DefaultEdge.class);
+        finCat.getElements().forEach(copy::addVertex);
+        finCat.getMorphismMap().forEach((from, tos) -> tos.forEach(to -> copy.addEdge(from, to)));
+        return copy;
+    }
+
+    @Test
+    private void testMatchesCopy() {
+        final FiniteCategory<Object, String> finCat = getTestCategory();
+        final Graph<String, IndexedEdge> view = finCat.asGraph();
+        final Graph<String, DefaultEdge> copy = copyOf(finCat);
+
+        Assert.assertEquals(view.vertexSet(), copy.vertexSet());
+        Assert.assertEquals(view.edgeSet().size(), copy.edgeSet().size());
+        for (final String v : copy.vertexSet()) {
+            Assert.assertEquals(view.outDegreeOf(v), copy.outDegreeOf(v), v);
+            Assert.assertEquals(view.inDegreeOf(v), copy.inDegreeOf(v), v);
+            Assert.assertEquals(view.degreeOf(v), copy.degreeOf(v), v);
+            Assert.assertEquals(view.edgesOf(v).size(), copy.edgesOf(v).size(), v);
+            Assert.assertEquals(endpoints(view, view.outgoingEdgesOf(v)), endpoints(copy, copy.outgoingEdgesOf(v)), v);
+            Assert.assertEquals(endpoints(view, view.incomingEdgesOf(v)), endpoints(copy, copy.incomingEdgesOf(v)), v);
+            Assert.assertEquals(endpoints(view, view.edgesOf(v)), endpoints(copy, copy.edgesOf(v)), v);
+            for (final String w : copy.vertexSet()) {
+                Assert.assertEquals(view.getAllEdges(v, w).size(), copy.getAllEdges(v, w).size());
+                Assert.assertEquals(view.containsEdge(v, w), copy.containsEdge(v, w));
+            }
+        }
+        Assert.assertEquals(endpoints(view, view.edgeSet()), endpoints(copy, copy.edgeSet()));
+        for (final IndexedEdge edge : view.edgeSet()) {
+            Assert.assertTrue(view.containsEdge(edge));
+        }
+        Assert.assertFalse(view.containsEdge(new IndexedEdge(0, 2)));
+        Assert.assertNull(view.getEdge("e", "a"));
+        Assert.assertEquals(view.getEdge("d", "c"), new IndexedEdge(3, 0));
+    }
+
+    private static <T> List<String> endpoints(final Graph<String, T> graph, final Set<T> edges) {
+        final List<String> endpoints = new ArrayList<>();
+        for (final T edge : edges) {
+            endpoints.add(graph.getEdgeSource(edge) + "->" + graph.getEdgeTarget(edge));
+        }
+        Collections.sort(endpoints);
+        return endpoints;
+    }
+
+    @Test
+    private void testJGraphTAlgorithms() {
+        final Graph<String, IndexedEdge> view = getTestCategory().asGraph();
+
+        final Set<Set<String>> components = new HashSet<>();
+        new KosarajuStrongConnectivityInspector<>(view).stronglyConnectedSets().forEach(components::add);
+        Assert.assertEquals(components, Set.of(Set.of("a", "b", "c"), Set.of("d"), Set.of("e")));
+
+        Assert.assertEquals(BFSShortestPath.findPathBetween(view, "d", "b").getVertexList(), List.of("d", "c", "a", "b"));
+    }
+
+    @Test
+    private void testTopologicalOrder() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("c", "b", "a");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("b", "c");
+
+        final List<String> order = new ArrayList<>();
+        new TopologicalOrderIterator<>(finCat.asGraph()).forEachRemaining(order::add);
+        Assert.assertEquals(order, List.of("a", "b", "c"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    private void testReadOnly() {
+        getTestCategory().asGraph().addEdge("e", "a");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testUnknownVertex() {
+        getTestCategory().asGraph().outgoingEdgesOf("z");
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.genomics.intervals.IntervalRelation;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+
+public class IntervalCategoriesTest extends TestBase {
+    private ForkJoinPool pool;
+
+    @BeforeClass
+    private void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    private void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    private void testNestedContainment() {
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("20");
+        intervalList.add(new Interval("20", 101, 200));
+        intervalList.add(new Interval("20", 3, 98));
+        intervalList.add(new Interval("20", 1, 100));
+        intervalList.add(new Interval("20", 2, 99));
+
+        final FiniteCategory<IntervalList, Interval> finiteCategory =
+                IntervalCategories.toContainsCategory(intervalList);
+
+        Assert.assertEquals(finiteCategory.getElements().size(), 4);
+        Assert.assertEquals(
+                new HashSet<>(finiteCategory.getMorphismMap().get(new Interval("20", 1, 100))),
+                Set.of(new Interval("20", 2, 99), new Interval("20", 3, 98)));
+        Assert.assertEquals(
+                finiteCategory.getMorphismMap().get(new Interval("20", 2, 99)),
+                List.of(new Interval("20", 3, 98)));
+        Assert.assertFalse(finiteCategory.getMorphismMap().containsKey(new Interval("20", 101, 200)));
+    }
+
+    @Test
+    private void testRepeatedMorphismsAreIgnored() {
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("20");
+        intervalList.add(new Interval("20", 1, 100));
+        intervalList.add(new Interval("20", 2, 99));
+
+        final FiniteCategory<IntervalList, Interval> finiteCategory =
+                IntervalCategories.toContainsCategory(intervalList);
+        Assert.assertEquals(finiteCategory.getMorphismPolicy(), MorphismPolicy.SET);
+        finiteCategory.addMorphism(new Interval("20", 1, 100), new Interval("20", 2, 99));
+        Assert.assertEquals(
+                finiteCategory.getMorphismMap().get(new Interval("20", 1, 100)),
+                List.of(new Interval("20", 2, 99)));
+    }
+
+    @DataProvider(name = "randomIntervals")
+    public Object[][] getRandomIntervals() {
+        return new Object[][] {
+                { 1L, 200, 1000, 50 },  // sparse
+                { 2L, 200, 100, 50 },   // dense and heavily nested
+                { 3L, 500, 20, 3 },     // many identical coordinates
+        };
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    private void testMatchesPairwiseRelation(
+            final long seed,
+            final int count,
+            final int maxStart,
+            final int maxLength) {
+        final Random random = new Random(seed);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        for (int i = 0; i < count; i++) {
+            final int start = 1 + random.nextInt(maxStart);
+            intervalList.add(new Interval(
+                    random.nextBoolean() ? "1" : "2",
+                    start,
+                    start + random.nextInt(maxLength),
+                    false,
+                    "interval-" + i));
+        }
+
+        assertMatchesPairwise(
+                IntervalCategories.toCategory(intervalList, IntervalRelation.OVERLAPS),
+                intervalList,
+                (a, b) -> a.overlaps(b));
+        assertMatchesPairwise(
+                IntervalCategories.toCategory(intervalList, IntervalRelation.CONTAINS),
+                intervalList,
+                (a, b) -> a.contains(b));
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    private void testParallelMatchesSequential(
+            final long seed,
+            final int count,
+            final int maxStart,
+            final int maxLength) {
+        final Random random = new Random(seed);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2", "3", "4");
+        for (int i = 0; i < count; i++) {
+            final int start = 1 + random.nextInt(maxStart);
+            intervalList.add(new Interval(String.valueOf(1 + random.nextInt(4)), start, start + random.nextInt(maxLength)));
+        }
+
+        for (final IntervalRelation relation : IntervalRelation.values()) {
+            final FiniteCategory<IntervalList, Interval> sequential = IntervalCategories.toCategory(intervalList, relation);
+            final FiniteCategory<IntervalList, Interval> parallel =
+                    IntervalCategories.toCategory(intervalList, relation, pool);
+            Assert.assertEquals(parallel, sequential);
+            // including the order of each element's morphisms
+            Assert.assertEquals(
+                    parallel.getMorphismMap().entrySet().stream().toList(),
+                    sequential.getMorphismMap().entrySet().stream().toList());
+        }
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    private void testOffHeapMatchesOnHeap(
+            final long seed,
+            final int count,
+            final int maxStart,
+            final int maxLength) {
+        final Random random = new Random(seed);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        for (int i = 0; i < count; i++) {
+            final int start = 1 + random.nextInt(maxStart);
+            intervalList.add(new Interval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(maxLength)));
+        }
+
+        for (final IntervalRelation relation : IntervalRelation.values()) {
+            final FiniteCategory<IntervalList, Interval> onHeap = IntervalCategories.toCategory(intervalList, relation);
+            final FiniteCategory<IntervalList, Interval> offHeap =
+                    IntervalCategories.toOffHeapCategory(intervalList, relation, null);
+            Assert.assertTrue(offHeap.isFrozen());
+            Assert.assertEquals(offHeap.getMorphismPolicy(), MorphismPolicy.SET);
+            Assert.assertEquals(offHeap, onHeap);
+            Assert.assertEquals(
+                    offHeap.getElements().stream().toList(),
+                    onHeap.getElements().stream().toList());
+            Assert.assertEquals(IntervalCategories.toOffHeapCategory(intervalList, relation, pool), onHeap);
+        }
+    }
+
+    private static void assertMatchesPairwise(
+            final FiniteCategory<IntervalList, Interval> category,
+            final IntervalList intervalList,
+            final BiPredicate<Interval, Interval> relation) {
+        final Set<List<Interval>> expected = new HashSet<>();
+        for (final Interval a : intervalList.getIntervals()) {
+            for (final Interval b : intervalList.getIntervals()) {
+                if (!a.equals(b) && relation.test(a, b)) {
+                    expected.add(List.of(a, b));
+                }
+            }
+        }
+        final List<List<Interval>> actual = new ArrayList<>();
+        category.getMorphismMap().forEach((from, tos) -> tos.forEach(to -> actual.add(List.of(from, to))));
+
+        Assert.assertEquals(actual.size(), expected.size(), "each related pair is generated exactly once");
+        Assert.assertEquals(new HashSet<>(actual), expected);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.HashElementIndex;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import cmn.catex.cat.LatticeIndex;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class LatticeIndexTest extends TestBase {
+
+    @Test
+    private void testForest() {
+        final FiniteCategory<Object, String> forest = new FiniteCategory<>();
+        forest.addElements("root", "left", "right", "leftLeaf", "rightLeaf", "otherRoot");
+        forest.addMorphism("root", "left");
+        forest.addMorphism("root", "right");
+        forest.addMorphism("left", "leftLeaf");
+        forest.addMorphism("right", "rightLeaf");
+        // a composite doesn't change the Hasse diagram
+        forest.addMorphism("root", "rightLeaf");
+
+        final LatticeIndex<String> index = forest.latticeIndex();
+        Assert.assertTrue(index.isForest());
+        Assert.assertEquals(index.meet("leftLeaf", "rightLeaf"), "root");
+        Assert.assertEquals(index.meet("leftLeaf", "left"), "left");
+        Assert.assertEquals(index.meet("right", "right"), "right");
+        Assert.assertNull(index.meet("leftLeaf", "otherRoot"));
+        Assert.assertEquals(index.join("root", "rightLeaf"), "rightLeaf");
+        Assert.assertNull(index.join("left", "right"));
+        Assert.assertFalse(forest.isLattice());
+    }
+
+    @Test
+    private void testChainIsLattice() {
+        final int n = 1_000_000;
+        final HashElementIndex<Integer> elementIndex = new HashElementIndex<>(n);
+        final List<Integer> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+            elementIndex.add(i);
+        }
+        final IndexedFiniteMorphisms<Integer> morphisms = new IndexedFiniteMorphisms<>(elementIndex);
+        for (int i = n - 1; i > 0; i--) {
+            morphisms.addById(i - 1, i);
+        }
+        final FiniteCategory<Object, Integer> chain = FiniteCategory.ofTrusted(null, elements, morphisms);
+
+        Assert.assertTrue(chain.isLattice());
+        Assert.assertTrue(chain.latticeIndex().isForest());
+        Assert.assertEquals(chain.meet(12_345, 999_999), 12_345);
+        Assert.assertEquals(chain.join(12_345, 999_999), 999_999);
+    }
+
+    @Test
+    private void testDiamondIsLattice() {
+        final FiniteCategory<Object, String> diamond = new FiniteCategory<>();
+        diamond.addElements("bottom", "a", "b", "top");
+        diamond.addMorphism("bottom", "a");
+        diamond.addMorphism("bottom", "b");
+        diamond.addMorphism("a", "top");
+        diamond.addMorphism("b", "top");
+
+        Assert.assertFalse(diamond.latticeIndex().isForest());
+        Assert.assertTrue(diamond.isLattice());
+        Assert.assertEquals(diamond.meet("a", "b"), "bottom");
+        Assert.assertEquals(diamond.join("a", "b"), "top");
+        Assert.assertEquals(diamond.meet("a", "top"), "a");
+    }
+
+    @Test
+    private void testBoundsWithoutMeetOrJoin() {
+        // a and b are both lower bounds of c and d, but neither is greater than the other
+        final FiniteCategory<Object, String> butterfly = new FiniteCategory<>();
+        butterfly.addElements("a", "b", "c", "d");
+        butterfly.addMorphism("a", "c");
+        butterfly.addMorphism("a", "d");
+        butterfly.addMorphism("b", "c");
+        butterfly.addMorphism("b", "d");
+
+        Assert.assertNull(butterfly.meet("c", "d"));
+        Assert.assertNull(butterfly.join("a", "b"));
+        Assert.assertEquals(butterfly.join("a", "c"), "c");
+        Assert.assertFalse(butterfly.isLattice());
+    }
+
+    @Test
+    private void testNestedIntervalsUseForest() {
+        // dyadic intervals are either nested or disjoint, so their containment order is a forest
+        final Random random = new Random(11);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1");
+        for (int i = 0; i < 300; i++) {
+            final int level = random.nextInt(12);
+            final int start = random.nextInt(1 << (12 - level)) << level;
+            intervalList.add(new Interval("1", start + 1, start + (1 << level)));
+        }
+        final FiniteCategory<IntervalList, Interval> contains =
+                GenomicIntervalTestUtils.toContainsCategory(intervalList);
+
+        Assert.assertTrue(contains.latticeIndex().isForest());
+        assertMatchesSmallestEnclosing(contains, random);
+    }
+
+    @Test
+    private void testOverlappingIntervalsUseBitsets() {
+        final Random random = new Random(13);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1");
+        for (int i = 0; i < 300; i++) {
+            final int start = 1 + random.nextInt(2_000);
+            intervalList.add(new Interval("1", start, start + random.nextInt(400)));
+        }
+        final FiniteCategory<IntervalList, Interval> contains =
+                GenomicIntervalTestUtils.toContainsCategory(intervalList);
+
+        Assert.assertFalse(contains.latticeIndex().isForest());
+        assertMatchesSmallestEnclosing(contains, random);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsCycles() {
+        final FiniteCategory<Object, String> cycle = new FiniteCategory<>();
+        cycle.addElements("a", "b");
+        cycle.addMorphism("a", "b");
+        cycle.addMorphism("b", "a");
+        cycle.latticeIndex();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsUnknownElements() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElement("a");
+        category.meet("a", "b");
+    }
+
+    // the meet of two intervals in a containment category is the smallest interval that contains both, if there is
+    // exactly one; the join is the largest interval they both contain, if there is exactly one
+    private static void assertMatchesSmallestEnclosing(
+            final FiniteCategory<IntervalList, Interval> contains,
+            final Random random) {
+        final List<Interval> elements = new ArrayList<>(contains.getElements());
+        final LatticeIndex<Interval> index = contains.latticeIndex();
+        for (int i = 0; i < 2_000; i++) {
+            final Interval a = elements.get(random.nextInt(elements.size()));
+            final Interval b = elements.get(random.nextInt(elements.size()));
+            final List<Interval> enclosing = elements.stream().filter(x -> x.contains(a) && x.contains(b)).toList();
+            final List<Interval> enclosed = elements.stream().filter(x -> a.contains(x) && b.contains(x)).toList();
+            Assert.assertEquals(index.meet(a, b), boundOf(enclosing, true), a + " " + b);
+            Assert.assertEquals(index.join(a, b), boundOf(enclosed, false), a + " " + b);
+        }
+    }
+
+    // the element of bounds that's contained in (or, for !smallest, contains) all the others, or null
+    private static Interval boundOf(final List<Interval> bounds, final boolean smallest) {
+        for (final Interval candidate : bounds) {
+            if (bounds.stream().allMatch(x -> smallest ? x.contains(candidate) : candidate.contains(x))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
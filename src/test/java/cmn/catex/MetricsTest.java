@@ -0,0 +1,142 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.FiniteMorphisms;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.metrics.*;
+import htsjdk.io.HtsPath;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MetricsTest extends TestBase {
+
+    private static final class RecordingListener implements MetricsListener {
+        final List<PhaseMetrics> phases = new CopyOnWriteArrayList<>();
+        final List<CategoryStats> stats = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void phaseCompleted(final PhaseMetrics metrics) { phases.add(metrics); }
+
+        @Override
+        public void categoryBuilt(final String operation, final CategoryStats categoryStats) { stats.add(categoryStats); }
+
+        PhaseMetrics get(final Phase phase) {
+            return phases.stream().filter(p -> p.phase() == phase).findFirst().orElseThrow();
+        }
+    }
+
+    private static IntervalList getTestIntervals() {
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1");
+        intervalList.add(new Interval("1", 1, 100));
+        intervalList.add(new Interval("1", 50, 150));
+        intervalList.add(new Interval("1", 140, 200));
+        intervalList.add(new Interval("1", 500, 600));
+        return intervalList;
+    }
+
+    @Test
+    private void testPhasesAreReported() throws IOException {
+        final RecordingListener listener = new RecordingListener();
+        Metrics.addListener(listener);
+        try {
+            final FiniteCategory<IntervalList, Interval> finCat = IntervalCategories.toOverlapsCategory(getTestIntervals());
+            FiniteCategory.of(null, finCat.getElements(), new FiniteMorphisms<>(finCat.getMorphismMap()));
+            final Path dotPath = Files.createTempFile("metricsTest", ".dot");
+            dotPath.toFile().deleteOnExit();
+            finCat.writeAsGraph(new HtsPath(dotPath.toUri().toString()));
+
+            Assert.assertEquals(listener.get(Phase.BUILD_MORPHISMS).operation(), "IntervalCategories.toCategory");
+            Assert.assertTrue(listener.get(Phase.BUILD_MORPHISMS).elapsedNanos() > 0);
+            Assert.assertEquals(listener.get(Phase.BUILD_MORPHISMS).bytesWritten(), -1L);
+            Assert.assertEquals(listener.get(Phase.VALIDATE).operation(), "FiniteCategory.validateMorphisms");
+            final PhaseMetrics export = listener.get(Phase.EXPORT);
+            Assert.assertEquals(export.operation(), "GraphUtils.writeDOT");
+            Assert.assertEquals(export.bytesWritten(), Files.size(dotPath));
+            Assert.assertTrue(export.allocatedBytes() != 0);
+
+            Assert.assertEquals(listener.stats, List.of(finCat.getStats()));
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        // nothing is reported once the listener is removed
+        final int phaseCount = listener.phases.size();
+        IntervalCategories.toOverlapsCategory(getTestIntervals());
+        Assert.assertEquals(listener.phases.size(), phaseCount);
+    }
+
+    @Test
+    private void testCategoryStats() {
+        final FiniteCategory<Object, String> finCat = new FiniteCategory<>();
+        finCat.addElements("a", "b", "c", "d", "e");
+        finCat.addMorphism("a", "b");
+        finCat.addMorphism("a", "c");
+        finCat.addMorphism("a", "d");
+        finCat.addMorphism("b", "c");
+
+        final CategoryStats stats = finCat.getStats();
+        Assert.assertEquals(stats.elementCount(), 5);
+        Assert.assertEquals(stats.edgeCount(), 4);
+        Assert.assertEquals(stats.maxOutDegree(), 3);
+        // degree 0: c, d, e; degree 1: b; degree [2, 4): a
+        Assert.assertEquals(stats.outDegreeHistogram(), new long[] { 3, 1, 1 });
+        Assert.assertEquals(stats.meanOutDegree(), 0.8);
+        Assert.assertEquals(CategoryStats.bucketOf(0), 0);
+        Assert.assertEquals(CategoryStats.bucketOf(4), 3);
+        // counted from the morphism map for a mutable category, and from the graph for a snapshot
+        Assert.assertEquals(finCat.snapshot().getStats(), stats);
+        Assert.assertEquals(CategoryStats.of(finCat.toIndexedDigraph()), stats);
+    }
+
+    @Test
+    private void testTimedPhases() {
+        final RecordingListener listener = new RecordingListener();
+        Metrics.addListener(listener);
+        try {
+            Assert.assertEquals(Metrics.time(Phase.VALIDATE, "MetricsTest.time", () -> 42), Integer.valueOf(42));
+            Assert.assertThrows(IllegalStateException.class, () -> Metrics.run(Phase.RENDER, "MetricsTest.run", () -> {
+                throw new IllegalStateException("failed phase");
+            }));
+            Assert.assertEquals(listener.get(Phase.VALIDATE).operation(), "MetricsTest.time");
+            // a phase is reported even if it fails
+            Assert.assertEquals(listener.get(Phase.RENDER).operation(), "MetricsTest.run");
+        } finally {
+            Metrics.removeListener(listener);
+        }
+    }
+
+    @Test
+    private void testJFREvents() throws IOException {
+        final Path jfrPath = Files.createTempFile("metricsTest", ".jfr");
+        jfrPath.toFile().deleteOnExit();
+        try (final Recording recording = new Recording()) {
+            recording.enable("cmn.catex.Phase");
+            recording.enable("cmn.catex.CategoryBuilt");
+            recording.start();
+            IntervalCategories.toOverlapsCategory(getTestIntervals());
+            recording.stop();
+            recording.dump(jfrPath);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(jfrPath);
+        Assert.assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("cmn.catex.Phase")
+                && event.getString("phase").equals("BUILD_MORPHISMS")));
+        Assert.assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("cmn.catex.CategoryBuilt")
+                && event.getLong("elementCount") == 4 && event.getLong("edgeCount") == 4));
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.genomics.intervals.OffHeapIntervalIndex;
+import htsjdk.samtools.util.Interval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OffHeapIntervalIndexTest extends TestBase {
+
+    @Test
+    private void testRoundTrip() {
+        final OffHeapIntervalIndex index = new OffHeapIntervalIndex();
+        final Interval[] intervals = {
+                new Interval("1", 10, 20, false, "a"),
+                new Interval("chrUn_KI270302v1", 5, 4, true, null), // empty interval
+                new Interval("1", 10, 21, true, "é漢"),
+        };
+        for (int i = 0; i < intervals.length; i++) {
+            Assert.assertEquals(index.add(intervals[i]), i);
+        }
+
+        Assert.assertEquals(index.size(), intervals.length);
+        for (int i = 0; i < intervals.length; i++) {
+            final Interval interval = index.get(i);
+            Assert.assertEquals(interval, intervals[i]);
+            Assert.assertEquals(interval.isNegativeStrand(), intervals[i].isNegativeStrand());
+            Assert.assertEquals(interval.getName(), intervals[i].getName());
+            Assert.assertEquals(index.indexOf(intervals[i]), i);
+        }
+        Assert.assertEquals(index.getContig(1), "chrUn_KI270302v1");
+        Assert.assertEquals(index.getStart(2), 10);
+        Assert.assertEquals(index.getEnd(2), 21);
+    }
+
+    @Test
+    private void testIntervalsAreIdentifiedByCoordinates() {
+        final OffHeapIntervalIndex index = new OffHeapIntervalIndex();
+        index.add(new Interval("1", 10, 20, false, "first"));
+
+        Assert.assertEquals(index.add(new Interval("1", 10, 20, true, "second")), 0);
+        Assert.assertEquals(index.size(), 1);
+        Assert.assertEquals(index.get(0).getName(), "first");
+        Assert.assertEquals(index.indexOf(new Interval("2", 10, 20)), -1);
+        Assert.assertEquals(index.indexOf(new Interval("1", 10, 19)), -1);
+        Assert.assertEquals(index.indexOf("1:10-20"), -1);
+    }
+
+    @Test
+    private void testGrowsPastExpectedSize() {
+        final OffHeapIntervalIndex index = new OffHeapIntervalIndex(0);
+        final long initialBytes = index.offHeapBytes();
+        for (int i = 0; i < 20_000; i++) {
+            Assert.assertEquals(index.add(new Interval(String.valueOf(i % 3), i, i + 100, false, "read-" + i)), i);
+        }
+
+        Assert.assertEquals(index.size(), 20_000);
+        Assert.assertTrue(index.offHeapBytes() > initialBytes);
+        for (int i = 0; i < 20_000; i += 997) {
+            Assert.assertEquals(index.get(i).getName(), "read-" + i);
+            Assert.assertEquals(index.indexOf(new Interval(String.valueOf(i % 3), i, i + 100)), i);
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    private void testRejectsUnknownIds() {
+        new OffHeapIntervalIndex().get(0);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.Morphism;
+import cmn.catex.cat.MorphismPolicy;
+import cmn.catex.cat.Pair;
+import cmn.catex.cat.Pullback;
+import cmn.catex.cat.Tagged;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class PullbackTest extends TestBase {
+
+    @Test
+    private void testProductOfChains() {
+        final FiniteCategory<String, Integer> numbers = new FiniteCategory<>("numbers");
+        numbers.addElements(1, 2, 3);
+        numbers.addMorphism(1, 2);
+        numbers.addMorphism(2, 3);
+        final FiniteCategory<String, String> letters = new FiniteCategory<>("letters");
+        letters.addElements("a", "b");
+        letters.addMorphism("a", "b");
+
+        final Pullback<Integer, String> product = numbers.product(letters);
+        Assert.assertEquals(product.elementCount(), 6);
+        final FiniteCategory<Pair<String, String>, Pair<Integer, String>> category =
+                product.toCategory(new Pair<>("numbers", "letters"));
+        // each generating morphism moves one element, with the identity of the other
+        Assert.assertEquals(category.getMorphismMap().values().stream().mapToInt(List::size).sum(), 2 * 2 + 3);
+        Assert.assertEquals(category.reachable(new Pair<>(1, "a")), new HashSet<>(product.elements().toList()));
+        Assert.assertEquals(category.reachable(new Pair<>(2, "b")), Set.of(new Pair<>(2, "b"), new Pair<>(3, "b")));
+        Assert.assertEquals(product.morphisms().count(), 7);
+    }
+
+    @Test
+    private void testPullbackOfIntervalsRelatedInBoth() {
+        final Random random = new Random(41);
+        final FiniteCategory<IntervalList, Interval> first =
+                GenomicIntervalTestUtils.toContainsCategory(
+                        GenomicIntervalTestUtils.randomIntervals(300, 3_000, 300, random));
+        final FiniteCategory<IntervalList, Interval> second =
+                GenomicIntervalTestUtils.toContainsCategory(
+                        GenomicIntervalTestUtils.randomIntervals(300, 3_000, 300, random));
+        final Function<Interval, String> bin = interval -> interval.getContig() + ":" + interval.getStart() / 500;
+
+        final Pullback<Interval, Interval> pullback = first.pullback(second, bin, bin);
+        final FiniteCategory<Object, Pair<Interval, Interval>> category = pullback.toCategory(null);
+        final Set<Pair<Interval, Interval>> expectedElements = new HashSet<>();
+        for (final Interval a : first.getElements()) {
+            for (final Interval b : second.getElements()) {
+                if (bin.apply(a).equals(bin.apply(b))) {
+                    expectedElements.add(new Pair<>(a, b));
+                }
+            }
+        }
+        Assert.assertEquals(category.getElements(), expectedElements);
+        Assert.assertEquals(pullback.elementCount(), expectedElements.size());
+
+        // containment categories are transitively closed, so a pair reaches every pair whose elements are
+        // contained in its own
+        final List<Pair<Interval, Interval>> pairs = new ArrayList<>(expectedElements);
+        for (int i = 0; i < 200; i++) {
+            final Pair<Interval, Interval> from = pairs.get(random.nextInt(pairs.size()));
+            final Set<Pair<Interval, Interval>> expected = pairs.stream()
+                    .filter(to -> from.first().contains(to.first()) && from.second().contains(to.second()))
+                    .collect(Collectors.toSet());
+            Assert.assertEquals(category.reachable(from), expected, from.toString());
+        }
+
+        final Set<Morphism<Pair<Interval, Interval>>> streamed = pullback.morphisms().parallel()
+                .collect(Collectors.toSet());
+        final Set<Morphism<Pair<Interval, Interval>>> held = new HashSet<>();
+        category.getMorphismMap().forEach((from, targets) ->
+                targets.forEach(to -> held.add(new Morphism<>(from, to))));
+        Assert.assertEquals(streamed, held);
+    }
+
+    @Test
+    private void testPullbackOfSamples() {
+        final FiniteCategory<IntervalList, Interval> sample = GenomicIntervalTestUtils.toContainsCategory(
+                GenomicIntervalTestUtils.intervalListFromGVCF(TEST_GVCF));
+        final Function<Interval, Integer> bin = interval -> interval.getStart() / 1_000;
+        final Map<Integer, Long> binSizes = sample.getElements().stream()
+                .collect(Collectors.groupingBy(bin, Collectors.counting()));
+
+        final Pullback<Interval, Interval> pullback = sample.pullback(sample, bin, bin);
+        Assert.assertEquals(pullback.elementCount(), binSizes.values().stream().mapToLong(size -> size * size).sum());
+        final FiniteCategory<Object, Pair<Interval, Interval>> category = pullback.toCategory(null);
+        for (final Interval interval : sample.getElements()) {
+            Assert.assertTrue(category.getElements().contains(new Pair<>(interval, interval)));
+        }
+    }
+
+    @Test
+    private void testCoproduct() {
+        final FiniteCategory<String, String> first = new FiniteCategory<>("first");
+        first.addElements("a", "b");
+        first.addMorphism("a", "b");
+        final FiniteCategory<String, String> second = new FiniteCategory<>("second");
+        second.addElements("b", "c");
+        second.addMorphism("c", "b");
+
+        final FiniteCategory<Pair<String, String>, Tagged<String>> coproduct = first.coproduct(second);
+        Assert.assertEquals(coproduct.getSource(), new Pair<>("first", "second"));
+        Assert.assertEquals(coproduct.getElements(), Set.of(
+                new Tagged<>(0, "a"), new Tagged<>(0, "b"), new Tagged<>(1, "b"), new Tagged<>(1, "c")));
+        Assert.assertEquals(coproduct.getMorphismMap(), Map.of(
+                new Tagged<>(0, "a"), List.of(new Tagged<>(0, "b")),
+                new Tagged<>(1, "c"), List.of(new Tagged<>(1, "b"))));
+    }
+
+    @Test
+    private void testCoproductKeepsCountedMultiplicities() {
+        final FiniteCategory<String, String> first = new FiniteCategory<>("first", MorphismPolicy.COUNTED);
+        first.addElements("a", "b");
+        first.addMorphism("a", "b");
+        first.addMorphism("a", "b");
+        final FiniteCategory<String, String> second = new FiniteCategory<>("second", MorphismPolicy.COUNTED);
+        second.addElements("b", "c");
+        second.addMorphism("c", "b");
+        second.addMorphism("c", "b");
+        second.addMorphism("c", "b");
+        second.addMorphism("b", "b");
+
+        final FiniteCategory<Pair<String, String>, Tagged<String>> coproduct = first.coproduct(second.snapshot());
+        Assert.assertEquals(coproduct.getMorphismPolicy(), MorphismPolicy.COUNTED);
+        Assert.assertEquals(coproduct.multiplicity(new Tagged<>(0, "a"), new Tagged<>(0, "b")), 2);
+        Assert.assertEquals(coproduct.multiplicity(new Tagged<>(1, "c"), new Tagged<>(1, "b")), 3);
+        Assert.assertEquals(coproduct.multiplicity(new Tagged<>(1, "b"), new Tagged<>(1, "b")), 1);
+        Assert.assertEquals(coproduct.multiplicity(new Tagged<>(0, "b"), new Tagged<>(1, "b")), 0);
+    }
+
+    @Test
+    private void testCoproductPolicies() {
+        final FiniteCategory<String, String> set = new FiniteCategory<>("set", MorphismPolicy.SET);
+        final FiniteCategory<String, String> multigraph = new FiniteCategory<>("multigraph");
+        final FiniteCategory<String, String> counted = new FiniteCategory<>("counted", MorphismPolicy.COUNTED);
+        Assert.assertEquals(set.coproduct(set).getMorphismPolicy(), MorphismPolicy.SET);
+        Assert.assertEquals(set.coproduct(multigraph).getMorphismPolicy(), MorphismPolicy.MULTIGRAPH);
+        Assert.assertThrows(IllegalArgumentException.class, () -> counted.coproduct(multigraph));
+        Assert.assertThrows(IllegalArgumentException.class, () -> set.coproduct(counted));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsNullKeys() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElement("a");
+        category.pullback(category, element -> null, element -> element);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.HashElementIndex;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import cmn.catex.cat.Quotient;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class QuotientTest extends TestBase {
+
+    @Test
+    private void testCollapsesCycles() {
+        final FiniteCategory<Object, String> preorder = new FiniteCategory<>();
+        preorder.addElements("a", "b", "c", "d", "e");
+        preorder.addMorphism("a", "b");
+        preorder.addMorphism("b", "a");
+        preorder.addMorphism("b", "c");
+        preorder.addMorphism("a", "d");
+        preorder.addMorphism("c", "d");
+        preorder.addMorphism("d", "c");
+        preorder.addMorphism("e", "e");
+
+        final Quotient<Object, String> quotient = preorder.quotient();
+        Assert.assertFalse(preorder.isPoset());
+        Assert.assertEquals(quotient.classCount(), 3);
+        Assert.assertEquals(quotient.members(0), List.of("a", "b"));
+        Assert.assertEquals(quotient.members(1), List.of("c", "d"));
+        Assert.assertEquals(quotient.members(2), List.of("e"));
+        Assert.assertEquals(quotient.classOf("b"), "a");
+        Assert.assertEquals(quotient.classIdOf("d"), 1);
+
+        final FiniteCategory<Object, String> poset = quotient.getCategory();
+        Assert.assertTrue(poset.isPoset());
+        Assert.assertEquals(poset.getElements(), Set.of("a", "c", "e"));
+        // the morphisms from a and b to c and d collapse into one, and the self-loop becomes the identity
+        Assert.assertEquals(poset.getMorphismMap(), Map.of("a", List.of("c")));
+    }
+
+    @Test
+    private void testPosetIsUnchanged() {
+        final FiniteCategory<Object, String> poset = new FiniteCategory<>();
+        poset.addElements("a", "b", "c");
+        poset.addMorphism("a", "b");
+        poset.addMorphism("a", "c");
+
+        final Quotient<Object, String> quotient = poset.quotient();
+        Assert.assertTrue(poset.isPoset());
+        Assert.assertEquals(quotient.classCount(), 3);
+        Assert.assertEquals(quotient.getCategory(), poset.snapshot());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsUnknownElements() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElement("a");
+        category.quotient().classOf("b");
+    }
+
+    @Test
+    private void testLongCycleDoesNotOverflowStack() {
+        final int n = 1_000_000;
+        final HashElementIndex<Integer> index = new HashElementIndex<>(n);
+        final List<Integer> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+            index.add(i);
+        }
+        final IndexedFiniteMorphisms<Integer> morphisms = new IndexedFiniteMorphisms<>(index);
+        for (int i = 0; i < n; i++) {
+            morphisms.addById(i, (i + 1) % n);
+        }
+        final FiniteCategory<Object, Integer> cycle = FiniteCategory.ofTrusted(null, elements, morphisms);
+
+        final Quotient<Object, Integer> quotient = cycle.quotient();
+        Assert.assertEquals(quotient.classCount(), 1);
+        Assert.assertEquals(quotient.members(0).size(), n);
+        Assert.assertTrue(quotient.getCategory().getMorphismMap().isEmpty());
+    }
+
+    @Test
+    private void testOverlapClustersAreMergedIntervals() {
+        final Random random = new Random(7);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1", "2");
+        for (int i = 0; i < 500; i++) {
+            final int start = 1 + random.nextInt(10_000);
+            intervalList.add(new Interval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(40)));
+        }
+
+        final Quotient<IntervalList, Interval> clusters =
+                IntervalCategories.toOverlapsCategory(intervalList).quotient();
+        Assert.assertEquals(
+                new HashSet<>(IntervalCategories.mergedIntervals(clusters)),
+                new HashSet<>(mergeOverlapping(intervalList)));
+        // clusters are disjoint, so the quotient of an overlaps category has no morphisms
+        Assert.assertTrue(clusters.getCategory().getMorphismMap().isEmpty());
+    }
+
+    // merge intervals that overlap (but not those that only abut, unlike IntervalList.uniqued)
+    private static List<Interval> mergeOverlapping(final IntervalList intervalList) {
+        final List<Interval> sorted = new ArrayList<>(intervalList.getIntervals());
+        sorted.sort(Comparator.comparing(Interval::getContig).thenComparingInt(Interval::getStart));
+        final List<Interval> merged = new ArrayList<>();
+        Interval current = null;
+        for (final Interval interval : sorted) {
+            if (current != null && current.getContig().equals(interval.getContig())
+                    && interval.getStart() <= current.getEnd()) {
+                current = new Interval(
+                        current.getContig(),
+                        current.getStart(),
+                        Math.max(current.getEnd(), interval.getEnd()));
+            } else {
+                if (current != null) {
+                    merged.add(current);
+                }
+                current = new Interval(interval.getContig(), interval.getStart(), interval.getEnd());
+            }
+        }
+        if (current != null) {
+            merged.add(current);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import cmn.catex.genomics.intervals.IntervalMorphismSink;
+import cmn.catex.genomics.intervals.IntervalRelation;
+import cmn.catex.genomics.intervals.OffHeapIntervalSink;
+import cmn.catex.genomics.intervals.StreamingIntervalCategoryBuilder;
+import htsjdk.io.IOPath;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class StreamingIntervalCategoryBuilderTest extends TestBase {
+
+    @DataProvider(name = "relations")
+    public Object[][] getRelations() {
+        return new Object[][] { { IntervalRelation.OVERLAPS }, { IntervalRelation.CONTAINS } };
+    }
+
+    @Test(dataProvider = "relations")
+    private void testVCFMatchesIntervalList(final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> streamed = StreamingIntervalCategoryBuilder.fromVCF(TEST_GVCF, relation);
+        final FiniteCategory<IntervalList, Interval> materialized = IntervalCategories.toCategory(
+                GenomicIntervalTestUtils.intervalListFromGVCF(TEST_GVCF), relation);
+
+        Assert.assertEquals(streamed.getElements(), materialized.getElements());
+        Assert.assertEquals(morphismSet(streamed), morphismSet(materialized));
+    }
+
+    @Test(dataProvider = "relations")
+    private void testPicardIntervalListMatchesIntervalList(final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> streamed =
+                StreamingIntervalCategoryBuilder.fromPicardIntervalList(TEST_INTERVAL_LIST, relation);
+        final FiniteCategory<IntervalList, Interval> materialized = IntervalCategories.toCategory(
+                GenomicIntervalTestUtils.intervalListFromPicardIntervalList(TEST_INTERVAL_LIST), relation);
+
+        Assert.assertEquals(streamed.getElements(), materialized.getElements());
+        Assert.assertEquals(morphismSet(streamed), morphismSet(materialized));
+    }
+
+    @Test(dataProvider = "relations")
+    private void testOffHeapSinkMatchesCategory(final IntervalRelation relation) {
+        final FiniteCategory<IOPath, Interval> streamed =
+                StreamingIntervalCategoryBuilder.fromPicardIntervalList(TEST_INTERVAL_LIST, relation);
+        final OffHeapIntervalSink sink = new OffHeapIntervalSink();
+        StreamingIntervalCategoryBuilder.fromPicardIntervalList(TEST_INTERVAL_LIST, relation, sink);
+        final FiniteCategory<IOPath, Interval> offHeap = sink.toCategory(TEST_INTERVAL_LIST);
+
+        Assert.assertEquals(offHeap, streamed);
+        Assert.assertThrows(IllegalStateException.class, () -> sink.addElement(new Interval("1", 1, 1)));
+    }
+
+    @Test
+    private void testWindowIsBoundedByOverlapDepth() {
+        final FiniteCategory<Object, Interval> category = new FiniteCategory<>();
+        final StreamingIntervalCategoryBuilder builder =
+                new StreamingIntervalCategoryBuilder(IntervalRelation.CONTAINS, IntervalMorphismSink.of(category));
+        // 1000 disjoint groups of 3 nested intervals; intervals with the same start arrive shortest first
+        for (int i = 0; i < 1000; i++) {
+            final int start = i * 100 + 1;
+            builder.add(new Interval("1", start, start + 10));
+            builder.add(new Interval("1", start, start + 20));
+            builder.add(new Interval("1", start + 1, start + 5));
+        }
+
+        Assert.assertEquals(builder.getElementCount(), 3000);
+        Assert.assertEquals(builder.getMaxWindowSize(), 3);
+        Assert.assertEquals(
+                new HashSet<>(category.getMorphismMap().get(new Interval("1", 1, 21))),
+                Set.of(new Interval("1", 1, 11), new Interval("1", 2, 6)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsUnsortedInput() {
+        final StreamingIntervalCategoryBuilder builder = new StreamingIntervalCategoryBuilder(
+                IntervalRelation.OVERLAPS, IntervalMorphismSink.of(new FiniteCategory<>()));
+        builder.add(new Interval("1", 100, 200));
+        builder.add(new Interval("1", 50, 150));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testRejectsInterleavedContigs() {
+        final StreamingIntervalCategoryBuilder builder = new StreamingIntervalCategoryBuilder(
+                IntervalRelation.OVERLAPS, IntervalMorphismSink.of(new FiniteCategory<>()));
+        builder.add(new Interval("1", 100, 200));
+        builder.add(new Interval("2", 100, 200));
+        builder.add(new Interval("1", 300, 400));
+    }
+}
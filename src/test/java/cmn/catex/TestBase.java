@@ -3,9 +3,14 @@
  */
 package cmn.catex;
 
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.Morphism;
 import htsjdk.io.HtsPath;
 import htsjdk.io.IOPath;
 
+import java.util.HashSet;
+import java.util.Set;
+
 public class TestBase {
     final static String GENOMICS_TEST_FILES = "src/test/resources/cmn/genomics/";
 
@@ -15,4 +20,12 @@ public class TestBase {
 
     // interval list with a single interval contained within another interval
     public static final IOPath TEST_INTERVAL_LIST = new HtsPath(GENOMICS_TEST_FILES + "interval_list_to_bed_test.interval_list");
+
+    // the distinct morphisms of a category, for comparing categories whose morphisms were added in different orders
+    protected static <E> Set<Morphism<E>> morphismSet(final FiniteCategory<?, E> category) {
+        final Set<Morphism<E>> morphisms = new HashSet<>();
+        category.getMorphismMap().forEach((from, targets) ->
+                targets.forEach(to -> morphisms.add(new Morphism<>(from, to))));
+        return morphisms;
+    }
 }
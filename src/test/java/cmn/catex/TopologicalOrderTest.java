@@ -0,0 +1,144 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.cat.HashElementIndex;
+import cmn.catex.cat.IndexedFiniteMorphisms;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+public class TopologicalOrderTest extends TestBase {
+
+    @Test
+    private void testOrderRespectsMorphisms() {
+        final FiniteCategory<Object, Integer> dag = randomDag(2_000, 3, new Random(23));
+        final List<Integer> order = new ArrayList<>();
+        dag.topologicalIterator().forEachRemaining(order::add);
+
+        Assert.assertEquals(new HashSet<>(order), dag.getElements());
+        Assert.assertEquals(order.size(), dag.getElements().size());
+        assertRespectsMorphisms(dag, order);
+    }
+
+    @Test
+    private void testParallelSpliterator() {
+        final FiniteCategory<Object, Integer> dag = randomDag(20_000, 3, new Random(29));
+        final List<Integer> order = StreamSupport.stream(dag.topologicalSpliterator(), true).toList();
+
+        // the size is unknown, since a cycle would end the order early
+        Assert.assertFalse(dag.topologicalSpliterator().hasCharacteristics(Spliterator.SIZED));
+        Assert.assertEquals(order.size(), dag.getElements().size());
+        assertRespectsMorphisms(dag, order);
+    }
+
+    @Test
+    private void testLayersAreAntichains() {
+        final FiniteCategory<Object, Integer> dag = layeredDag(8, 10_000, new Random(31));
+        final List<List<Integer>> layers = new ArrayList<>();
+        dag.topologicalLayers(null).forEachRemaining(layers::add);
+        final List<List<Integer>> parallelLayers = new ArrayList<>();
+        dag.topologicalLayers(ForkJoinPool.commonPool()).forEachRemaining(parallelLayers::add);
+
+        Assert.assertEquals(parallelLayers, layers);
+        Assert.assertTrue(layers.stream().anyMatch(layer -> layer.size() > 4096));
+        // each element is in the layer after the longest chain of elements below it
+        Assert.assertEquals(layers.size(), dag.height());
+        final Map<Integer, Integer> layerOf = new HashMap<>();
+        for (int i = 0; i < layers.size(); i++) {
+            for (final Integer element : layers.get(i)) {
+                Assert.assertNull(layerOf.put(element, i));
+            }
+        }
+        Assert.assertEquals(layerOf.keySet(), dag.getElements());
+        for (final Integer element : dag.getElements()) {
+            final Set<Integer> predecessors = dag.predecessors(element);
+            final int expected = predecessors.stream().mapToInt(layerOf::get).max().orElse(-1) + 1;
+            Assert.assertEquals((int) layerOf.get(element), expected);
+        }
+    }
+
+    @Test
+    private void testCycleIsDetected() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElements("a", "b", "c", "d");
+        category.addMorphism("a", "a");
+        category.addMorphism("a", "b");
+        category.addMorphism("b", "c");
+        category.addMorphism("c", "b");
+        category.addMorphism("c", "d");
+
+        final Iterator<String> iterator = category.topologicalIterator();
+        Assert.assertEquals(iterator.next(), "a");
+        Assert.assertThrows(IllegalArgumentException.class, iterator::hasNext);
+
+        final Iterator<List<String>> layers = category.topologicalLayers(null);
+        Assert.assertEquals(layers.next(), List.of("a"));
+        Assert.assertThrows(IllegalArgumentException.class, layers::next);
+    }
+
+    @Test
+    private void testEmpty() {
+        final FiniteCategory<Object, String> empty = new FiniteCategory<>();
+        Assert.assertFalse(empty.topologicalIterator().hasNext());
+        Assert.assertFalse(empty.topologicalLayers().hasNext());
+    }
+
+    private static <E> void assertRespectsMorphisms(final FiniteCategory<?, E> category, final List<E> order) {
+        final Map<E, Integer> position = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i);
+        }
+        category.getMorphismMap().forEach((from, targets) -> {
+            for (final E to : targets) {
+                Assert.assertTrue(position.get(from) < position.get(to), from + " -> " + to);
+            }
+        });
+    }
+
+    // morphisms go from each element to a few random elements with larger numbers, which are shuffled so that the
+    // element order isn't already topological
+    private static FiniteCategory<Object, Integer> randomDag(final int n, final int degree, final Random random) {
+        final List<Integer> elements = random.ints(0, Integer.MAX_VALUE).distinct().limit(n).boxed()
+                .collect(Collectors.toCollection(ArrayList::new));
+        final List<Integer> rank = new ArrayList<>(elements);
+        Collections.shuffle(elements, random);
+        final HashElementIndex<Integer> elementIndex = new HashElementIndex<>(n);
+        elements.forEach(elementIndex::add);
+        final IndexedFiniteMorphisms<Integer> morphisms = new IndexedFiniteMorphisms<>(elementIndex);
+        for (int i = 0; i + 1 < n; i++) {
+            for (int d = 0; d < degree; d++) {
+                final int j = i + 1 + random.nextInt(Math.min(n - i - 1, 50));
+                morphisms.addById(elementIndex.indexOf(rank.get(i)), elementIndex.indexOf(rank.get(j)));
+            }
+        }
+        return FiniteCategory.ofTrusted(null, elements, morphisms);
+    }
+
+    // morphisms go from each element of a band to random elements of the next band or the one after, so the layers
+    // are wide enough to be released in parallel
+    private static FiniteCategory<Object, Integer> layeredDag(final int bands, final int width, final Random random) {
+        final int n = bands * width;
+        final HashElementIndex<Integer> elementIndex = new HashElementIndex<>(n);
+        final List<Integer> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+            elementIndex.add(i);
+        }
+        final IndexedFiniteMorphisms<Integer> morphisms = new IndexedFiniteMorphisms<>(elementIndex);
+        for (int i = 0; i < n - width; i++) {
+            final int band = i / width;
+            for (int d = 0; d < 2; d++) {
+                final int toBand = Math.min(bands - 1, band + 1 + (random.nextInt(4) == 0 ? 1 : 0));
+                morphisms.addById(i, toBand * width + random.nextInt(width));
+            }
+        }
+        return FiniteCategory.ofTrusted(null, elements, morphisms);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * © Copyright (c) Christopher Norman 2025
+ */
+package cmn.catex;
+
+import cmn.catex.cat.FiniteCategory;
+import cmn.catex.genomics.intervals.GenomicIntervalTestUtils;
+import cmn.catex.genomics.intervals.IntervalCategories;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class TransitivityTest extends TestBase {
+
+    @Test
+    private void testClosureOfChain() {
+        final FiniteCategory<Object, String> chain = new FiniteCategory<>();
+        chain.addElements("a", "b", "c", "d");
+        chain.addMorphism("a", "b");
+        chain.addMorphism("b", "c");
+        chain.addMorphism("c", "d");
+
+        final FiniteCategory<Object, String> closure = chain.transitiveClosure();
+        Assert.assertEquals(closure.getElements(), chain.getElements());
+        Assert.assertEquals(closure.getMorphismMap(), Map.of(
+                "a", List.of("b", "c", "d"),
+                "b", List.of("c", "d"),
+                "c", List.of("d")));
+        Assert.assertEquals(closure.transitiveReduction(), chain);
+    }
+
+    @Test
+    private void testClosureWithCycle() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElements("a", "b", "c", "d");
+        category.addMorphism("a", "b");
+        category.addMorphism("b", "a");
+        category.addMorphism("b", "c");
+        category.addMorphism("d", "d");
+
+        Assert.assertEquals(category.transitiveClosure().getMorphismMap(), Map.of(
+                "a", List.of("b", "c"),
+                "b", List.of("a", "c")));
+    }
+
+    @Test
+    private void testReductionDropsCompositesAndDuplicates() {
+        final FiniteCategory<Object, String> diamond = new FiniteCategory<>();
+        diamond.addElements("top", "left", "right", "bottom");
+        diamond.addMorphism("top", "bottom");
+        diamond.addMorphism("top", "left");
+        diamond.addMorphism("top", "right");
+        diamond.addMorphism("left", "bottom");
+        diamond.addMorphism("right", "bottom");
+        diamond.addMorphism("right", "bottom");
+
+        Assert.assertEquals(diamond.transitiveReduction().getMorphismMap(), Map.of(
+                "top", List.of("left", "right"),
+                "left", List.of("bottom"),
+                "right", List.of("bottom")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    private void testReductionRejectsCycles() {
+        final FiniteCategory<Object, String> category = new FiniteCategory<>();
+        category.addElements("a", "b");
+        category.addMorphism("a", "b");
+        category.addMorphism("b", "a");
+        category.transitiveReduction();
+    }
+
+    @Test
+    private void testReductionOfNestedIntervals() {
+        // containment of random intervals is already transitively closed, so reducing and re-closing round trips
+        final Random random = new Random(7);
+        final IntervalList intervalList = GenomicIntervalTestUtils.emptyIntervalList("1");
+        for (int i = 0; i < 300; i++) {
+            final int start = 1 + random.nextInt(500);
+            intervalList.add(new Interval("1", start, start + random.nextInt(200), false, "interval-" + i));
+        }
+        final FiniteCategory<IntervalList, Interval> contains = IntervalCategories.toContainsCategory(intervalList);
+        final FiniteCategory<IntervalList, Interval> hasse = contains.transitiveReduction();
+
+        Assert.assertTrue(morphismCount(hasse) < morphismCount(contains));
+        Assert.assertEquals(morphismSet(hasse.transitiveClosure()), morphismSet(contains));
+    }
+
+    private static int morphismCount(final FiniteCategory<?, ?> category) {
+        return category.getMorphismMap().values().stream().mapToInt(List::size).sum();
+    }
+}
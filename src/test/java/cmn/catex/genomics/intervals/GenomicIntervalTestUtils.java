@@ -3,28 +3,54 @@
  */
 package cmn.catex.genomics.intervals;
 
-import cmn.catex.cat.FiniteMorphisms;
 import cmn.catex.cat.FiniteCategory;
 import htsjdk.beta.plugin.reads.ReadsDecoder;
 import htsjdk.beta.plugin.registry.HtsDefaultRegistry;
 import htsjdk.io.IOPath;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.util.IntervalList;
 import htsjdk.variant.vcf.VCFFileReader;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.io.File;
-import java.util.List;
-import java.util.function.BiFunction;
+import java.util.Random;
 
 /**
- * Utility class for working with IntervalList test objects.
+ * Utility class for working with IntervalList test objects. Categories are built by {@link IntervalCategories}.
  *
  * TODO: add abuts variation as alternative morphism type
  * TODO: add "overlaps only" and "contains only" as an alternative (keep only overlapping/contained intervals)
  */
 public class GenomicIntervalTestUtils {
 
+    // empty interval list whose header has a sequence dictionary with the given (arbitrarily long) contigs
+    public static IntervalList emptyIntervalList(final String... contigs) {
+        final SAMSequenceDictionary sequenceDictionary = new SAMSequenceDictionary();
+        for (final String contig : contigs) {
+            sequenceDictionary.addSequence(new SAMSequenceRecord(contig, Integer.MAX_VALUE - 1));
+        }
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(sequenceDictionary);
+        return new IntervalList(header);
+    }
+
+    // count random intervals on contigs "1" and "2", starting in [1, maxStart] and spanning up to maxLength more bases
+    public static IntervalList randomIntervals(
+            final int count,
+            final int maxStart,
+            final int maxLength,
+            final Random random) {
+        final IntervalList intervalList = emptyIntervalList("1", "2");
+        for (int i = 0; i < count; i++) {
+            final int start = 1 + random.nextInt(maxStart);
+            intervalList.add(new Interval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(maxLength)));
+        }
+        return intervalList;
+    }
+
     public static IntervalList intervalListFromBAM(final IOPath bamFile) {
         try (final ReadsDecoder readsDecoder = HtsDefaultRegistry.getReadsResolver().getReadsDecoder(bamFile)) {
             return new IntervalList(readsDecoder.getHeader());
@@ -46,61 +72,14 @@ public class GenomicIntervalTestUtils {
         Utils.validateArg(intervalList != null, "intervalList cannot be null");
         Utils.validateArg(intervalList.size() >= 2, "intervalList must have at least two entries");
 
-        return toCategoryWithProperty(intervalList, Interval::contains);
+        return IntervalCategories.toContainsCategory(intervalList);
     }
 
-    // poset where < => overlaps
+    // preorder where < => overlaps
     public static FiniteCategory<IntervalList, Interval> toOverlapsCategory(final IntervalList intervalList) {
         Utils.validateArg(intervalList != null, "intervalList cannot be null");
         Utils.validateArg(intervalList.size() >= 2, "intervalList must have at least two entries");
 
-        return toCategoryWithProperty(intervalList, Interval::overlaps);
-    }
-
-    private static FiniteCategory<IntervalList, Interval> toCategoryWithProperty(
-            final IntervalList intervalList,
-            final BiFunction<Interval, Interval, Boolean> propertyPredicate)
-    {
-        final List<Interval> intervals = intervalList.getIntervals();
-        final FiniteMorphisms<Interval> morphisms = new FiniteMorphisms<>();
-        Interval previousInterval = null;
-        for (int i = 0; i < intervals.size() - 1; i++) {
-            final Interval sourceInterval = intervals.get(i);
-            Interval nextInterval = intervals.get(i + 1);
-            morphisms.add(sourceInterval, nextInterval);
-            if (previousInterval != null) {
-                morphisms.add(previousInterval, nextInterval);
-                previousInterval = null;
-            }
-            final Interval terminalInterval = findTerminalIntervalWithProperty(i, intervals, propertyPredicate);
-            if (terminalInterval != null) {
-                morphisms.add(sourceInterval, terminalInterval);
-            }
-        }
-        return new FiniteCategory<>(intervalList, intervals, morphisms);
-    }
-
-    private static Interval findTerminalIntervalWithProperty(
-            final int i,
-            final List<Interval> intervals,
-            final BiFunction<Interval, Interval, Boolean> propertyPredicate) {
-        Utils.validateArg(i < intervals.size()-1, "there must be at least two intervals left in the list");
-
-        Interval terminalInterval = null;
-        final Interval sourceInterval = intervals.get(i);
-        Interval nextInterval = intervals.get(i+1);
-        if (propertyPredicate.apply(sourceInterval, nextInterval)) {
-            // advance through the remaining intervals looking for the first one that fails the predicate,
-            // and make that the terminal interval
-            for (int j = i+2; j < intervals.size(); j++) {
-                nextInterval = intervals.get(j);
-                if (!propertyPredicate.apply(sourceInterval, nextInterval)) {
-                    terminalInterval = nextInterval;
-                    break;
-                }
-            }
-        }
-
-        return terminalInterval;
+        return IntervalCategories.toOverlapsCategory(intervalList);
     }
 }